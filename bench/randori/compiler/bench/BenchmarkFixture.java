@@ -0,0 +1,161 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flex.compiler.internal.tree.as.FunctionNode;
+import org.apache.flex.compiler.problems.ICompilerProblem;
+import org.apache.flex.compiler.projects.ICompilerProject;
+import org.apache.flex.compiler.tree.as.IASNode;
+import org.apache.flex.compiler.tree.as.IClassNode;
+import org.apache.flex.compiler.tree.as.IFileNode;
+import org.apache.flex.utils.FilenameNormalization;
+
+import randori.compiler.codegen.js.IRandoriEmitter;
+import randori.compiler.internal.codegen.as.ASFilterWriter;
+import randori.compiler.internal.constants.TestConstants;
+import randori.compiler.internal.js.codegen.RandoriTestProjectBase;
+import randori.compiler.visitor.as.IASBlockWalker;
+
+/**
+ * Loads a class of the <code>test/resources</code> demo sources or the HMSS
+ * sample through the same project setup the emitter tests use.
+ * <p>
+ * Types in the <code>demo</code> package are loaded from
+ * <code>test/resources</code>, all others from the HMSS sample.
+ * 
+ * @author Michael Schmalle
+ */
+public class BenchmarkFixture extends RandoriTestProjectBase
+{
+    private static final String DEMO = "demo.";
+
+    private final String typeUnderTest;
+
+    public BenchmarkFixture(String typeUnderTest)
+    {
+        this.typeUnderTest = typeUnderTest;
+        setUp();
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return typeUnderTest;
+    }
+
+    @Override
+    protected String getBasePath()
+    {
+        if (typeUnderTest.startsWith(DEMO))
+            return "test/resources";
+        return TestConstants.RandoriASFramework
+                + "\\randori-demos-bundle\\HMSS\\src";
+    }
+
+    @Override
+    protected void addSourcePaths(List<File> sourcePaths)
+    {
+        super.addSourcePaths(sourcePaths);
+        sourcePaths.add(new File(FilenameNormalization
+                .normalize("test/resources")));
+    }
+
+    public ICompilerProject getProject()
+    {
+        return project;
+    }
+
+    public IFileNode getFileNode()
+    {
+        return fileNode;
+    }
+
+    public IClassNode getClassNode()
+    {
+        return classNode;
+    }
+
+    /**
+     * Creates a new writer, emitter and walker, the same set a compile
+     * creates for each class.
+     */
+    public Session createSession()
+    {
+        ASFilterWriter writer = backend.createWriterBuffer(project);
+        IRandoriEmitter emitter = (IRandoriEmitter) backend
+                .createEmitter(writer);
+        IASBlockWalker walker = backend.createWalker(project,
+                new ArrayList<ICompilerProblem>(), emitter);
+        return new Session(writer, emitter, walker);
+    }
+
+    /**
+     * Returns all descendants of the class's file of the given type, function
+     * bodies are parsed on the way.
+     */
+    public <T extends IASNode> List<T> findAll(Class<T> nodeType)
+    {
+        List<T> result = new ArrayList<T>();
+        collect(fileNode, nodeType, result);
+        return result;
+    }
+
+    private <T extends IASNode> void collect(IASNode node, Class<T> nodeType,
+            List<T> result)
+    {
+        int n = node.getChildCount();
+        for (int i = 0; i < n; i++)
+        {
+            IASNode child = node.getChild(i);
+            if (child instanceof FunctionNode)
+            {
+                ((FunctionNode) child).parseFunctionBody(errors);
+            }
+            if (nodeType.isInstance(child))
+                result.add(nodeType.cast(child));
+
+            collect(child, nodeType, result);
+        }
+    }
+
+    /**
+     * The writer, emitter and walker of a single class generation.
+     */
+    public static class Session
+    {
+        public final ASFilterWriter writer;
+
+        public final IRandoriEmitter emitter;
+
+        public final IASBlockWalker walker;
+
+        Session(ASFilterWriter writer, IRandoriEmitter emitter,
+                IASBlockWalker walker)
+        {
+            this.writer = writer;
+            this.emitter = emitter;
+            this.walker = walker;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.flex.compiler.tree.as.IFunctionCallNode;
+import org.apache.flex.compiler.tree.as.IIdentifierNode;
+import org.apache.flex.compiler.tree.as.IMemberAccessExpressionNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import randori.compiler.bench.BenchmarkFixture.Session;
+import randori.compiler.internal.codegen.js.emitter.FooterEmitter;
+import randori.compiler.internal.codegen.js.emitter.FunctionCallEmitter;
+import randori.compiler.internal.codegen.js.emitter.IdentifierEmitter;
+import randori.compiler.internal.codegen.js.emitter.MemberAccessExpressionEmitter;
+
+/**
+ * Measures the individual sub emitters over every matching node of a class.
+ * <p>
+ * Each invocation uses a fresh emitter, the footer is emitted without the
+ * dependencies that walking the class body would have collected.
+ * 
+ * @author Michael Schmalle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SubEmitterBenchmark
+{
+    @Param({ "demo.foo.ClassB", "demo.inject.InjectTest",
+            "mediators.IndexMediator", "services.LabService" })
+    public String type;
+
+    private BenchmarkFixture fixture;
+
+    private List<IIdentifierNode> identifiers;
+
+    private List<IMemberAccessExpressionNode> memberAccessExpressions;
+
+    private List<IFunctionCallNode> functionCalls;
+
+    @Setup
+    public void setUp()
+    {
+        fixture = new BenchmarkFixture(type);
+        identifiers = fixture.findAll(IIdentifierNode.class);
+        memberAccessExpressions = fixture
+                .findAll(IMemberAccessExpressionNode.class);
+        functionCalls = fixture.findAll(IFunctionCallNode.class);
+    }
+
+    @Benchmark
+    public String identifier()
+    {
+        Session session = fixture.createSession();
+        IdentifierEmitter emitter = new IdentifierEmitter(session.emitter);
+        for (IIdentifierNode node : identifiers)
+        {
+            emitter.emit(node);
+        }
+        return session.writer.toString();
+    }
+
+    @Benchmark
+    public String memberAccessExpression()
+    {
+        Session session = fixture.createSession();
+        MemberAccessExpressionEmitter emitter = new MemberAccessExpressionEmitter(
+                session.emitter);
+        for (IMemberAccessExpressionNode node : memberAccessExpressions)
+        {
+            emitter.emit(node);
+        }
+        return session.writer.toString();
+    }
+
+    @Benchmark
+    public String functionCall()
+    {
+        Session session = fixture.createSession();
+        FunctionCallEmitter emitter = new FunctionCallEmitter(session.emitter);
+        for (IFunctionCallNode node : functionCalls)
+        {
+            emitter.emit(node);
+        }
+        return session.writer.toString();
+    }
+
+    @Benchmark
+    public String footer()
+    {
+        Session session = fixture.createSession();
+        new FooterEmitter(session.emitter).emit(fixture.getClassNode());
+        return session.writer.toString();
+    }
+}
@@ -0,0 +1,90 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.flex.compiler.tree.as.IFunctionNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import randori.compiler.bench.BenchmarkFixture.Session;
+
+/**
+ * Measures the generation of a whole class through
+ * {@link randori.compiler.visitor.as.IASBlockWalker#visitFile}, the same path
+ * a compile takes for each class, and the {@link randori.compiler.internal.codegen.js.RandoriEmitter}
+ * method emission of each of the class's functions.
+ * 
+ * @author Michael Schmalle
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class VisitFileBenchmark
+{
+    @Param({ "demo.foo.ClassA", "demo.foo.ClassB", "demo.inject.InjectTest",
+            "behaviors.EchoBehavior", "mediators.IndexMediator",
+            "services.LabService", "startup.DemoContext" })
+    public String type;
+
+    private BenchmarkFixture fixture;
+
+    private List<IFunctionNode> functions;
+
+    @Setup
+    public void setUp()
+    {
+        fixture = new BenchmarkFixture(type);
+        functions = fixture.findAll(IFunctionNode.class);
+    }
+
+    @Benchmark
+    public String visitFile()
+    {
+        Session session = fixture.createSession();
+        session.walker.visitFile(fixture.getFileNode());
+        return session.writer.toString();
+    }
+
+    @Benchmark
+    public String emitFunctions()
+    {
+        Session session = fixture.createSession();
+        for (IFunctionNode function : functions)
+        {
+            session.walker.visitFunction(function);
+        }
+        return session.writer.toString();
+    }
+}
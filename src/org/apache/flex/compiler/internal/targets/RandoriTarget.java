@@ -38,6 +38,9 @@ import randori.compiler.config.IRandoriTargetSettings;
 import randori.compiler.driver.IRandoriApplication;
 import randori.compiler.driver.IRandoriTarget;
 import randori.compiler.internal.driver.RandoriApplication;
+import randori.compiler.internal.metrics.CompilerMetrics;
+import randori.compiler.internal.metrics.CompilerMetrics.Phase;
+import randori.compiler.internal.utils.MetaDataIndex;
 
 import com.google.common.collect.Iterables;
 
@@ -49,6 +52,8 @@ public class RandoriTarget extends Target implements IRandoriTarget
 
     private RootedCompilationUnits rootedCompilationUnits;
 
+    private final CompilerMetrics metrics;
+
     protected IRandoriTargetSettings getSettings()
     {
         return (IRandoriTargetSettings) getTargetSettings();
@@ -57,8 +62,21 @@ public class RandoriTarget extends Target implements IRandoriTarget
     public RandoriTarget(CompilerProject project,
             ITargetSettings targetSettings,
             ITargetProgressMonitor progressMonitor)
+    {
+        this(project, targetSettings, progressMonitor,
+                CompilerMetrics.DISABLED);
+    }
+
+    /**
+     * @param metrics The metrics of the compile the build phases are recorded
+     * in, handed on to the {@link IRandoriApplication}.
+     */
+    public RandoriTarget(CompilerProject project,
+            ITargetSettings targetSettings,
+            ITargetProgressMonitor progressMonitor, CompilerMetrics metrics)
     {
         super(project, targetSettings, progressMonitor);
+        this.metrics = metrics;
     }
 
     @Override
@@ -122,15 +140,24 @@ public class RandoriTarget extends Target implements IRandoriTarget
             compilationUnitSet.addAll(rootedCompilationUnits.getUnits());
 
             // multithreaded parse, ast, scope, definition creation
+            Phase phase = metrics.startPhase("buildAndCollectProblems");
             buildAndCollectProblems(compilationUnitSet, problems);
+            phase.stop();
+
+            // definitions are final from here, index their metadata
+            MetaDataIndex metaDataIndex = new MetaDataIndex();
 
             // !!! end multithreaded parsing
             // all units have been parsed; scopes and definitions have been created
+            phase = metrics
+                    .startPhase("getReachableCompilationUnitsInSWFOrder");
             List<ICompilationUnit> reachableCompilationUnits = project
                     .getReachableCompilationUnitsInSWFOrder(rootedCompilationUnits
                             .getUnits());
+            phase.stop();
 
-            IRandoriApplication application = initializeApplication(reachableCompilationUnits);
+            IRandoriApplication application = initializeApplication(
+                    reachableCompilationUnits, metaDataIndex);
             return application;
         }
         catch (BuildCanceledException bce)
@@ -162,7 +189,8 @@ public class RandoriTarget extends Target implements IRandoriTarget
     }
 
     private IRandoriApplication initializeApplication(
-            List<ICompilationUnit> reachableCompilationUnits)
+            List<ICompilationUnit> reachableCompilationUnits,
+            MetaDataIndex metaDataIndex)
     {
         // we create the main model that will be passed back to the compiler 
         // for eventual generation. For now the Application is acting as the
@@ -171,7 +199,8 @@ public class RandoriTarget extends Target implements IRandoriTarget
         // Note; By passing the target settings here, we allow the Application to
         // configure itself using those settings and out job here is done.
         RandoriApplication application = new RandoriApplication(
-                (FlexProject) project, reachableCompilationUnits, getSettings());
+                (FlexProject) project, reachableCompilationUnits, getSettings(),
+                metrics, metaDataIndex);
 
         return application;
     }
@@ -46,6 +46,8 @@ public class Bundle implements IMutableBundle
 
     private final HashMap<String, IBundleLibrary> libraries;
 
+    private IBundleLibraryLoader loader;
+
     public Bundle(File file)
     {
         this.file = file;
@@ -67,16 +69,48 @@ public class Bundle implements IMutableBundle
         return version;
     }
 
+    /**
+     * Sets the loader of a lazily read bundle, libraries are loaded the first
+     * time they are accessed.
+     * 
+     * @param loader The loader, <code>null</code> if all libraries were
+     * added.
+     */
+    public synchronized void setLoader(IBundleLibraryLoader loader)
+    {
+        this.loader = loader;
+        for (IBundleLibrary library : libraries.values())
+        {
+            if (library instanceof BundleLibrary)
+                ((BundleLibrary) library).setLoader(loader);
+        }
+    }
+
     @Override
-    public Collection<IBundleLibrary> getLibraries()
+    public synchronized Collection<IBundleLibrary> getLibraries()
     {
+        if (loader != null)
+        {
+            for (String name : loader.getLibraryNames())
+            {
+                getLibrary(name);
+            }
+        }
         return libraries.values();
     }
 
     @Override
-    public IBundleLibrary getLibrary(String name)
+    public synchronized IBundleLibrary getLibrary(String name)
     {
-        return libraries.get(name);
+        IBundleLibrary library = libraries.get(name);
+        if (library == null && loader != null
+                && loader.getLibraryNames().contains(name))
+        {
+            library = loader.loadLibrary(name);
+            if (library != null)
+                addLibrary(library);
+        }
+        return library;
     }
 
     @Override
@@ -142,11 +176,26 @@ public class Bundle implements IMutableBundle
         return problems;
     }
 
-    public void addLibrary(IBundleLibrary library)
+    public synchronized void addLibrary(IBundleLibrary library)
     {
+        if (loader != null && library instanceof BundleLibrary)
+            ((BundleLibrary) library).setLoader(loader);
         libraries.put(library.getPath(), library);
     }
 
+    @Override
+    public synchronized IBundleCategory addCategory(String libraryName,
+            IBundleContainerType container, IBundleCategoryType category)
+    {
+        IBundleLibrary library = getLibrary(libraryName);
+        if (library == null)
+        {
+            library = new BundleLibrary(libraryName);
+            addLibrary(library);
+        }
+        return library.addContainer(container).addCategory(category);
+    }
+
     /**
      * Add a file that will be written into {@link IBundle} file during
      * creation.
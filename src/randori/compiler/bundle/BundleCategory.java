@@ -91,4 +91,24 @@ public class BundleCategory implements IBundleCategory
         return entry;
     }
 
+    @Override
+    public IBundleEntry addContent(byte[] content, long lastModified,
+            String relativePath)
+    {
+        String path = BundleUtils.toPath(this, relativePath);
+        BundleEntry entry = new BundleEntry(content, lastModified, path);
+        entries.put(path, entry);
+        return entry;
+    }
+
+    @Override
+    public IBundleEntry addSource(IBundleEntrySource source,
+            String relativePath)
+    {
+        String path = BundleUtils.toPath(this, relativePath);
+        BundleEntry entry = new BundleEntry(source, path);
+        entries.put(path, entry);
+        return entry;
+    }
+
 }
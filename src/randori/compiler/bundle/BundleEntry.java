@@ -19,7 +19,11 @@
 
 package randori.compiler.bundle;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 import randori.compiler.bundle.io.IBundleReader;
 
@@ -31,6 +35,12 @@ public class BundleEntry implements IBundleEntry
 
     private File file;
 
+    private byte[] content;
+
+    private IBundleEntrySource source;
+
+    private long lastModified;
+
     private final String path;
 
     /**
@@ -49,12 +59,70 @@ public class BundleEntry implements IBundleEntry
         this.path = path;
     }
 
+    /**
+     * Creates an entry held in memory.
+     * 
+     * @param content The content, not copied.
+     * @param lastModified The time-stamp of the content.
+     * @param path The path of the entry in the {@link IBundle}.
+     */
+    public BundleEntry(byte[] content, long lastModified, String path)
+    {
+        if (content == null)
+            throw new NullPointerException("content can't be null.");
+        this.content = content;
+        this.lastModified = lastModified;
+        this.path = path;
+    }
+
+    /**
+     * Creates an entry streamed from a source when the bundle is written.
+     * 
+     * @param source The source of the content.
+     * @param path The path of the entry in the {@link IBundle}.
+     */
+    public BundleEntry(IBundleEntrySource source, String path)
+    {
+        if (source == null)
+            throw new NullPointerException("source can't be null.");
+        this.source = source;
+        this.path = path;
+    }
+
     @Override
     public File getFile()
     {
         return file;
     }
 
+    @Override
+    public byte[] getContent()
+    {
+        return content;
+    }
+
+    @Override
+    public long getLastModified()
+    {
+        if (file != null)
+            return file.lastModified();
+        if (source != null)
+            return source.getLastModified();
+        return lastModified;
+    }
+
+    @Override
+    public InputStream createInputStream() throws IOException
+    {
+        if (file != null)
+            return new FileInputStream(file);
+        if (content != null)
+            return new ByteArrayInputStream(content);
+        if (source != null)
+            return source.createInputStream();
+        throw new IOException("Bundle entry " + path + " has no content.");
+    }
+
     @Override
     public String getPath()
     {
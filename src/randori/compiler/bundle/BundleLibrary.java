@@ -44,6 +44,8 @@ public class BundleLibrary implements IBundleLibrary
 
     private IBundleCategory swcCategory;
 
+    private IBundleLibraryLoader loader;
+
     @Override
     public String getName()
     {
@@ -85,20 +87,65 @@ public class BundleLibrary implements IBundleLibrary
         return container;
     }
 
+    /**
+     * Sets the loader of a lazily read library, the SWC models of the
+     * library's <code>swc</code> entries are loaded the first time they are
+     * accessed.
+     * 
+     * @param loader The loader, <code>null</code> if all SWCs were added.
+     */
+    public synchronized void setLoader(IBundleLibraryLoader loader)
+    {
+        this.loader = loader;
+    }
+
     @Override
-    public Collection<ISWC> getSWCS()
+    public synchronized Collection<ISWC> getSWCS()
     {
+        IBundleCategory category = getSWCCategory();
+        if (loader != null && category != null)
+        {
+            for (IBundleEntry entry : category.getEntries())
+            {
+                getSWC(BundleUtils.toSWCName(entry.getPath()));
+            }
+        }
         return swcs.values();
     }
 
     @Override
-    public ISWC getSWC(String name)
+    public synchronized ISWC getSWC(String name)
     {
-        return swcs.get(name);
+        ISWC swc = swcs.get(name);
+        IBundleCategory category = getSWCCategory();
+        if (swc == null && loader != null && category != null)
+        {
+            for (IBundleEntry entry : category.getEntries())
+            {
+                if (!name.equals(BundleUtils.toSWCName(entry.getPath())))
+                    continue;
+
+                swc = loader.loadSWC(this, entry);
+                if (swc != null)
+                    swcs.put(name, swc);
+                break;
+            }
+        }
+        return swc;
+    }
+
+    private IBundleCategory getSWCCategory()
+    {
+        if (swcCategory != null)
+            return swcCategory;
+
+        IBundleContainer container = getContainer(Type.BIN);
+        return container != null ? container
+                .getCategory(IBundleCategory.Type.SWC) : null;
     }
 
     @Override
-    public void addSWC(ISWC swc)
+    public synchronized void addSWC(ISWC swc)
     {
         if (binContainer == null)
             createBinContainer();
@@ -103,6 +103,27 @@ public interface IBundleCategory
 
     IBundleEntry addFile(String relativePath);
 
+    /**
+     * Adds an entry held in memory to this {@link BundleCategory}.
+     * 
+     * @param content The content of the entry, not copied.
+     * @param lastModified The time-stamp of the content.
+     * @param relativePath The path given to the serializer when this entry is
+     * added to the {@link IBundle}.
+     */
+    IBundleEntry addContent(byte[] content, long lastModified,
+            String relativePath);
+
+    /**
+     * Adds an entry that is streamed from it's source when the
+     * {@link IBundle} is written.
+     * 
+     * @param source The source of the entry's content.
+     * @param relativePath The path given to the serializer when this entry is
+     * added to the {@link IBundle}.
+     */
+    IBundleEntry addSource(IBundleEntrySource source, String relativePath);
+
     /**
      * Returns a collection of all entries found on the {@link IBundleCategory}.
      */
@@ -20,6 +20,8 @@
 package randori.compiler.bundle;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * @author Michael Schmalle
@@ -28,10 +30,31 @@ public interface IBundleEntry
 {
     /**
      * Returns the {@link File} instance for the given entry within the
-     * {@link IBundle}.
+     * {@link IBundle}, <code>null</code> when the entry is held in memory or
+     * streamed.
      */
     File getFile();
 
+    /**
+     * Returns the content of an entry held in memory, <code>null</code> when
+     * the entry is backed by a file or a stream.
+     */
+    byte[] getContent();
+
+    /**
+     * Returns the time-stamp of the entry in milliseconds from epoch time.
+     */
+    long getLastModified();
+
+    /**
+     * Returns a new stream of the entry's content, the caller closes it.
+     * 
+     * @throws IOException The entry has no content, entries created by the
+     * {@link randori.compiler.bundle.io.IBundleReader} are read from the
+     * bundle.
+     */
+    InputStream createInputStream() throws IOException;
+
     /**
      * Returns the relative path of the entry within the {@link IBundle}.
      */
@@ -0,0 +1,43 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Supplies the content of an {@link IBundleEntry} that is not backed by a
+ * file, such as output streamed from the compiler.
+ * 
+ * @author Michael Schmalle
+ */
+public interface IBundleEntrySource
+{
+    /**
+     * Returns a new stream of the entry's content, the caller closes it. The
+     * method may be called from a writer thread and more than once.
+     */
+    InputStream createInputStream() throws IOException;
+
+    /**
+     * Returns the time-stamp of the content in milliseconds from epoch time.
+     */
+    long getLastModified();
+}
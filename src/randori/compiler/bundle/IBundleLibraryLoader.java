@@ -0,0 +1,55 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle;
+
+import java.util.Collection;
+
+import org.apache.flex.swc.ISWC;
+
+/**
+ * Materializes the parts of a lazily read {@link IBundle} the first time
+ * they are accessed.
+ * 
+ * @author Michael Schmalle
+ */
+public interface IBundleLibraryLoader
+{
+    /**
+     * The names of the libraries the loader can create.
+     */
+    Collection<String> getLibraryNames();
+
+    /**
+     * Creates a library of the bundle.
+     * 
+     * @param name The name of the {@link IBundleLibrary}.
+     * @return The library or <code>null</code> if it can't be loaded.
+     */
+    IBundleLibrary loadLibrary(String name);
+
+    /**
+     * Creates the model of a library's SWC entry.
+     * 
+     * @param library The {@link IBundleLibrary} holding the SWC.
+     * @param entry The SWC's entry in the <code>swc</code> category.
+     * @return The SWC or <code>null</code> if it can't be loaded.
+     */
+    ISWC loadSWC(IBundleLibrary library, IBundleEntry entry);
+}
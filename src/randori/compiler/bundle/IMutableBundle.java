@@ -9,5 +9,17 @@ public interface IMutableBundle extends IBundle
 {
     void addLibrary(IBundleLibrary library);
 
+    /**
+     * Returns the category of a library, the library, container and category
+     * are created when missing. Entries may then be added to the category from
+     * a file, memory or a stream.
+     * 
+     * @param libraryName The name of the library.
+     * @param container The container type.
+     * @param category The category type.
+     */
+    IBundleCategory addCategory(String libraryName,
+            IBundleContainerType container, IBundleCategoryType category);
+
     void addProblem(ICompilerProblem problem);
 }
@@ -0,0 +1,144 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle.io;
+
+import java.util.HashMap;
+import java.util.zip.Deflater;
+
+import randori.compiler.bundle.IBundleCategory;
+import randori.compiler.bundle.IBundleCategoryType;
+
+/**
+ * The compression levels and worker count a {@link BundleWriter} uses.
+ * <p>
+ * Levels are {@link Deflater} levels, {@link #STORED} writes the entry
+ * uncompressed. By default everything is stored, which lets readers map the
+ * bundle's entries directly.
+ * 
+ * @author Michael Schmalle
+ */
+public class BundleCompression
+{
+    /**
+     * The level of entries written uncompressed.
+     */
+    public static final int STORED = Deflater.NO_COMPRESSION;
+
+    private final HashMap<IBundleCategoryType, Integer> levels = new HashMap<IBundleCategoryType, Integer>();
+
+    private int defaultLevel = STORED;
+
+    private int manifestLevel = STORED;
+
+    private int threads = 1;
+
+    private int bufferSize = 1024 * 1024;
+
+    /**
+     * Returns a compression that deflates source categories and the manifest
+     * on all available processors, SWCs are already compressed and stored.
+     */
+    public static BundleCompression createCompressed()
+    {
+        BundleCompression compression = new BundleCompression();
+        compression.setDefaultLevel(Deflater.DEFAULT_COMPRESSION);
+        compression.setManifestLevel(Deflater.DEFAULT_COMPRESSION);
+        compression.setLevel(IBundleCategory.Type.SWC, STORED);
+        compression.setThreads(Runtime.getRuntime().availableProcessors());
+        return compression;
+    }
+
+    /**
+     * Returns the level of a category's entries.
+     * 
+     * @param type The category type.
+     */
+    public int getLevel(IBundleCategoryType type)
+    {
+        Integer level = levels.get(type);
+        return level != null ? level : defaultLevel;
+    }
+
+    /**
+     * Sets the level of a category's entries.
+     * 
+     * @param type The category type.
+     * @param level The {@link Deflater} level or {@link #STORED}.
+     */
+    public void setLevel(IBundleCategoryType type, int level)
+    {
+        levels.put(type, level);
+    }
+
+    /**
+     * The level of categories without their own level and of files added
+     * outside a category.
+     */
+    public int getDefaultLevel()
+    {
+        return defaultLevel;
+    }
+
+    public void setDefaultLevel(int level)
+    {
+        defaultLevel = level;
+    }
+
+    /**
+     * The level of the bundle's manifest.
+     */
+    public int getManifestLevel()
+    {
+        return manifestLevel;
+    }
+
+    public void setManifestLevel(int level)
+    {
+        manifestLevel = level;
+    }
+
+    /**
+     * The number of threads compressing entries, <code>1</code> compresses
+     * on the writing thread.
+     */
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public void setThreads(int threads)
+    {
+        this.threads = threads;
+    }
+
+    /**
+     * The most bytes of an entry's content held in memory while it is
+     * compressed, larger entries are compressed into a temporary file.
+     */
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize)
+    {
+        this.bufferSize = bufferSize;
+    }
+}
@@ -19,11 +19,10 @@
 
 package randori.compiler.bundle.io;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.ZipFile;
-
-import org.apache.flex.swc.io.SWCReader;
+import java.io.Reader;
 
 import randori.compiler.bundle.IBundle;
 import randori.compiler.bundle.IBundleFileEntry;
@@ -72,9 +71,32 @@ public class BundleFileEntry implements IBundleFileEntry
     @Override
     public InputStream createInputStream() throws IOException
     {
-        ZipFile file = new ZipFile(containingBundlePath);
-        InputStream inputStream = SWCReader.getInputStream(file, path);
-        return inputStream;
+        File bundleFile = new File(containingBundlePath);
+        MappedBundleFile mapped = MappedBundleFile.getInstance(bundleFile);
+        if (mapped != null)
+        {
+            InputStream inputStream = mapped.getInputStream(path);
+            if (inputStream != null)
+                return inputStream;
+        }
+
+        return ZipFilePool.getInstance().getInputStream(bundleFile, path);
+    }
+
+    /**
+     * Returns a reader decoding the entry straight from the mapped bundle.
+     * 
+     * @return The reader or <code>null</code> if the entry is compressed, the
+     * caller then reads through {@link #createInputStream()}.
+     */
+    public Reader createReader()
+    {
+        MappedBundleFile mapped = MappedBundleFile.getInstance(new File(
+                containingBundlePath));
+        if (mapped == null)
+            return null;
+
+        return mapped.getReader(path);
     }
 
 }
@@ -127,6 +127,14 @@ public class BundleFileSpecification implements IBinaryFileSpecification
 
     private Reader createNIOReader() throws IOException
     {
+        if (fileEntry instanceof BundleFileEntry)
+        {
+            // stored entries are decoded from the mapped bundle
+            Reader reader = ((BundleFileEntry) fileEntry).createReader();
+            if (reader != null)
+                return reader;
+        }
+
         InputStream strm = createInputStream();
         BufferedInputStream bufferedStrm;
         if (strm instanceof BufferedInputStream)
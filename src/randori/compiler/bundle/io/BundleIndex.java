@@ -0,0 +1,435 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.bundle.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import randori.compiler.bundle.BundleContainer;
+import randori.compiler.bundle.BundleLibrary;
+import randori.compiler.bundle.IBundle;
+import randori.compiler.bundle.IBundleCategory;
+import randori.compiler.bundle.IBundleContainer;
+import randori.compiler.bundle.IBundleEntry;
+import randori.compiler.bundle.IBundleLibrary;
+import randori.compiler.bundle.IBundleVersion;
+import randori.compiler.bundle.IMutableBundle;
+
+/**
+ * A compact binary form of a bundle's <code>manifest.xml</code>.
+ * <p>
+ * The index is a string table followed by the versions and the library,
+ * container and category tables, every name is a reference into the string
+ * table. Each entry of a category records it's path along with the method,
+ * local header offset, sizes and CRC the entry was written with, an entry
+ * that was not written by a {@link ZipAssembler} has an offset of
+ * <code>-1</code>.
+ * <p>
+ * Each library's tables are prefixed with their length, reading the index
+ * only reads the string table and versions. A library's tables are parsed
+ * the first time the library is created.
+ * <p>
+ * The index is written stored after the manifest, {@link BundleReader}
+ * prefers it over parsing the manifest.
+ * 
+ * @author Michael Schmalle
+ */
+public class BundleIndex
+{
+    private static final int MAGIC = 0x52424C49;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int NULL = -1;
+
+    private final LinkedHashMap<String, byte[]> libraries = new LinkedHashMap<String, byte[]>();
+
+    private final HashSet<String> parsed = new HashSet<String>();
+
+    private final HashMap<String, Entry> entries = new HashMap<String, Entry>();
+
+    private final String[] version = new String[7];
+
+    private String[] strings;
+
+    private BundleIndex()
+    {
+    }
+
+    /**
+     * Returns the names of the indexed libraries.
+     */
+    public Collection<String> getLibraryNames()
+    {
+        return Collections.unmodifiableCollection(libraries.keySet());
+    }
+
+    /**
+     * Returns the indexed entry or <code>null</code>, the tables of libraries
+     * that were not created yet are parsed to find it.
+     * 
+     * @param path The entry's path within the archive.
+     */
+    public synchronized Entry getEntry(String path) throws IOException
+    {
+        Entry entry = entries.get(path);
+        if (entry == null && parsed.size() < libraries.size())
+        {
+            for (String name : libraries.keySet())
+            {
+                if (!parsed.contains(name))
+                    createLibrary(name);
+            }
+            entry = entries.get(path);
+        }
+        return entry;
+    }
+
+    /**
+     * Creates a library from it's tables.
+     * 
+     * @param name The name of the library.
+     * @return A new library or <code>null</code> if the index has no such
+     * library.
+     */
+    public synchronized BundleLibrary createLibrary(String name)
+            throws IOException
+    {
+        final byte[] tables = libraries.get(name);
+        if (tables == null)
+            return null;
+
+        final DataInputStream data = new DataInputStream(
+                new ByteArrayInputStream(tables));
+        final BundleLibrary library = new BundleLibrary(name);
+        final int containerCount = data.readInt();
+        for (int j = 0; j < containerCount; j++)
+        {
+            final String containerType = string(data.readInt());
+            final BundleContainer container = (BundleContainer) library
+                    .addContainer(IBundleContainer.Type.toType(containerType));
+            final int categoryCount = data.readInt();
+            for (int k = 0; k < categoryCount; k++)
+            {
+                final String categoryType = string(data.readInt());
+                final IBundleCategory category = container
+                        .addCategory(IBundleCategory.Type.toType(categoryType));
+                final int entryCount = data.readInt();
+                for (int l = 0; l < entryCount; l++)
+                {
+                    final String path = string(data.readInt());
+                    category.addFile(path);
+                    entries.put(path, new Entry(path, data.readShort(), data
+                            .readLong(), data.readLong(), data.readLong(), data
+                            .readInt() & 0xFFFFFFFFL));
+                }
+            }
+        }
+        parsed.add(name);
+        return library;
+    }
+
+    /**
+     * Sets the indexed versions on a bundle's version.
+     * 
+     * @param target The version to set.
+     */
+    public void populateVersion(IBundleVersion target)
+    {
+        target.setBundleVersion(version[0]);
+        target.setRandoriVersion(version[1]);
+        target.setRandoriBuild(version[2]);
+        target.setRandoriMinSupportedVersion(version[3]);
+        target.setCompilerName(version[4]);
+        target.setCompilerVersion(version[5]);
+        target.setCompilerBuild(version[6]);
+    }
+
+    /**
+     * Adds the indexed versions and all libraries to a bundle.
+     * 
+     * @param bundle The bundle to populate.
+     */
+    public void populate(IMutableBundle bundle) throws IOException
+    {
+        populateVersion(bundle.getVersion());
+        for (String name : libraries.keySet())
+        {
+            bundle.addLibrary(createLibrary(name));
+        }
+    }
+
+    /**
+     * Serializes the index of a bundle.
+     * 
+     * @param bundle The bundle being written.
+     * @param written The archive's entries by path.
+     * @return The index's bytes.
+     */
+    public static byte[] write(IBundle bundle,
+            Map<String, ZipAssembler.Entry> written) throws IOException
+    {
+        final StringTable strings = new StringTable();
+        final ByteArrayOutputStream tables = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(tables);
+
+        final IBundleVersion version = bundle.getVersion();
+        if (version != null)
+        {
+            out.writeInt(strings.get(version.getBundleVersion()));
+            out.writeInt(strings.get(version.getRandoriVersion()));
+            out.writeInt(strings.get(version.getRandoriBuild()));
+            out.writeInt(strings.get(version.getRandoriMinSupportedVersion()));
+            out.writeInt(strings.get(version.getCompilerName()));
+            out.writeInt(strings.get(version.getCompilerVersion()));
+            out.writeInt(strings.get(version.getCompilerBuild()));
+        }
+        else
+        {
+            for (int i = 0; i < 7; i++)
+                out.writeInt(NULL);
+        }
+
+        out.writeInt(bundle.getLibraries().size());
+        for (IBundleLibrary library : bundle.getLibraries())
+        {
+            out.writeInt(strings.get(library.getName()));
+
+            final ByteArrayOutputStream section = new ByteArrayOutputStream();
+            final DataOutputStream sectionOut = new DataOutputStream(section);
+            writeLibrary(sectionOut, library, strings, written);
+            sectionOut.flush();
+
+            out.writeInt(section.size());
+            section.writeTo(out);
+        }
+        out.flush();
+
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(
+                tables.size() + strings.size() * 32);
+        final DataOutputStream header = new DataOutputStream(result);
+        header.writeInt(MAGIC);
+        header.writeInt(FORMAT_VERSION);
+        header.writeInt(strings.size());
+        for (String value : strings.values)
+        {
+            header.writeUTF(value);
+        }
+        tables.writeTo(header);
+        header.flush();
+        return result.toByteArray();
+    }
+
+    private static void writeLibrary(DataOutputStream out,
+            IBundleLibrary library, StringTable strings,
+            Map<String, ZipAssembler.Entry> written) throws IOException
+    {
+        out.writeInt(library.getContainers().size());
+        for (IBundleContainer container : library.getContainers())
+        {
+            out.writeInt(strings.get(container.getType().getValue()));
+            out.writeInt(container.getCategories().size());
+            for (IBundleCategory category : container.getCategories())
+            {
+                out.writeInt(strings.get(category.getType().getValue()));
+                out.writeInt(category.getEntries().size());
+                for (IBundleEntry element : category.getEntries())
+                {
+                    out.writeInt(strings.get(element.getPath()));
+                    writeEntry(out, written.get(element.getPath()));
+                }
+            }
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out,
+            ZipAssembler.Entry entry) throws IOException
+    {
+        if (entry == null)
+        {
+            out.writeShort(NULL);
+            out.writeLong(NULL);
+            out.writeLong(NULL);
+            out.writeLong(NULL);
+            out.writeInt(0);
+            return;
+        }
+
+        out.writeShort(entry.getMethod());
+        out.writeLong(entry.getLocalHeaderOffset());
+        out.writeLong(entry.getCompressedSize());
+        out.writeLong(entry.getSize());
+        out.writeInt((int) entry.getCrc());
+    }
+
+    /**
+     * Reads an index, the libraries' tables are kept unparsed.
+     * 
+     * @param in The index's stream, the stream is not closed.
+     * @return The index.
+     * @throws IOException The stream is not an index of a supported format.
+     */
+    public static BundleIndex read(InputStream in) throws IOException
+    {
+        final DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a bundle index");
+        final int format = data.readInt();
+        if (format != FORMAT_VERSION)
+            throw new IOException("Unsupported bundle index version " + format);
+
+        final BundleIndex index = new BundleIndex();
+        index.strings = new String[data.readInt()];
+        for (int i = 0; i < index.strings.length; i++)
+        {
+            index.strings[i] = data.readUTF();
+        }
+
+        for (int i = 0; i < index.version.length; i++)
+        {
+            index.version[i] = index.string(data.readInt());
+        }
+
+        final int libraryCount = data.readInt();
+        for (int i = 0; i < libraryCount; i++)
+        {
+            final String name = index.string(data.readInt());
+            final byte[] tables = new byte[data.readInt()];
+            data.readFully(tables);
+            index.libraries.put(name, tables);
+        }
+        return index;
+    }
+
+    private String string(int reference) throws IOException
+    {
+        if (reference == NULL)
+            return null;
+        if (reference < 0 || reference >= strings.length)
+            throw new IOException("Invalid bundle index string " + reference);
+        return strings[reference];
+    }
+
+    private static class StringTable
+    {
+        private final HashMap<String, Integer> references = new HashMap<String, Integer>();
+
+        private final List<String> values = new ArrayList<String>();
+
+        int get(String value)
+        {
+            if (value == null)
+                return NULL;
+
+            Integer reference = references.get(value);
+            if (reference == null)
+            {
+                reference = values.size();
+                references.put(value, reference);
+                values.add(value);
+            }
+            return reference;
+        }
+
+        int size()
+        {
+            return values.size();
+        }
+    }
+
+    /**
+     * An indexed archive entry.
+     */
+    public static class Entry
+    {
+        private final String path;
+
+        private final int method;
+
+        private final long localHeaderOffset;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long crc;
+
+        Entry(String path, int method, long localHeaderOffset,
+                long compressedSize, long size, long crc)
+        {
+            this.path = path;
+            this.method = method;
+            this.localHeaderOffset = localHeaderOffset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.crc = crc;
+        }
+
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * Returns the zip method or <code>-1</code> when not recorded.
+         */
+        public int getMethod()
+        {
+            return method;
+        }
+
+        /**
+         * Returns the offset of the entry's local header or <code>-1</code>
+         * when not recorded.
+         */
+        public long getLocalHeaderOffset()
+        {
+            return localHeaderOffset;
+        }
+
+        public long getCompressedSize()
+        {
+            return compressedSize;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        public long getCrc()
+        {
+            return crc;
+        }
+    }
+}
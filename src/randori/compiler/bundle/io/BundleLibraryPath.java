@@ -0,0 +1,214 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.bundle.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.flex.compiler.problems.FileInLibraryIOProblem;
+import org.apache.flex.compiler.problems.ICompilerProblem;
+
+import randori.compiler.bundle.IBundle;
+import randori.compiler.bundle.IBundleCategory;
+import randori.compiler.bundle.IBundleCategoryType;
+import randori.compiler.bundle.IBundleContainer;
+import randori.compiler.bundle.IBundleEntry;
+import randori.compiler.bundle.IBundleLibrary;
+import randori.compiler.internal.utils.FileUtils;
+
+/**
+ * The bundles a compile uses in place of unpacked SDK directories.
+ * <p>
+ * The bundles are read lazily. Their <code>swc</code> entries are put on the
+ * library path from the extraction cache of a {@link BundleLoader}, since
+ * the project loads SWCs from files. The JavaScript entries are streamed
+ * straight from the bundle to the output through a
+ * {@link BundleFileSpecification}.
+ * 
+ * @author Michael Schmalle
+ */
+public class BundleLibraryPath
+{
+    private static final String SLASH = "/";
+
+    private final List<BundleReader> readers = new ArrayList<BundleReader>();
+
+    private final List<ICompilerProblem> problems = new ArrayList<ICompilerProblem>();
+
+    /**
+     * Reads the bundles.
+     * 
+     * @param paths The paths of the <code>.rbl</code> files.
+     * @param cacheDirectory The directory SWCs are extracted to.
+     */
+    public BundleLibraryPath(List<String> paths, File cacheDirectory)
+    {
+        for (String path : paths)
+        {
+            BundleReader reader = new BundleReader(path, true, cacheDirectory);
+            problems.addAll(reader.getBundle().getProblems());
+            if (reader.getLoader() != null)
+                readers.add(reader);
+        }
+    }
+
+    /**
+     * Returns the bundles that could be read.
+     */
+    public List<IBundle> getBundles()
+    {
+        List<IBundle> result = new ArrayList<IBundle>();
+        for (BundleReader reader : readers)
+        {
+            result.add(reader.getBundle());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the problems reading and extracting the bundles.
+     */
+    public Collection<ICompilerProblem> getProblems()
+    {
+        return problems;
+    }
+
+    /**
+     * Returns the files of the SWCs of every bundle's libraries, SWCs that are
+     * not in the cache yet are extracted.
+     */
+    public List<String> getSWCPaths()
+    {
+        List<String> result = new ArrayList<String>();
+        for (BundleReader reader : readers)
+        {
+            for (IBundleLibrary library : reader.getBundle().getLibraries())
+            {
+                IBundleContainer container = library
+                        .getContainer(IBundleContainer.Type.BIN);
+                IBundleCategory category = container != null ? container
+                        .getCategory(IBundleCategory.Type.SWC) : null;
+                if (category == null)
+                    continue;
+
+                for (IBundleEntry entry : category.getEntries())
+                {
+                    try
+                    {
+                        result.add(reader.getLoader()
+                                .extract(entry.getPath()).getAbsolutePath());
+                    }
+                    catch (IOException e)
+                    {
+                        problems.add(new FileInLibraryIOProblem(entry
+                                .getPath(), reader.getFile().getAbsolutePath(),
+                                e.getLocalizedMessage()));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the JavaScript entries of a category of every bundle's libraries
+     * to a directory.
+     * <p>
+     * A file is rewritten only when the bundle changed since it was last
+     * written.
+     * 
+     * @param type The category of the <code>js</code> containers to write.
+     * @param directory The output directory.
+     */
+    public void writeJavaScript(IBundleCategoryType type, File directory)
+            throws IOException
+    {
+        for (BundleReader reader : readers)
+        {
+            File bundleFile = reader.getFile();
+            for (IBundleLibrary library : reader.getBundle().getLibraries())
+            {
+                IBundleContainer container = library
+                        .getContainer(IBundleContainer.Type.JS);
+                IBundleCategory category = container != null ? container
+                        .getCategory(type) : null;
+                if (category == null)
+                    continue;
+
+                for (IBundleEntry entry : category.getEntries())
+                {
+                    String path = entry.getPath();
+                    File file = new File(directory, path.substring(path
+                            .lastIndexOf(SLASH) + 1));
+                    // file systems keep modification times in seconds
+                    if (file.lastModified() / 1000 == bundleFile
+                            .lastModified() / 1000)
+                        continue;
+
+                    write(new BundleFileSpecification(path,
+                            new BundleFileEntry(bundleFile.getAbsolutePath(),
+                                    path, bundleFile.lastModified())), file);
+                }
+            }
+        }
+    }
+
+    private static void write(BundleFileSpecification specification,
+            File file) throws IOException
+    {
+        file.getParentFile().mkdirs();
+        File temp = File.createTempFile(file.getName(), ".tmp",
+                file.getParentFile());
+        try
+        {
+            InputStream in = specification.createInputStream();
+            try
+            {
+                OutputStream out = new FileOutputStream(temp);
+                try
+                {
+                    IOUtils.copy(in, out);
+                }
+                finally
+                {
+                    out.close();
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+            temp.setLastModified(specification.getLastModified());
+            FileUtils.moveAtomically(temp, file);
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+}
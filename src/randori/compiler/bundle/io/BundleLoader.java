@@ -0,0 +1,233 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.bundle.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.flex.compiler.problems.FileInLibraryIOProblem;
+import org.apache.flex.swc.ISWC;
+import org.apache.flex.swc.io.SWCReader;
+
+import randori.compiler.bundle.IBundleEntry;
+import randori.compiler.bundle.IBundleLibrary;
+import randori.compiler.bundle.IBundleLibraryLoader;
+import randori.compiler.bundle.IMutableBundle;
+import randori.compiler.bundle.io.ZipFilePool.Handle;
+import randori.compiler.internal.utils.FileUtils;
+
+/**
+ * Loads the libraries of a bundle from it's {@link BundleIndex} and the SWC
+ * models of it's libraries from an extraction cache.
+ * <p>
+ * A SWC is extracted the first time it's model is accessed, to a directory of
+ * the cache named after the entry's CRC. Later reads of the same SWC,
+ * from any bundle, use the extracted file without opening the bundle once
+ * the file's CRC is verified, a file that does not match is extracted again.
+ * 
+ * @author Michael Schmalle
+ */
+public class BundleLoader implements IBundleLibraryLoader
+{
+    private static final String SLASH = "/";
+
+    private final IMutableBundle bundle;
+
+    private final BundleIndex index;
+
+    private final File cacheDirectory;
+
+    /**
+     * Creates a loader.
+     * 
+     * @param bundle The bundle to load into.
+     * @param index The bundle's index, <code>null</code> when the libraries
+     * were read from the manifest.
+     * @param cacheDirectory The directory SWCs are extracted to.
+     */
+    public BundleLoader(IMutableBundle bundle, BundleIndex index,
+            File cacheDirectory)
+    {
+        this.bundle = bundle;
+        this.index = index;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns the default extraction cache in the user's home directory, a
+     * shared temp directory would let other users plant SWCs.
+     */
+    public static File getDefaultCacheDirectory()
+    {
+        return new File(new File(System.getProperty("user.home"), ".randori"),
+                "bundles");
+    }
+
+    @Override
+    public Collection<String> getLibraryNames()
+    {
+        if (index == null)
+            return Collections.emptyList();
+        return index.getLibraryNames();
+    }
+
+    @Override
+    public IBundleLibrary loadLibrary(String name)
+    {
+        if (index == null)
+            return null;
+
+        try
+        {
+            return index.createLibrary(name);
+        }
+        catch (IOException e)
+        {
+            bundle.addProblem(new FileInLibraryIOProblem(name, getBundlePath(),
+                    e.getLocalizedMessage()));
+            return null;
+        }
+    }
+
+    @Override
+    public ISWC loadSWC(IBundleLibrary library, IBundleEntry entry)
+    {
+        try
+        {
+            File file = extract(entry.getPath());
+            return new SWCReader(file.getAbsolutePath()).getSWC();
+        }
+        catch (IOException e)
+        {
+            bundle.addProblem(new FileInLibraryIOProblem(entry.getPath(),
+                    getBundlePath(), e.getLocalizedMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Returns the extracted file of a bundle entry, the entry is extracted
+     * when the cache does not hold it yet.
+     * 
+     * @param path The entry's path within the archive.
+     * @throws FileNotFoundException The archive has no such entry.
+     */
+    public File extract(String path) throws IOException
+    {
+        long crc;
+        long size;
+
+        BundleIndex.Entry indexed = index != null ? index.getEntry(path) : null;
+        if (indexed != null && indexed.getMethod() != -1)
+        {
+            crc = indexed.getCrc();
+            size = indexed.getSize();
+        }
+        else
+        {
+            Handle handle = ZipFilePool.getInstance().acquire(
+                    bundle.getBundleFile());
+            try
+            {
+                ZipEntry zipEntry = handle.getEntry(path);
+                if (zipEntry == null)
+                    throw new FileNotFoundException(path);
+                crc = zipEntry.getCrc();
+                size = zipEntry.getSize();
+            }
+            finally
+            {
+                handle.release();
+            }
+        }
+
+        File directory = new File(cacheDirectory, Long.toHexString(crc));
+        File file = new File(directory, path.substring(path
+                .lastIndexOf(SLASH) + 1));
+        if (file.isFile() && file.length() == size && crc(file) == crc)
+            return file;
+
+        directory.mkdirs();
+        File temp = File.createTempFile(file.getName(), ".tmp", directory);
+        try
+        {
+            InputStream in = ZipFilePool.getInstance().getInputStream(
+                    bundle.getBundleFile(), path);
+            try
+            {
+                OutputStream out = new FileOutputStream(temp);
+                try
+                {
+                    IOUtils.copy(in, out);
+                }
+                finally
+                {
+                    out.close();
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+            FileUtils.moveAtomically(temp, file);
+        }
+        finally
+        {
+            temp.delete();
+        }
+        return file;
+    }
+
+    private static long crc(File file) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                crc.update(buffer, 0, read);
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return crc.getValue();
+    }
+
+    private String getBundlePath()
+    {
+        return bundle.getBundleFile().getAbsolutePath();
+    }
+}
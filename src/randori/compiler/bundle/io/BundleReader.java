@@ -4,7 +4,6 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Enumeration;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -14,19 +13,42 @@ import org.apache.flex.compiler.problems.LibraryNotFoundProblem;
 
 import randori.compiler.bundle.Bundle;
 import randori.compiler.bundle.IBundle;
+import randori.compiler.bundle.io.ZipFilePool.Handle;
 
 public class BundleReader implements IBundleReader
 {
 
     private static final String MANIFEST_XML = "manifest.xml";
 
+    private static final String MANIFEST_INDEX = "manifest.idx";
+
     private File bundleFile;
 
     private Bundle bundle;
 
     private StAXManifestReader catalogReader;
 
+    private BundleIndex index;
+
+    private BundleLoader loader;
+
     public BundleReader(String filename)
+    {
+        this(filename, false, BundleLoader.getDefaultCacheDirectory());
+    }
+
+    /**
+     * Reads a bundle.
+     * <p>
+     * SWC models are always loaded the first time they are accessed, from an
+     * extraction cache. A lazy read of a bundle with a {@link BundleIndex}
+     * also creates each library the first time it's accessed.
+     * 
+     * @param filename The bundle's path.
+     * @param lazy Whether libraries are created when first accessed.
+     * @param cacheDirectory The directory SWCs are extracted to.
+     */
+    public BundleReader(String filename, boolean lazy, File cacheDirectory)
     {
         this.bundleFile = new File(filename);
         this.bundle = new Bundle(bundleFile);
@@ -38,15 +60,40 @@ public class BundleReader implements IBundleReader
             return;
         }
 
-        ZipFile zipFile = null;
+        index = readIndex();
+        if (index != null)
+        {
+            if (lazy)
+            {
+                index.populateVersion(bundle.getVersion());
+            }
+            else
+            {
+                try
+                {
+                    index.populate(bundle);
+                }
+                catch (IOException e)
+                {
+                    bundle.addProblem(new FileInLibraryIOProblem(
+                            MANIFEST_INDEX, bundleFile.getAbsolutePath(), e
+                                    .getLocalizedMessage()));
+                }
+            }
+            loader = new BundleLoader(bundle, index, cacheDirectory);
+            bundle.setLoader(loader);
+            return;
+        }
+
+        Handle handle = null;
         catalogReader = null;
         try
         {
             try
             {
-                zipFile = new ZipFile(bundleFile, ZipFile.OPEN_READ);
-                final InputStream catalogInputStream = getInputStream(zipFile,
-                        MANIFEST_XML);
+                handle = ZipFilePool.getInstance().acquire(bundleFile);
+                final InputStream catalogInputStream = handle
+                        .getInputStream(MANIFEST_XML);
                 if (catalogInputStream == null)
                 {
                     bundle.addProblem(new FileInLibraryNotFoundProblem(
@@ -73,14 +120,59 @@ public class BundleReader implements IBundleReader
                 if (catalogReader != null)
                     catalogReader.close();
 
-                if (zipFile != null)
-                    zipFile.close();
+                if (handle != null)
+                    handle.release();
             }
             catch (Exception e)
             {
                 // ignore
             }
         }
+
+        loader = new BundleLoader(bundle, null, cacheDirectory);
+        bundle.setLoader(loader);
+    }
+
+    /**
+     * Reads the binary index from the mapped bundle, the manifest is parsed
+     * when the bundle has no index or it can't be read.
+     */
+    private BundleIndex readIndex()
+    {
+        MappedBundleFile mapped = MappedBundleFile.getInstance(bundleFile);
+        if (mapped == null)
+            return null;
+
+        InputStream in = mapped.getInputStream(MANIFEST_INDEX);
+        if (in == null)
+            return null;
+
+        try
+        {
+            return BundleIndex.read(in);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the bundle's binary index or <code>null</code> when the bundle
+     * was read from it's manifest.
+     */
+    public BundleIndex getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Returns the loader of the bundle's libraries and SWCs or
+     * <code>null</code> when the bundle could not be read.
+     */
+    public BundleLoader getLoader()
+    {
+        return loader;
     }
 
     @Override
@@ -95,21 +187,16 @@ public class BundleReader implements IBundleReader
         return bundle;
     }
 
+    @Override
+    public InputStream getInputStream(String path) throws IOException
+    {
+        return ZipFilePool.getInstance().getInputStream(bundleFile, path);
+    }
+
     public static InputStream getInputStream(ZipFile zipFile, String filename)
             throws IOException
     {
-        ZipEntry zipEntry = null;
-        for (final Enumeration<? extends ZipEntry> entryEnum = zipFile
-                .entries(); entryEnum.hasMoreElements();)
-        {
-            final ZipEntry entry = entryEnum.nextElement();
-            if (entry.getName().equals(filename))
-            {
-                zipEntry = entry;
-                break;
-            }
-        }
-
+        ZipEntry zipEntry = zipFile.getEntry(filename);
         if (zipEntry == null)
             return null;
         else
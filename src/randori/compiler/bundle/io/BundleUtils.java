@@ -49,4 +49,14 @@ public class BundleUtils
     {
         return swc.getSWCFile().getName().replace(DOT_SWC, "");
     }
+
+    /**
+     * Returns the name of the SWC of an entry path in a <code>swc</code>
+     * category.
+     */
+    public static String toSWCName(String path)
+    {
+        String name = path.substring(path.lastIndexOf(SLASH) + 1);
+        return name.replace(DOT_SWC, "");
+    }
 }
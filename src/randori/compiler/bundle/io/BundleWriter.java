@@ -20,17 +20,21 @@
 package randori.compiler.bundle.io;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.util.zip.Deflater;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.stream.FactoryConfigurationError;
 import javax.xml.stream.XMLStreamException;
@@ -43,47 +47,126 @@ import randori.compiler.bundle.IBundleContainer;
 import randori.compiler.bundle.IBundleEntry;
 import randori.compiler.bundle.IBundleFileEntry;
 import randori.compiler.bundle.IBundleLibrary;
+import randori.compiler.internal.utils.FileUtils;
 
 /**
+ * Writes a {@link IBundle}, a bundle written to a path is written to a
+ * temporary file next to it and moved over the previous bundle once
+ * complete, readers of the previous bundle keep their mapping.
+ * 
  * @author Michael Schmalle
  */
 public class BundleWriter extends BundleWriterBase
 {
-    private final ZipOutputStream zipOutputStream;
+    private final OutputStream outputStream;
+
+    private final File outputFile;
+
+    private final File tempFile;
+
+    private final ZipAssembler assembler;
+
+    private final BundleCompression compression;
+
+    private ExecutorService executor;
+
+    private final LinkedList<Future<ZipAssembler.Entry>> pending = new LinkedList<Future<ZipAssembler.Entry>>();
+
+    private final LinkedHashMap<String, ZipAssembler.Entry> written = new LinkedHashMap<String, ZipAssembler.Entry>();
+
+    private boolean finished;
+
+    /**
+     * Create a {@link IBundle} with all entries stored.
+     * 
+     * @param fileName path to write the file to.
+     */
+    public BundleWriter(final String fileName) throws IOException
+    {
+        this(fileName, new BundleCompression());
+    }
 
     /**
      * Create a {@link IBundle}.
      * 
      * @param fileName path to write the file to.
+     * @param compression The levels of the bundle's entries.
      */
-    public BundleWriter(final String fileName) throws FileNotFoundException
+    public BundleWriter(final String fileName,
+            final BundleCompression compression) throws IOException
+    {
+        this(new File(fileName), createTempFile(new File(fileName)),
+                compression);
+    }
+
+    /**
+     * Create a {@link IBundle} on a stream, the stream is closed when the
+     * bundle is written.
+     * 
+     * @param outputStream The stream to write the bundle to.
+     * @param compression The levels of the bundle's entries.
+     */
+    public BundleWriter(final OutputStream outputStream,
+            final BundleCompression compression)
+    {
+        this(outputStream, null, null, compression);
+    }
+
+    private BundleWriter(final File outputFile, final File tempFile,
+            final BundleCompression compression) throws IOException
+    {
+        this(new BufferedOutputStream(new FileOutputStream(tempFile)),
+                outputFile, tempFile, compression);
+    }
+
+    private BundleWriter(final OutputStream outputStream,
+            final File outputFile, final File tempFile,
+            final BundleCompression compression)
+    {
+        this.compression = compression;
+        this.outputStream = outputStream;
+        this.outputFile = outputFile;
+        this.tempFile = tempFile;
+        assembler = new ZipAssembler(outputStream);
+    }
+
+    private static File createTempFile(final File outputFile)
+            throws IOException
     {
-        // Ensure that the directory for the SWC exists.
-        File outputFile = new File(fileName);
-        File outputDirectory = new File(outputFile.getAbsoluteFile()
-                .getParent());
+        // Ensure that the directory for the bundle exists.
+        File outputDirectory = outputFile.getAbsoluteFile().getParentFile();
         outputDirectory.mkdirs();
 
-        zipOutputStream = new ZipOutputStream(new BufferedOutputStream(
-                new FileOutputStream(fileName)));
-        zipOutputStream.setLevel(Deflater.NO_COMPRESSION);
+        // in the same directory so it can be moved over the bundle
+        return File.createTempFile(outputFile.getName(), ".tmp",
+                outputDirectory);
     }
 
     @Override
     void prepare(IBundle bundle) throws IOException
     {
-        // TODO Auto-generated method stub
-
+        if (compression.getThreads() > 1)
+            executor = Executors.newFixedThreadPool(compression.getThreads());
     }
 
     @Override
     void writeManifest(IBundle bundle) throws IOException
     {
-        zipOutputStream.putNextEntry(new ZipEntry(MANIFEST_XML));
-        final Writer writer = new OutputStreamWriter(zipOutputStream);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Writer writer = new OutputStreamWriter(out);
         writeManifestXML(bundle, writer);
         writer.flush();
-        zipOutputStream.closeEntry();
+        writeContent(MANIFEST_XML, out.toByteArray(),
+                compression.getManifestLevel(), System.currentTimeMillis());
+    }
+
+    @Override
+    void writeIndex(IBundle bundle) throws IOException
+    {
+        drain();
+        // stored so readers can map it
+        add(ZipAssembler.store(MANIFEST_INDEX,
+                BundleIndex.write(bundle, written), System.currentTimeMillis()));
     }
 
     @Override
@@ -93,38 +176,216 @@ public class BundleWriter extends BundleWriterBase
         {
             for (IBundleCategory entry : container.getCategories())
             {
+                int level = compression.getLevel(entry.getType());
                 for (IBundleEntry element : entry.getEntries())
                 {
-                    writeFile(element.getFile(), element.getPath());
+                    writeEntry(element, level);
                 }
             }
         }
     }
 
-    void writeFile(File file, String path) throws IOException
+    /**
+     * Writes a file, memory or stream backed entry, content held in memory is
+     * compressed without a copy, streamed content is buffered up to the
+     * compression's buffer size.
+     */
+    void writeEntry(final IBundleEntry entry, final int level)
+            throws IOException
     {
-        zipOutputStream.putNextEntry(new ZipEntry(path));
-        final InputStream fileInputStream = new FileInputStream(file);
-        IOUtils.copy(fileInputStream, zipOutputStream);
-        fileInputStream.close();
-        zipOutputStream.closeEntry();
+        final byte[] content = entry.getContent();
+        if (content != null)
+        {
+            writeContent(entry.getPath(), content, level,
+                    entry.getLastModified());
+            return;
+        }
+
+        submit(new Callable<ZipAssembler.Entry>() {
+            @Override
+            public ZipAssembler.Entry call() throws Exception
+            {
+                final InputStream inputStream = entry.createInputStream();
+                try
+                {
+                    return ZipAssembler.compress(entry.getPath(), inputStream,
+                            level, entry.getLastModified(),
+                            compression.getBufferSize());
+                }
+                finally
+                {
+                    inputStream.close();
+                }
+            }
+        });
     }
 
     @Override
-    void writeFile(IBundleFileEntry entry) throws IOException
+    void writeFile(final IBundleFileEntry entry) throws IOException
     {
-        zipOutputStream.putNextEntry(new ZipEntry(entry.getPath()));
-        final InputStream fileInputStream = entry.createInputStream();
-        IOUtils.copy(fileInputStream, zipOutputStream);
-        fileInputStream.close();
-        zipOutputStream.closeEntry();
+        final int level = compression.getDefaultLevel();
+        submit(new Callable<ZipAssembler.Entry>() {
+            @Override
+            public ZipAssembler.Entry call() throws Exception
+            {
+                final InputStream inputStream = entry.createInputStream();
+                try
+                {
+                    return ZipAssembler.compress(entry.getPath(), inputStream,
+                            level, entry.getLastModified(),
+                            compression.getBufferSize());
+                }
+                finally
+                {
+                    inputStream.close();
+                }
+            }
+        });
+    }
+
+    private void writeContent(final String path, final byte[] content,
+            final int level, final long time) throws IOException
+    {
+        submit(new Callable<ZipAssembler.Entry>() {
+            @Override
+            public ZipAssembler.Entry call() throws Exception
+            {
+                return ZipAssembler.compress(path, content, level, time);
+            }
+        });
+    }
+
+    /**
+     * Compresses the entry on the worker pool, entries are assembled in the
+     * order they are submitted with at most two per worker in flight.
+     */
+    private void submit(Callable<ZipAssembler.Entry> task) throws IOException
+    {
+        if (executor == null)
+        {
+            add(call(task));
+            return;
+        }
+
+        pending.add(executor.submit(task));
+        while (pending.size() > compression.getThreads() * 2)
+        {
+            add(get(pending.removeFirst()));
+        }
+    }
+
+    private void drain() throws IOException
+    {
+        while (!pending.isEmpty())
+        {
+            add(get(pending.removeFirst()));
+        }
+    }
+
+    private void add(ZipAssembler.Entry entry) throws IOException
+    {
+        assembler.add(entry);
+        written.put(entry.getName(), entry);
     }
 
     @Override
     void finish(IBundle bundle) throws IOException
     {
-        zipOutputStream.flush();
-        zipOutputStream.close();
+        drain();
+        assembler.finish();
+        outputStream.close();
+
+        if (tempFile != null)
+        {
+            // drop the mapping of the bundle being replaced
+            MappedBundleFile.release(outputFile);
+            FileUtils.moveAtomically(tempFile, outputFile);
+        }
+        finished = true;
+    }
+
+    @Override
+    void close()
+    {
+        if (executor != null)
+            executor.shutdown();
+
+        // entries compressed but never added may hold temporary files, the
+        // at most two per worker still in flight are waited for
+        while (!pending.isEmpty())
+        {
+            release(pending.removeFirst());
+        }
+
+        if (!finished)
+        {
+            IOUtils.closeQuietly(outputStream);
+            // don't leave a partial bundle behind, the previous one is kept
+            if (tempFile != null)
+                tempFile.delete();
+        }
+    }
+
+    private static void release(Future<ZipAssembler.Entry> future)
+    {
+        try
+        {
+            future.get().release();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            // the entry failed, there is nothing to release
+        }
+    }
+
+    private static ZipAssembler.Entry call(Callable<ZipAssembler.Entry> task)
+            throws IOException
+    {
+        try
+        {
+            return task.call();
+        }
+        catch (IOException e)
+        {
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+    private static ZipAssembler.Entry get(Future<ZipAssembler.Entry> future)
+            throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException(cause);
+        }
     }
 
     /**
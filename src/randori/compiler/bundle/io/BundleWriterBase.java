@@ -32,6 +32,8 @@ public abstract class BundleWriterBase implements IBundleWriter
 {
     protected static final String MANIFEST_XML = "manifest.xml";
 
+    protected static final String MANIFEST_INDEX = "manifest.idx";
+
     protected BundleWriterBase()
     {
     }
@@ -42,23 +44,33 @@ public abstract class BundleWriterBase implements IBundleWriter
         if (bundle == null)
             throw new NullPointerException("IBundle model can't be null.");
 
-        prepare(bundle);
-
-        for (final IBundleLibrary library : bundle.getLibraries())
+        try
         {
-            writeLibrary(library);
-        }
+            prepare(bundle);
+
+            for (final IBundleLibrary library : bundle.getLibraries())
+            {
+                writeLibrary(library);
+            }
 
-        // Write the catalog after the library has been written
-        // in case the library added a digest.
-        writeManifest(bundle);
+            // Write the catalog after the library has been written
+            // in case the library added a digest.
+            writeManifest(bundle);
 
-        //        for (final IBundleFileEntry entry : bundle.getFiles().values())
-        //        {
-        //            writeFile(entry);
-        //        }
+            // The index records the entries written before it.
+            writeIndex(bundle);
 
-        finish(bundle);
+            //        for (final IBundleFileEntry entry : bundle.getFiles().values())
+            //        {
+            //            writeFile(entry);
+            //        }
+
+            finish(bundle);
+        }
+        finally
+        {
+            close();
+        }
     }
 
     /**
@@ -75,6 +87,14 @@ public abstract class BundleWriterBase implements IBundleWriter
      */
     abstract void writeManifest(IBundle bundle) throws IOException;
 
+    /**
+     * Write the binary "manifest.idx" {@link BundleIndex} to the target
+     * {@link IBundle}.
+     * 
+     * @param bundle {@link IBundle} model.
+     */
+    abstract void writeIndex(IBundle bundle) throws IOException;
+
     /**
      * Add a library to the target {@link IBundle}.
      * 
@@ -97,4 +117,10 @@ public abstract class BundleWriterBase implements IBundleWriter
      */
     abstract void finish(IBundle bundle) throws IOException;
 
+    /**
+     * Releases the writer's resources, called after {@link #finish(IBundle)}
+     * and when writing the {@link IBundle} failed.
+     */
+    abstract void close();
+
 }
@@ -20,6 +20,9 @@
 package randori.compiler.bundle.io;
 
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 
 import randori.compiler.bundle.IBundle;
 
@@ -43,4 +46,14 @@ public interface IBundleReader
      * @return {@code IBundle} object
      */
     IBundle getBundle();
+
+    /**
+     * Opens a stream to an entry of the {@link IBundle} archive, the stream
+     * must be closed.
+     * 
+     * @param path The entry's path within the archive.
+     * @return The entry's stream.
+     * @throws FileNotFoundException The archive has no such entry.
+     */
+    InputStream getInputStream(String path) throws IOException;
 }
@@ -0,0 +1,462 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read only memory mapping of a bundle archive.
+ * <p>
+ * The archive is mapped once and it's central directory parsed, entries
+ * that are STORED are then served as slices of the mapping without going
+ * through a {@link java.util.zip.ZipFile} stream. Entries that are
+ * compressed, and archives the reader does not understand (zip64, spanned),
+ * return <code>null</code> so the caller falls back to the
+ * {@link ZipFilePool}.
+ * <p>
+ * A corrupt central directory, or header lengths pointing past the end of the
+ * archive, make the archive or the entry take the same fallback.
+ * 
+ * @author Michael Schmalle
+ */
+public class MappedBundleFile
+{
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    private static final int END_HEADER = 0x06054b50;
+
+    private static final int END_HEADER_SIZE = 22;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int CENTRAL_HEADER_SIZE = 46;
+
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private static final int STORED = 0;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Charset UTF_16BE = Charset.forName("UTF-16BE");
+
+    private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+    private static final Map<String, MappedBundleFile> files = new HashMap<String, MappedBundleFile>();
+
+    private final File file;
+
+    private final long lastModified;
+
+    private final long length;
+
+    private final ByteBuffer buffer;
+
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    /**
+     * Returns the shared mapping of the archive, the archive is mapped again
+     * when it changed on disk.
+     * 
+     * @param file The bundle archive.
+     * @return The mapping or <code>null</code> if the archive can not be
+     * mapped.
+     */
+    public static MappedBundleFile getInstance(File file)
+    {
+        String path = file.getAbsolutePath();
+        synchronized (files)
+        {
+            MappedBundleFile mapped = files.get(path);
+            if (mapped != null && mapped.lastModified == file.lastModified()
+                    && mapped.length == file.length())
+                return mapped;
+
+            files.remove(path);
+            try
+            {
+                mapped = new MappedBundleFile(file);
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
+
+            if (!mapped.isValid())
+                return null;
+
+            files.put(path, mapped);
+            return mapped;
+        }
+    }
+
+    /**
+     * Drops the shared mapping of the archive, the mapping is unmapped once
+     * the buffers handed out are no longer referenced.
+     * <p>
+     * Called before the archive is rewritten.
+     * 
+     * @param file The bundle archive.
+     */
+    public static void release(File file)
+    {
+        synchronized (files)
+        {
+            files.remove(file.getAbsolutePath());
+        }
+    }
+
+    MappedBundleFile(File file) throws IOException
+    {
+        this.file = file;
+        this.lastModified = file.lastModified();
+        this.length = file.length();
+
+        if (length > Integer.MAX_VALUE)
+        {
+            buffer = null;
+            return;
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            MappedByteBuffer mapped = raf.getChannel().map(
+                    FileChannel.MapMode.READ_ONLY, 0, length);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            buffer = mapped;
+        }
+        finally
+        {
+            // the mapping stays valid after the channel is closed
+            raf.close();
+        }
+
+        readCentralDirectory();
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    private boolean isValid()
+    {
+        return buffer != null && !entries.isEmpty();
+    }
+
+    /**
+     * Returns whether the archive has the entry.
+     * 
+     * @param name The entry's path.
+     */
+    public boolean hasEntry(String name)
+    {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Returns the content of a STORED entry as a read only slice of the
+     * mapping.
+     * 
+     * @param name The entry's path.
+     * @return The content or <code>null</code> if the entry does not exist or
+     * is compressed.
+     */
+    public ByteBuffer getContent(String name)
+    {
+        Entry entry = entries.get(name);
+        if (entry == null || entry.method != STORED)
+            return null;
+
+        int offset = entry.localHeaderOffset;
+        if (offset + LOCAL_HEADER_SIZE > buffer.limit()
+                || buffer.getInt(offset) != LOCAL_HEADER)
+            return null;
+
+        int nameLength = buffer.getShort(offset + 26) & 0xFFFF;
+        int extraLength = buffer.getShort(offset + 28) & 0xFFFF;
+        int start = offset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+        if ((long) start + entry.size > buffer.limit())
+            return null;
+
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start);
+        slice.limit(start + entry.size);
+        return slice.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a stream over a STORED entry's content.
+     * 
+     * @param name The entry's path.
+     * @return The stream or <code>null</code> if the entry does not exist or
+     * is compressed.
+     */
+    public InputStream getInputStream(String name)
+    {
+        final ByteBuffer content = getContent(name);
+        if (content == null)
+            return null;
+
+        return new InputStream() {
+            @Override
+            public int read()
+            {
+                return content.hasRemaining() ? content.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len)
+            {
+                if (len == 0)
+                    return 0;
+                if (!content.hasRemaining())
+                    return -1;
+                int n = Math.min(len, content.remaining());
+                content.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n)
+            {
+                int skipped = (int) Math.max(0,
+                        Math.min(n, content.remaining()));
+                content.position(content.position() + skipped);
+                return skipped;
+            }
+
+            @Override
+            public int available()
+            {
+                return content.remaining();
+            }
+        };
+    }
+
+    /**
+     * Returns a reader over a STORED entry's text, decoded with the charset
+     * of it's byte order mark, UTF-8 when it has none.
+     * 
+     * @param name The entry's path.
+     * @return The reader or <code>null</code> if the entry does not exist or
+     * is compressed.
+     */
+    public Reader getReader(String name)
+    {
+        ByteBuffer content = getContent(name);
+        if (content == null)
+            return null;
+
+        return new CharBufferReader(decode(content));
+    }
+
+    /**
+     * Decodes the text, skipping a byte order mark.
+     */
+    static CharBuffer decode(ByteBuffer content)
+    {
+        Charset charset = UTF_8;
+        int remaining = content.remaining();
+        int position = content.position();
+        if (remaining >= 3 && (content.get(position) & 0xFF) == 0xEF
+                && (content.get(position + 1) & 0xFF) == 0xBB
+                && (content.get(position + 2) & 0xFF) == 0xBF)
+        {
+            content.position(position + 3);
+        }
+        else if (remaining >= 2 && (content.get(position) & 0xFF) == 0xFE
+                && (content.get(position + 1) & 0xFF) == 0xFF)
+        {
+            charset = UTF_16BE;
+            content.position(position + 2);
+        }
+        else if (remaining >= 2 && (content.get(position) & 0xFF) == 0xFF
+                && (content.get(position + 1) & 0xFF) == 0xFE)
+        {
+            charset = UTF_16LE;
+            content.position(position + 2);
+        }
+        return charset.decode(content);
+    }
+
+    private void readCentralDirectory()
+    {
+        int end = findEndHeader();
+        if (end == -1)
+            return;
+
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long directoryOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        if (directoryOffset >= buffer.limit())
+            return; // zip64
+
+        int offset = (int) directoryOffset;
+        for (int i = 0; i < count; i++)
+        {
+            if (offset + CENTRAL_HEADER_SIZE > buffer.limit()
+                    || buffer.getInt(offset) != CENTRAL_HEADER)
+            {
+                entries.clear();
+                return;
+            }
+
+            int method = buffer.getShort(offset + 10) & 0xFFFF;
+            long compressedSize = buffer.getInt(offset + 20) & 0xFFFFFFFFL;
+            long size = buffer.getInt(offset + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(offset + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(offset + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(offset + 32) & 0xFFFF;
+            long localHeaderOffset = buffer.getInt(offset + 42) & 0xFFFFFFFFL;
+
+            int next = offset + CENTRAL_HEADER_SIZE + nameLength + extraLength
+                    + commentLength;
+            String name = next <= buffer.limit() ? readName(offset
+                    + CENTRAL_HEADER_SIZE, nameLength) : null;
+            if (name == null)
+            {
+                entries.clear();
+                return;
+            }
+
+            if (localHeaderOffset < buffer.limit() && size <= Integer.MAX_VALUE
+                    && (method != STORED || size == compressedSize))
+            {
+                entries.put(name, new Entry(method, (int) size,
+                        (int) localHeaderOffset));
+            }
+
+            offset = next;
+        }
+    }
+
+    private int findEndHeader()
+    {
+        int last = buffer.limit() - END_HEADER_SIZE;
+        int first = Math.max(0, last - MAX_COMMENT);
+        for (int i = last; i >= first; i--)
+        {
+            if (buffer.getInt(i) == END_HEADER)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the name or <code>null</code> if it exceeds the mapping.
+     */
+    private String readName(int offset, int length)
+    {
+        if (offset < 0 || (long) offset + length > buffer.limit())
+            return null;
+
+        ByteBuffer name = buffer.duplicate();
+        name.position(offset);
+        name.limit(offset + length);
+        return UTF_8.decode(name).toString();
+    }
+
+    private static class Entry
+    {
+        final int method;
+
+        final int size;
+
+        final int localHeaderOffset;
+
+        Entry(int method, int size, int localHeaderOffset)
+        {
+            this.method = method;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+    /**
+     * A {@link Reader} over decoded characters.
+     */
+    static class CharBufferReader extends Reader
+    {
+        private CharBuffer chars;
+
+        CharBufferReader(CharBuffer chars)
+        {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException
+        {
+            if (chars == null)
+                throw new IOException("Reader closed");
+            if (len == 0)
+                return 0;
+            if (!chars.hasRemaining())
+                return -1;
+            int n = Math.min(len, chars.remaining());
+            chars.get(cbuf, off, n);
+            return n;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (chars == null)
+                throw new IOException("Reader closed");
+            return chars.hasRemaining() ? chars.get() : -1;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            if (chars == null)
+                throw new IOException("Reader closed");
+            int skipped = (int) Math.max(0, Math.min(n, chars.remaining()));
+            chars.position(chars.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean ready()
+        {
+            return chars != null;
+        }
+
+        @Override
+        public void close()
+        {
+            chars = null;
+        }
+    }
+}
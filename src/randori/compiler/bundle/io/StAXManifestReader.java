@@ -47,6 +47,8 @@ public class StAXManifestReader
 {
     private static final Object TAG_LIBRARY = "library";
 
+    private static XMLInputFactory inputFactory;
+
     private final XMLStreamReader reader;
     private final IMutableBundle bundle;
 
@@ -75,15 +77,24 @@ public class StAXManifestReader
             }
         };
 
-        // Configure the XML factory.
-        final XMLInputFactory factory = XMLInputFactory.newInstance();
-
         // Create Stream XML reader.
+        final XMLInputFactory factory = getFactory();
         final XMLStreamReader xmlStreamReader = factory
                 .createXMLStreamReader(in);
         reader = factory.createFilteredReader(xmlStreamReader, filter);
     }
 
+    /**
+     * Looking up the factory implementation is expensive, the factory is
+     * created once and only used to create readers.
+     */
+    private static synchronized XMLInputFactory getFactory()
+    {
+        if (inputFactory == null)
+            inputFactory = XMLInputFactory.newInstance();
+        return inputFactory;
+    }
+
     public void close() throws IOException
     {
         try
@@ -0,0 +1,456 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Writes a zip archive from entries that were compressed up front.
+ * <p>
+ * Unlike {@link java.util.zip.ZipOutputStream} the entries' data, CRCs and
+ * sizes are produced before they are added, so entries can be compressed
+ * concurrently and assembled in order. Entries are written with their sizes
+ * in the local header, without data descriptors, and archives are limited to
+ * the classic (non zip64) format. An entry's data is released once it is
+ * added.
+ * 
+ * @author Michael Schmalle
+ */
+public class ZipAssembler
+{
+    private static final int LOCAL_HEADER = 0x04034b50;
+
+    private static final int CENTRAL_HEADER = 0x02014b50;
+
+    private static final int END_HEADER = 0x06054b50;
+
+    private static final int VERSION_STORED = 10;
+
+    private static final int VERSION_DEFLATED = 20;
+
+    // general purpose flag; names are UTF-8
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private static final long MAX_OFFSET = 0xFFFFFFFFL;
+
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+
+    private final List<Entry> entries = new ArrayList<Entry>();
+
+    private long offset;
+
+    public ZipAssembler(OutputStream out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * Creates a STORED entry.
+     * 
+     * @param name The entry's path.
+     * @param content The entry's content.
+     * @param time The entry's modification time.
+     */
+    public static Entry store(String name, byte[] content, long time)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return new Entry(name, ZipEntry.STORED, crc.getValue(),
+                content.length, content, time);
+    }
+
+    /**
+     * Creates an entry compressed at the level, a level of
+     * {@link Deflater#NO_COMPRESSION} or content that does not shrink is
+     * STORED.
+     * 
+     * @param name The entry's path.
+     * @param content The entry's content.
+     * @param level The {@link Deflater} level.
+     * @param time The entry's modification time.
+     */
+    public static Entry compress(String name, byte[] content, int level,
+            long time)
+    {
+        if (level == Deflater.NO_COMPRESSION)
+            return store(name, content, time);
+
+        Deflater deflater = new Deflater(level, true);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(
+                Math.max(64, content.length / 2));
+        try
+        {
+            deflater.setInput(content);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished())
+            {
+                int n = deflater.deflate(buffer);
+                compressed.write(buffer, 0, n);
+            }
+        }
+        finally
+        {
+            deflater.end();
+        }
+
+        if (compressed.size() >= content.length)
+            return store(name, content, time);
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return new Entry(name, ZipEntry.DEFLATED, crc.getValue(),
+                content.length, compressed.toByteArray(), time);
+    }
+
+    /**
+     * Creates an entry from a stream. Content up to the threshold is read
+     * into memory and compressed like
+     * {@link #compress(String, byte[], int, long)}, larger content is
+     * compressed into a temporary file as it is read and keeps the level even
+     * when it does not shrink.
+     * 
+     * @param name The entry's path.
+     * @param in The entry's content, left open.
+     * @param level The {@link Deflater} level.
+     * @param time The entry's modification time.
+     * @param threshold The most bytes of content held in memory.
+     */
+    public static Entry compress(String name, InputStream in, int level,
+            long time, int threshold) throws IOException
+    {
+        ByteArrayOutputStream head = new ByteArrayOutputStream(Math.min(
+                threshold, BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) != -1)
+        {
+            head.write(buffer, 0, n);
+            if (head.size() > threshold)
+                return spill(name, head, in, level, time);
+        }
+        return compress(name, head.toByteArray(), level, time);
+    }
+
+    private static Entry spill(String name, ByteArrayOutputStream head,
+            InputStream in, int level, long time) throws IOException
+    {
+        File file = File.createTempFile("entry", ".zip");
+        Deflater deflater = level == Deflater.NO_COMPRESSION ? null
+                : new Deflater(level, true);
+        boolean done = false;
+        try
+        {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(
+                    file), BUFFER_SIZE);
+            if (deflater != null)
+                out = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+            // the CRC is of the uncompressed content
+            CheckedOutputStream checked = new CheckedOutputStream(out,
+                    new CRC32());
+            long size = head.size();
+            try
+            {
+                head.writeTo(checked);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1)
+                {
+                    checked.write(buffer, 0, n);
+                    size += n;
+                }
+            }
+            finally
+            {
+                checked.close();
+            }
+
+            int method = deflater != null ? ZipEntry.DEFLATED
+                    : ZipEntry.STORED;
+            Entry entry = new Entry(name, method, checked.getChecksum()
+                    .getValue(), size, null, time);
+            entry.spill = file;
+            entry.compressedSize = file.length();
+            done = true;
+            return entry;
+        }
+        finally
+        {
+            if (deflater != null)
+                deflater.end();
+            if (!done)
+                file.delete();
+        }
+    }
+
+    /**
+     * Writes the entry's local header and data, the entry's data is released
+     * whether or not it was written.
+     * 
+     * @param entry The entry to add.
+     */
+    public void add(Entry entry) throws IOException
+    {
+        try
+        {
+            if (entries.size() == MAX_ENTRIES)
+                throw new IOException("Too many entries for a zip archive");
+
+            entry.localHeaderOffset = offset;
+
+            byte[] name = entry.name.getBytes(UTF_8);
+            writeInt(LOCAL_HEADER);
+            writeShort(entry.getVersion());
+            writeShort(FLAG_UTF8);
+            writeShort(entry.method);
+            writeInt(entry.dosTime);
+            writeInt((int) entry.crc);
+            writeInt((int) entry.compressedSize);
+            writeInt((int) entry.size);
+            writeShort(name.length);
+            writeShort(0);
+            write(name);
+            if (entry.spill != null)
+                write(entry.spill);
+            else
+                write(entry.data);
+
+            if (offset > MAX_OFFSET)
+                throw new IOException("Zip archive exceeds 4GB");
+
+            entries.add(entry);
+        }
+        finally
+        {
+            entry.release();
+        }
+    }
+
+    /**
+     * Writes the central directory, the stream is left open.
+     */
+    public void finish() throws IOException
+    {
+        long directoryOffset = offset;
+        for (Entry entry : entries)
+        {
+            byte[] name = entry.name.getBytes(UTF_8);
+            writeInt(CENTRAL_HEADER);
+            writeShort(VERSION_DEFLATED);
+            writeShort(entry.getVersion());
+            writeShort(FLAG_UTF8);
+            writeShort(entry.method);
+            writeInt(entry.dosTime);
+            writeInt((int) entry.crc);
+            writeInt((int) entry.compressedSize);
+            writeInt((int) entry.size);
+            writeShort(name.length);
+            writeShort(0); // extra
+            writeShort(0); // comment
+            writeShort(0); // disk
+            writeShort(0); // internal attributes
+            writeInt(0); // external attributes
+            writeInt((int) entry.localHeaderOffset);
+            write(name);
+        }
+        long directorySize = offset - directoryOffset;
+
+        if (offset > MAX_OFFSET)
+            throw new IOException("Zip archive exceeds 4GB");
+
+        writeInt(END_HEADER);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt((int) directorySize);
+        writeInt((int) directoryOffset);
+        writeShort(0);
+        out.flush();
+    }
+
+    private void write(byte[] bytes) throws IOException
+    {
+        out.write(bytes);
+        offset += bytes.length;
+    }
+
+    private void write(File file) throws IOException
+    {
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, n);
+                offset += n;
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private void writeShort(int value) throws IOException
+    {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        offset += 2;
+    }
+
+    private void writeInt(int value) throws IOException
+    {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        out.write((value >>> 16) & 0xFF);
+        out.write((value >>> 24) & 0xFF);
+        offset += 4;
+    }
+
+    private static int toDosTime(long time)
+    {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980)
+            return (1 << 21) | (1 << 16);
+
+        return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * A compressed or stored entry ready to be assembled.
+     */
+    public static class Entry
+    {
+        private final String name;
+
+        private final int method;
+
+        private final long crc;
+
+        private final long size;
+
+        private byte[] data;
+
+        private File spill;
+
+        private long compressedSize;
+
+        private final int dosTime;
+
+        private long localHeaderOffset;
+
+        Entry(String name, int method, long crc, long size, byte[] data,
+                long time)
+        {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.data = data;
+            this.compressedSize = data != null ? data.length : 0;
+            this.dosTime = toDosTime(time);
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public int getMethod()
+        {
+            return method;
+        }
+
+        public long getCrc()
+        {
+            return crc;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        public long getCompressedSize()
+        {
+            return compressedSize;
+        }
+
+        /**
+         * Drops the entry's data and deletes its temporary file, the sizes
+         * and offset stay readable.
+         */
+        public void release()
+        {
+            data = null;
+            if (spill != null)
+            {
+                spill.delete();
+                spill = null;
+            }
+        }
+
+        /**
+         * The offset of the entry's local header in the archive, set once
+         * the entry is added.
+         */
+        public long getLocalHeaderOffset()
+        {
+            return localHeaderOffset;
+        }
+
+        int getVersion()
+        {
+            return method == ZipEntry.STORED ? VERSION_STORED
+                    : VERSION_DEFLATED;
+        }
+    }
+}
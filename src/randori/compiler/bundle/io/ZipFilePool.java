@@ -0,0 +1,283 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A bounded pool of open {@link ZipFile}s keyed by their absolute path.
+ * <p>
+ * A pooled file whose length or modification time changed since it was
+ * opened is reopened, a bundle rewritten in place is never read through the
+ * stale central directory.
+ * <p>
+ * Each {@link #acquire(File)} must be matched with a {@link Handle#release()}.
+ * When more than the pool's maximum are open, the least recently used files
+ * that are not acquired are closed; files still acquired stay open until
+ * their last release.
+ * 
+ * @author Michael Schmalle
+ */
+public class ZipFilePool
+{
+    private static final int DEFAULT_MAX_OPEN = 16;
+
+    private static final ZipFilePool INSTANCE = new ZipFilePool(
+            DEFAULT_MAX_OPEN);
+
+    private final int maxOpen;
+
+    // access ordered, the eldest entry is the least recently used
+    private final LinkedHashMap<String, Handle> handles = new LinkedHashMap<String, Handle>(
+            16, 0.75f, true);
+
+    /**
+     * Returns the pool shared by all bundle readers.
+     */
+    public static ZipFilePool getInstance()
+    {
+        return INSTANCE;
+    }
+
+    public ZipFilePool(int maxOpen)
+    {
+        this.maxOpen = maxOpen;
+    }
+
+    /**
+     * Returns the open zip file, opening it if it is not pooled or the pooled
+     * file is stale.
+     * 
+     * @param file The zip file.
+     * @return The acquired handle, must be released.
+     */
+    public synchronized Handle acquire(File file) throws IOException
+    {
+        String path = file.getAbsolutePath();
+        Handle handle = handles.get(path);
+        if (handle != null && handle.isStale(file))
+        {
+            handles.remove(path);
+            retire(handle);
+            handle = null;
+        }
+        if (handle == null)
+        {
+            long length = file.length();
+            long lastModified = file.lastModified();
+            handle = new Handle(new ZipFile(file, ZipFile.OPEN_READ), length,
+                    lastModified);
+            handles.put(path, handle);
+        }
+        handle.references++;
+
+        evict();
+        return handle;
+    }
+
+    /**
+     * Opens a stream to an entry, the zip file stays acquired until the
+     * stream is closed.
+     * 
+     * @param file The zip file.
+     * @param name The entry's name.
+     * @throws FileNotFoundException The zip file has no such entry.
+     */
+    public InputStream getInputStream(File file, String name)
+            throws IOException
+    {
+        final Handle handle = acquire(file);
+        try
+        {
+            InputStream in = handle.getInputStream(name);
+            if (in == null)
+                throw new FileNotFoundException(name);
+
+            return new FilterInputStream(in) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException
+                {
+                    if (closed)
+                        return;
+                    closed = true;
+                    try
+                    {
+                        super.close();
+                    }
+                    finally
+                    {
+                        handle.release();
+                    }
+                }
+            };
+        }
+        catch (IOException e)
+        {
+            handle.release();
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            handle.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all zip files that are not acquired.
+     */
+    public synchronized void clear()
+    {
+        Iterator<Map.Entry<String, Handle>> iterator = handles.entrySet()
+                .iterator();
+        while (iterator.hasNext())
+        {
+            Handle handle = iterator.next().getValue();
+            iterator.remove();
+            retire(handle);
+        }
+    }
+
+    /**
+     * Closes a handle removed from the pool, an acquired handle is closed on
+     * its last release.
+     */
+    private void retire(Handle handle)
+    {
+        if (handle.references == 0)
+            handle.close();
+        else
+            handle.evicted = true;
+    }
+
+    private void evict()
+    {
+        Iterator<Map.Entry<String, Handle>> iterator = handles.entrySet()
+                .iterator();
+        while (handles.size() > maxOpen && iterator.hasNext())
+        {
+            Handle handle = iterator.next().getValue();
+            if (handle.references == 0)
+            {
+                iterator.remove();
+                handle.close();
+            }
+        }
+    }
+
+    private synchronized void release(Handle handle)
+    {
+        handle.references--;
+        if (handle.references == 0 && handle.evicted)
+            handle.close();
+        else
+            evict();
+    }
+
+    /**
+     * An acquired zip file.
+     */
+    public class Handle
+    {
+        private final ZipFile zipFile;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private int references;
+
+        private boolean evicted;
+
+        Handle(ZipFile zipFile, long length, long lastModified)
+        {
+            this.zipFile = zipFile;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        private boolean isStale(File file)
+        {
+            return file.length() != length
+                    || file.lastModified() != lastModified;
+        }
+
+        public ZipFile getZipFile()
+        {
+            return zipFile;
+        }
+
+        /**
+         * Returns the entry or <code>null</code>.
+         * 
+         * @param name The entry's name.
+         */
+        public ZipEntry getEntry(String name)
+        {
+            return zipFile.getEntry(name);
+        }
+
+        /**
+         * Returns a stream to the entry or <code>null</code> if there is no
+         * such entry.
+         * 
+         * @param name The entry's name.
+         */
+        public InputStream getInputStream(String name) throws IOException
+        {
+            ZipEntry entry = zipFile.getEntry(name);
+            if (entry == null)
+                return null;
+            return zipFile.getInputStream(entry);
+        }
+
+        /**
+         * Releases the zip file, it may be closed once all acquisitions are
+         * released.
+         */
+        public void release()
+        {
+            ZipFilePool.this.release(this);
+        }
+
+        private void close()
+        {
+            try
+            {
+                zipFile.close();
+            }
+            catch (IOException e)
+            {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.clients;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.flex.compiler.clients.COMPC;
+import org.apache.flex.compiler.internal.workspaces.Workspace;
+import org.apache.flex.compiler.problems.ICompilerProblem;
+import org.apache.flex.compiler.projects.ICompilerProject;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.swc.SWC;
+
+import randori.compiler.bundle.BundleLibrary;
+import randori.compiler.bundle.IBundleCategory;
+import randori.compiler.bundle.IBundleContainer;
+import randori.compiler.bundle.IBundleLibrary;
+import randori.compiler.bundle.IMutableBundle;
+import randori.compiler.bundle.io.BundleCompression;
+import randori.compiler.bundle.io.BundleWriter;
+import randori.compiler.clients.LibraryDescriptor.Kind;
+import randori.compiler.internal.driver.RandoriBackend;
+
+/**
+ * Compiles the libraries of a bundle concurrently in dependency order.
+ * <p>
+ * Each {@link LibraryDescriptor} is compiled as soon as all of it's
+ * dependencies are compiled, independent descriptors are compiled at the same
+ * time. The {@link Randori} compiles share a single {@link Workspace}, COMPC
+ * creates it's own, each compile keeps it's metrics and metadata index on
+ * it's own backend. Each finished SWC and JavaScript file is added to the
+ * bundle as it's compile completes, a descriptor whose dependency failed is
+ * not compiled. {@link #write(boolean)} writes the bundle stored or
+ * compressed.
+ * 
+ * @author Michael Schmalle
+ */
+public class BundleBuilder
+{
+    private final IMutableBundle bundle;
+
+    private final LinkedHashMap<String, LibraryDescriptor> descriptors = new LinkedHashMap<String, LibraryDescriptor>();
+
+    private final Set<ICompilerProblem> problems = Collections
+            .synchronizedSet(new HashSet<ICompilerProblem>());
+
+    private final List<String> failed = new ArrayList<String>();
+
+    private Workspace workspace;
+
+    public BundleBuilder(IMutableBundle bundle)
+    {
+        this.bundle = bundle;
+    }
+
+    public IMutableBundle getBundle()
+    {
+        return bundle;
+    }
+
+    /**
+     * Returns the problems of the {@link Randori} compiles.
+     */
+    public Set<ICompilerProblem> getProblems()
+    {
+        return problems;
+    }
+
+    /**
+     * Returns the descriptors that failed or were not compiled because a
+     * dependency failed.
+     */
+    public List<String> getFailed()
+    {
+        return failed;
+    }
+
+    public void add(LibraryDescriptor descriptor)
+    {
+        if (descriptors.containsKey(descriptor.getName()))
+            throw new IllegalArgumentException("Duplicate library descriptor "
+                    + descriptor.getName());
+        descriptors.put(descriptor.getName(), descriptor);
+    }
+
+    /**
+     * Returns the descriptors in an order where each descriptor follows it's
+     * dependencies.
+     * 
+     * @throws IllegalStateException A dependency is unknown or the
+     * dependencies have a cycle.
+     */
+    public List<LibraryDescriptor> sort()
+    {
+        List<LibraryDescriptor> result = new ArrayList<LibraryDescriptor>();
+        Set<String> visited = new HashSet<String>();
+        Set<String> visiting = new HashSet<String>();
+        for (LibraryDescriptor descriptor : descriptors.values())
+        {
+            visit(descriptor, visited, visiting, result);
+        }
+        return result;
+    }
+
+    private void visit(LibraryDescriptor descriptor, Set<String> visited,
+            Set<String> visiting, List<LibraryDescriptor> result)
+    {
+        if (visited.contains(descriptor.getName()))
+            return;
+        if (!visiting.add(descriptor.getName()))
+            throw new IllegalStateException("Library dependency cycle at "
+                    + descriptor.getName());
+
+        for (String name : descriptor.getDependencies())
+        {
+            LibraryDescriptor dependency = descriptors.get(name);
+            if (dependency == null)
+                throw new IllegalStateException("Unknown library dependency "
+                        + name + " of " + descriptor.getName());
+            visit(dependency, visited, visiting, result);
+        }
+
+        visiting.remove(descriptor.getName());
+        visited.add(descriptor.getName());
+        result.add(descriptor);
+    }
+
+    /**
+     * Compiles all descriptors and adds their outputs to the bundle.
+     * 
+     * @param threads The number of concurrent compiles.
+     * @return Whether all descriptors compiled.
+     */
+    public boolean build(int threads) throws InterruptedException
+    {
+        List<LibraryDescriptor> order = sort();
+        failed.clear();
+
+        // the number of uncompiled dependencies and the dependents of each
+        Map<String, Integer> pending = new HashMap<String, Integer>();
+        Map<String, List<LibraryDescriptor>> dependents = new HashMap<String, List<LibraryDescriptor>>();
+        for (LibraryDescriptor descriptor : order)
+        {
+            pending.put(descriptor.getName(), descriptor.getDependencies()
+                    .size());
+            for (String name : descriptor.getDependencies())
+            {
+                List<LibraryDescriptor> list = dependents.get(name);
+                if (list == null)
+                {
+                    list = new ArrayList<LibraryDescriptor>();
+                    dependents.put(name, list);
+                }
+                list.add(descriptor);
+            }
+        }
+
+        workspace = new Workspace();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+                threads));
+        CompletionService<Boolean> completion = new ExecutorCompletionService<Boolean>(
+                executor);
+        Map<Future<Boolean>, LibraryDescriptor> running = new HashMap<Future<Boolean>, LibraryDescriptor>();
+        try
+        {
+            for (LibraryDescriptor descriptor : order)
+            {
+                if (descriptor.getDependencies().isEmpty())
+                    submit(completion, running, descriptor);
+            }
+
+            Set<String> compiled = new HashSet<String>();
+            while (!running.isEmpty())
+            {
+                Future<Boolean> future = completion.take();
+                LibraryDescriptor descriptor = running.remove(future);
+                if (!succeeded(future))
+                {
+                    failed.add(descriptor.getName());
+                    continue;
+                }
+
+                addToBundle(descriptor);
+                compiled.add(descriptor.getName());
+
+                List<LibraryDescriptor> list = dependents.get(descriptor
+                        .getName());
+                if (list == null)
+                    continue;
+
+                for (LibraryDescriptor dependent : list)
+                {
+                    int count = pending.get(dependent.getName()) - 1;
+                    pending.put(dependent.getName(), count);
+                    if (count == 0)
+                        submit(completion, running, dependent);
+                }
+            }
+
+            for (LibraryDescriptor descriptor : order)
+            {
+                if (!compiled.contains(descriptor.getName())
+                        && !failed.contains(descriptor.getName()))
+                    failed.add(descriptor.getName());
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+            closeWorkspace();
+        }
+
+        return failed.isEmpty();
+    }
+
+    /**
+     * Writes the bundle to its bundle file.
+     * 
+     * @param compressed Whether to write with
+     * {@link BundleCompression#createCompressed()}, otherwise every entry is
+     * stored so readers can map it.
+     */
+    public void write(boolean compressed) throws IOException
+    {
+        BundleCompression compression = compressed ? BundleCompression
+                .createCompressed() : new BundleCompression();
+        BundleWriter writer = new BundleWriter(bundle.getBundleFile()
+                .getAbsolutePath(), compression);
+        writer.write(bundle);
+    }
+
+    private void submit(CompletionService<Boolean> completion,
+            Map<Future<Boolean>, LibraryDescriptor> running,
+            final LibraryDescriptor descriptor)
+    {
+        running.put(completion.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception
+            {
+                return compile(descriptor);
+            }
+        }), descriptor);
+    }
+
+    private static boolean succeeded(Future<Boolean> future)
+            throws InterruptedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            e.getCause().printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Compiles a descriptor on a worker thread.
+     * 
+     * @return Whether the compile succeeded.
+     */
+    protected boolean compile(LibraryDescriptor descriptor)
+    {
+        String[] args = descriptor.toArguments(descriptors).toArguments();
+
+        if (descriptor.getKind() == Kind.SWC)
+        {
+            COMPC compc = new COMPC();
+            return compc.mainNoExit(args) == 0
+                    && descriptor.getOutput().isFile();
+        }
+
+        Randori randori = createRandori(workspace);
+        return randori.mainNoExit(args, problems) == 0;
+    }
+
+    /**
+     * Creates the compiler of a JavaScript descriptor, each compile gets it's
+     * own backend.
+     * 
+     * @param workspace The workspace shared by the {@link Randori} compiles.
+     */
+    protected Randori createRandori(Workspace workspace)
+    {
+        return new Randori(new RandoriBackend(), workspace);
+    }
+
+    private void addToBundle(LibraryDescriptor descriptor)
+    {
+        if (descriptor.getKind() == Kind.SWC)
+        {
+            IBundleLibrary library = bundle.getLibrary(descriptor
+                    .getBundleLibrary());
+            if (library == null)
+            {
+                library = new BundleLibrary(descriptor.getBundleLibrary());
+                bundle.addLibrary(library);
+            }
+            library.addSWC(new SWC(descriptor.getOutput()));
+            return;
+        }
+
+        IBundleCategory category = bundle.addCategory(
+                descriptor.getBundleLibrary(), IBundleContainer.Type.JS,
+                IBundleCategory.Type.MONO);
+        for (String path : descriptor.getGeneratedFiles())
+        {
+            category.addFile(new File(descriptor.getOutput(), path), path);
+        }
+    }
+
+    private void closeWorkspace()
+    {
+        workspace.startIdleState();
+        try
+        {
+            workspace.close();
+        }
+        finally
+        {
+            workspace.endIdleState(Collections
+                    .<ICompilerProject, Set<ICompilationUnit>> emptyMap());
+        }
+    }
+}
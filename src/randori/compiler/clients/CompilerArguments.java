@@ -34,6 +34,8 @@ public class CompilerArguments
 
     private List<String> includes = new ArrayList<String>();
 
+    private List<String> bundles = new ArrayList<String>();
+
     private String appName;
 
     private String output;
@@ -51,6 +53,13 @@ public class CompilerArguments
         libraries.add(path);
     }
 
+    public void addBundlePath(String path)
+    {
+        if (bundles.contains(path))
+            return;
+        bundles.add(path);
+    }
+
     public void addSourcepath(String path)
     {
         if (sources.contains(path))
@@ -123,6 +132,7 @@ public class CompilerArguments
         output = "";
         clearLibraries();
         clearSourcePaths();
+        clearBundlePaths();
     }
 
     public void clearSourcePaths()
@@ -135,6 +145,11 @@ public class CompilerArguments
         libraries = new ArrayList<String>();
     }
 
+    public void clearBundlePaths()
+    {
+        bundles = new ArrayList<String>();
+    }
+
     public String[] toArguments()
     {
         List<String> result = new ArrayList<String>();
@@ -144,6 +159,11 @@ public class CompilerArguments
             result.add("-library-path=" + arg);
         }
 
+        for (String arg : bundles)
+        {
+            result.add("-bundle-path+=" + arg);
+        }
+
         for (String arg : sources)
         {
             result.add("-sp=" + arg);
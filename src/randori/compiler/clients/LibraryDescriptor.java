@@ -0,0 +1,195 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.clients;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes one compile of a {@link BundleBuilder}; a SWC compiled with
+ * COMPC or the JavaScript of a framework compiled with {@link Randori}.
+ * <p>
+ * The outputs of the SWC libraries a descriptor depends on are added to it's
+ * library path, a descriptor is compiled once all of it's dependencies have
+ * been compiled.
+ * 
+ * @author Michael Schmalle
+ */
+public class LibraryDescriptor
+{
+    /**
+     * The kind of compile.
+     */
+    public enum Kind
+    {
+        /**
+         * A SWC compiled with COMPC, the output is the SWC file.
+         */
+        SWC,
+
+        /**
+         * JavaScript compiled with {@link Randori}, the output is a
+         * directory.
+         */
+        JS
+    }
+
+    private final String name;
+
+    private final Kind kind;
+
+    private final File output;
+
+    private final String bundleLibrary;
+
+    private final List<String> dependencies = new ArrayList<String>();
+
+    private final List<String> libraryPaths = new ArrayList<String>();
+
+    private final List<String> sourcePaths = new ArrayList<String>();
+
+    private final List<String> includedSources = new ArrayList<String>();
+
+    private final List<String> generatedFiles = new ArrayList<String>();
+
+    /**
+     * Creates a descriptor.
+     * 
+     * @param name The unique name of the descriptor.
+     * @param kind The kind of compile.
+     * @param output The SWC file or the JavaScript output directory.
+     * @param bundleLibrary The name of the bundle library the output is added
+     * to.
+     */
+    public LibraryDescriptor(String name, Kind kind, File output,
+            String bundleLibrary)
+    {
+        this.name = name;
+        this.kind = kind;
+        this.output = output;
+        this.bundleLibrary = bundleLibrary;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    public File getOutput()
+    {
+        return output;
+    }
+
+    public String getBundleLibrary()
+    {
+        return bundleLibrary;
+    }
+
+    public List<String> getDependencies()
+    {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    /**
+     * Returns the files a JavaScript compile adds to the bundle, relative to
+     * it's output directory.
+     */
+    public List<String> getGeneratedFiles()
+    {
+        return Collections.unmodifiableList(generatedFiles);
+    }
+
+    public void addDependency(String name)
+    {
+        if (!dependencies.contains(name))
+            dependencies.add(name);
+    }
+
+    public void addLibraryPath(String path)
+    {
+        libraryPaths.add(path);
+    }
+
+    public void addSourcePath(String path)
+    {
+        sourcePaths.add(path);
+    }
+
+    public void addIncludedSource(String path)
+    {
+        includedSources.add(path);
+    }
+
+    public void addGeneratedFile(String path)
+    {
+        generatedFiles.add(path);
+    }
+
+    /**
+     * Returns the compiler arguments of the descriptor.
+     * 
+     * @param descriptors All descriptors of the build by name.
+     */
+    public CompilerArguments toArguments(
+            Map<String, LibraryDescriptor> descriptors)
+    {
+        CompilerArguments arguments = new CompilerArguments();
+        arguments.setOutput(output.getAbsolutePath());
+
+        for (String path : libraryPaths)
+        {
+            arguments.addLibraryPath(path);
+        }
+
+        for (String dependency : dependencies)
+        {
+            LibraryDescriptor descriptor = descriptors.get(dependency);
+            if (descriptor != null && descriptor.getKind() == Kind.SWC)
+                arguments.addLibraryPath(descriptor.getOutput()
+                        .getAbsolutePath());
+        }
+
+        for (String path : sourcePaths)
+        {
+            arguments.addSourcepath(path);
+        }
+
+        for (String path : includedSources)
+        {
+            arguments.addIncludedSource(path);
+        }
+
+        return arguments;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
@@ -19,6 +19,7 @@
 
 package randori.compiler.clients;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -52,10 +53,16 @@ import org.apache.flex.compiler.targets.ITarget;
 import org.apache.flex.compiler.targets.ITargetSettings;
 import org.apache.flex.compiler.units.ICompilationUnit;
 
+import randori.compiler.bundle.IBundleCategory;
+import randori.compiler.bundle.io.BundleLibraryPath;
+import randori.compiler.bundle.io.BundleLoader;
 import randori.compiler.driver.IBackend;
 import randori.compiler.driver.IRandoriApplication;
 import randori.compiler.driver.IRandoriBackend;
+import randori.compiler.internal.config.RandoriConfiguration;
 import randori.compiler.internal.driver.RandoriBackend;
+import randori.compiler.internal.metrics.CompilerMetrics;
+import randori.compiler.internal.metrics.CompilerMetrics.Phase;
 
 /**
  * @author Michael Schmalle
@@ -64,6 +71,8 @@ public class Randori
 {
     private Workspace workspace;
 
+    private final boolean ownsWorkspace;
+
     public Workspace getWorkspace()
     {
         return workspace;
@@ -89,11 +98,86 @@ public class Randori
 
     private IRandoriApplication application;
 
+    private boolean resident = false;
+
+    private Set<String> dirtyFiles;
+
+    private Set<String> removedTypes;
+
+    private CompilerMetrics metrics;
+
+    private BundleLibraryPath bundleLibraryPath;
+
+    /**
+     * Returns the project the compiler builds into.
+     */
+    public FlexProject getProject()
+    {
+        return project;
+    }
+
+    /**
+     * Whether the {@link Workspace} and the project stay open after a
+     * compile, allowing the next compile to reuse the loaded libraries and
+     * parsed sources.
+     */
+    public boolean isResident()
+    {
+        return resident;
+    }
+
+    /**
+     * Sets whether the compiler is kept open between compiles, a resident
+     * compiler must be closed with {@link #close()}.
+     * 
+     * @param value Whether the compiler is resident.
+     */
+    public void setResident(boolean value)
+    {
+        resident = value;
+    }
+
+    /**
+     * Limits the generation of the next compile to the given source files,
+     * used by a resident compiler to patch existing output.
+     * 
+     * @param paths The absolute paths of the changed source files and their
+     * dependents, <code>null</code> generates everything.
+     */
+    public void setDirtyFiles(Set<String> paths)
+    {
+        dirtyFiles = paths;
+    }
+
+    /**
+     * Sets the types whose source files were removed since the last compile,
+     * the next compile deletes their generated files.
+     * 
+     * @param qualifiedNames The qualified names of the removed types,
+     * <code>null</code> when none were removed.
+     */
+    public void setRemovedTypes(Set<String> qualifiedNames)
+    {
+        removedTypes = qualifiedNames;
+    }
+
     /**
      * @param args
      */
     public static void main(String[] args)
     {
+        if (args.length > 0 && args[0].startsWith(RandoriDaemon.DAEMON))
+        {
+            RandoriDaemon.main(args);
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals(RandoriWatcher.WATCH))
+        {
+            RandoriWatcher.main(args);
+            return;
+        }
+
         final int exitCode = staticMainNoExit(args, null);
         System.exit(exitCode);
     }
@@ -154,7 +238,17 @@ public class Randori
         ExitCode exitCode = ExitCode.SUCCESS;
         try
         {
+            reset();
+
+            metrics = new CompilerMetrics();
+
+            Phase phase = metrics.startPhase("configure");
             final boolean continueCompilation = configure(args);
+            phase.stop();
+
+            // the target and emitters record into the compile's metrics
+            ((IRandoriBackend) backend)
+                    .setMetrics(getMetricsReport() != null ? metrics : null);
 
             if (continueCompilation)
             {
@@ -187,7 +281,11 @@ public class Randori
         }
         finally
         {
-            waitAndClose();
+            writeMetricsReport();
+            ((IRandoriBackend) backend).setMetrics(null);
+
+            if (!resident)
+                waitAndClose();
 
             if (outProblems != null && problems.hasFilteredProblems())
             {
@@ -201,11 +299,28 @@ public class Randori
     }
 
     public Randori(IBackend backend)
+    {
+        this(backend, null);
+    }
+
+    /**
+     * Creates a compiler whose project is created in a {@link Workspace}
+     * shared with other compilers.
+     * <p>
+     * A shared workspace is not closed by the compiler, closing removes the
+     * compiler's project from it.
+     * 
+     * @param backend The backend.
+     * @param workspace The shared workspace, <code>null</code> creates a
+     * workspace owned by this compiler.
+     */
+    public Randori(IBackend backend, Workspace workspace)
     {
         this.backend = backend;
 
-        workspace = new Workspace();
-        project = new FlexProject(workspace);
+        ownsWorkspace = workspace == null;
+        this.workspace = ownsWorkspace ? new Workspace() : workspace;
+        project = new FlexProject(this.workspace);
         problems = new ProblemQuery();
 
         sourceFileHandler = backend.getSourceFileHandlerInstance();
@@ -248,9 +363,12 @@ public class Randori
             //
             projectConfigurator.setConfiguration(args,
                     ICompilerSettingsConstants.FILE_SPECS_VAR);
+            openBundles();
             projectConfigurator.applyToProject(project);
             problems = new ProblemQuery(
                     projectConfigurator.getCompilerProblemSettings());
+            if (bundleLibraryPath != null)
+                problems.addAll(bundleLibraryPath.getProblems());
 
             // Get the configuration and configBuffer which are now initialized.
             configuration = projectConfigurator.getConfiguration();
@@ -330,8 +448,12 @@ public class Randori
                 RandoriBackend randoriBackend = (RandoriBackend) backend;
                 if (!randoriBackend.isParseOnly())
                 {
+                    application.setDirtyFiles(dirtyFiles);
+                    application.setRemovedTypes(removedTypes);
                     compilationSuccess = application.compile(
                             (IRandoriBackend) backend, problems);
+                    if (compilationSuccess)
+                        writeBundleJavaScript();
                 }
             }
         }
@@ -340,6 +462,11 @@ public class Randori
             final ICompilerProblem problem = new InternalCompilerProblem(e);
             problems.add(problem);
         }
+        finally
+        {
+            // the build's metadata index holds this build's definitions
+            ((IRandoriBackend) backend).setMetaDataIndex(null);
+        }
 
         return compilationSuccess;
     }
@@ -427,10 +554,113 @@ public class Randori
     }
 
     /**
-     * Wait till the workspace to finish compilation and close.
+     * Reads the <code>bundle-path</code> bundles before the configuration is
+     * applied, their SWCs are added to the project's library path.
+     */
+    private void openBundles()
+    {
+        bundleLibraryPath = null;
+
+        Configuration config = projectConfigurator.getConfiguration();
+        if (!(config instanceof RandoriConfiguration))
+            return;
+
+        RandoriConfiguration randoriConfiguration = (RandoriConfiguration) config;
+        List<String> paths = randoriConfiguration.getBundlePath();
+        if (paths.isEmpty())
+            return;
+
+        File cacheDirectory = BundleLoader.getDefaultCacheDirectory();
+        String cacheDir = randoriConfiguration.getBundleCacheDir();
+        if (cacheDir != null && !cacheDir.equals(""))
+            cacheDirectory = new File(cacheDir);
+
+        bundleLibraryPath = new BundleLibraryPath(paths, cacheDirectory);
+        randoriConfiguration.setBundleLibraryPath(bundleLibraryPath
+                .getSWCPaths());
+    }
+
+    /**
+     * Writes the JavaScript libraries of the <code>bundle-path</code> bundles
+     * to the <code>js-library-path</code>.
+     */
+    private void writeBundleJavaScript() throws IOException
+    {
+        if (bundleLibraryPath == null)
+            return;
+
+        File output = getTargetSettings().getOutput();
+        String libraryPath = ((RandoriConfiguration) configuration)
+                .getJsLibraryPath();
+        bundleLibraryPath.writeJavaScript(IBundleCategory.Type.MONO,
+                new File(output.getAbsoluteFile(), libraryPath));
+    }
+
+    private String getMetricsReport()
+    {
+        if (!(configuration instanceof RandoriConfiguration))
+            return null;
+
+        String path = ((RandoriConfiguration) configuration)
+                .getMetricsReport();
+        if (path == null || path.equals(""))
+            return null;
+
+        return path;
+    }
+
+    private void writeMetricsReport()
+    {
+        String path = getMetricsReport();
+        if (path == null || metrics == null)
+            return;
+
+        try
+        {
+            metrics.writeReport(new File(path));
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Clears the state of a previous compile so a resident compiler can be
+     * reconfigured, the workspace and project are kept.
+     */
+    protected void reset()
+    {
+        problems = new ProblemQuery();
+        configuration = null;
+        configBuffer = null;
+        projectConfigurator = null;
+        targetSettings = null;
+        target = null;
+        application = null;
+        metrics = null;
+    }
+
+    /**
+     * Closes a resident compiler's workspace.
+     */
+    public void close()
+    {
+        waitAndClose();
+    }
+
+    /**
+     * Wait till the workspace to finish compilation and close, the project is
+     * only removed from a shared workspace.
      */
     protected void waitAndClose()
     {
+        if (!ownsWorkspace)
+        {
+            project.delete();
+            return;
+        }
+
         workspace.startIdleState();
         try
         {
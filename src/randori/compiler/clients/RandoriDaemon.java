@@ -0,0 +1,301 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.clients;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.flex.compiler.internal.workspaces.Workspace;
+import org.apache.flex.compiler.problems.ICompilerProblem;
+
+import randori.compiler.internal.driver.RandoriBackend;
+
+/**
+ * A resident compiler that keeps the {@link Workspace}, the loaded library
+ * SWCs and the parsed sources alive across compile requests.
+ * <p>
+ * Before each compile the source files the project knows about are checked
+ * for changes, only changed, added or removed files are invalidated in the
+ * workspace. A compile with the same arguments as the last successful one
+ * generates only the changed files and their dependents.
+ * <p>
+ * The protocol is line based; each request is a single line.
+ * <ul>
+ * <li><code>compile [args...]</code> - compiles with the same arguments the
+ * command line compiler takes, separated by spaces, arguments containing
+ * spaces can be double quoted.</li>
+ * <li><code>quit</code> - closes the workspace and exits.</li>
+ * </ul>
+ * Every compile answers with a <code>problem: </code> line for each problem
+ * and a final <code>done &lt;exit code&gt; &lt;milliseconds&gt;</code> line.
+ * <p>
+ * Started with <code>--daemon</code> requests are read from stdin, started
+ * with <code>--daemon=&lt;port&gt;</code> requests are read from a socket
+ * bound to the loopback address.
+ * 
+ * @author Michael Schmalle
+ */
+public class RandoriDaemon
+{
+    static final String DAEMON = "--daemon";
+
+    private static final String COMPILE = "compile";
+
+    private static final String QUIT = "quit";
+
+    private final Randori randori;
+
+    private final SourceChanges changes = new SourceChanges();
+
+    // the arguments of the last successful compile
+    private String[] compiledArgs;
+
+    private boolean closed = false;
+
+    public static void main(String[] args)
+    {
+        RandoriDaemon daemon = new RandoriDaemon();
+        try
+        {
+            String argument = args.length > 0 ? args[0] : DAEMON;
+            if (argument.startsWith(DAEMON + "="))
+            {
+                int port = Integer.parseInt(argument.substring(DAEMON
+                        .length() + 1));
+                daemon.serve(port);
+            }
+            else
+            {
+                // the compiler writes it's progress to System.out, keep stdout
+                // for the protocol
+                PrintStream out = System.out;
+                System.setOut(System.err);
+                daemon.serve(System.in, out);
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            daemon.close();
+        }
+    }
+
+    public RandoriDaemon()
+    {
+        randori = new Randori(new RandoriBackend());
+        randori.setResident(true);
+    }
+
+    /**
+     * Accepts connections on the loopback address until a <code>quit</code>
+     * request is received, connections are served one at a time.
+     * 
+     * @param port The port to listen on.
+     */
+    public void serve(int port) throws IOException
+    {
+        ServerSocket server = new ServerSocket(port, 1,
+                InetAddress.getByName(null));
+        try
+        {
+            while (!closed)
+            {
+                Socket socket = server.accept();
+                try
+                {
+                    serve(socket.getInputStream(), socket.getOutputStream());
+                }
+                finally
+                {
+                    socket.close();
+                }
+            }
+        }
+        finally
+        {
+            server.close();
+        }
+    }
+
+    /**
+     * Serves requests from the input until it ends or a <code>quit</code>
+     * request is received.
+     * 
+     * @param in The request input.
+     * @param out The response output.
+     */
+    public void serve(InputStream in, OutputStream out) throws IOException
+    {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+                "UTF-8"));
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(out,
+                "UTF-8"));
+
+        String line;
+        while (!closed && (line = reader.readLine()) != null)
+        {
+            List<String> tokens = tokenize(line);
+            if (tokens.size() == 0)
+                continue;
+
+            String command = tokens.remove(0);
+            if (command.equals(QUIT))
+            {
+                closed = true;
+            }
+            else if (command.equals(COMPILE))
+            {
+                Set<ICompilerProblem> problems = new HashSet<ICompilerProblem>();
+                long start = System.currentTimeMillis();
+                int exitCode = compile(tokens.toArray(new String[0]), problems);
+                long time = System.currentTimeMillis() - start;
+
+                for (ICompilerProblem problem : problems)
+                {
+                    writer.println("problem: " + problem.toString());
+                }
+                writer.println("done " + exitCode + " " + time);
+            }
+            else
+            {
+                writer.println("error: unknown command " + command);
+            }
+            writer.flush();
+        }
+    }
+
+    /**
+     * Invalidates the changed source files and compiles.
+     * 
+     * @param args The compiler arguments.
+     * @param problems The problems of the compile.
+     * @return The compiler's exit code.
+     */
+    public int compile(String[] args, Set<ICompilerProblem> problems)
+    {
+        try
+        {
+            invalidate();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+
+        // other arguments may target another output, generate everything
+        boolean incremental = Arrays.equals(args, compiledArgs);
+        randori.setDirtyFiles(incremental ? changes.getDirtyFiles() : null);
+        randori.setRemovedTypes(incremental ? changes.getRemovedTypes() : null);
+
+        int exitCode = randori.mainNoExit(args, problems);
+        if (exitCode == 0)
+        {
+            compiledArgs = args;
+            changes.generated();
+        }
+        snapshot();
+        return exitCode;
+    }
+
+    /**
+     * Closes the resident compiler's workspace.
+     */
+    public void close()
+    {
+        closed = true;
+        randori.close();
+    }
+
+    /**
+     * Notifies the workspace of the source files that changed, were added or
+     * removed since the last compile.
+     */
+    protected void invalidate() throws InterruptedException
+    {
+        changes.scan();
+        changes.invalidate(randori.getProject(), randori.getWorkspace());
+    }
+
+    /**
+     * Records the modification times of the project's source files.
+     */
+    protected void snapshot()
+    {
+        changes.snapshot(randori.getProject());
+    }
+
+    /**
+     * Splits a request line on whitespace, double quoted tokens may contain
+     * whitespace.
+     */
+    static List<String> tokenize(String line)
+    {
+        List<String> result = new ArrayList<String>();
+        StringBuilder token = null;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (c == '"')
+            {
+                quoted = !quoted;
+                if (token == null)
+                    token = new StringBuilder();
+            }
+            else if (!quoted && Character.isWhitespace(c))
+            {
+                if (token != null)
+                {
+                    result.add(token.toString());
+                    token = null;
+                }
+            }
+            else
+            {
+                if (token == null)
+                    token = new StringBuilder();
+                token.append(c);
+            }
+        }
+
+        if (token != null)
+            result.add(token.toString());
+
+        return result;
+    }
+}
@@ -0,0 +1,277 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.clients;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.flex.compiler.problems.ICompilerProblem;
+
+import randori.compiler.internal.driver.RandoriBackend;
+
+/**
+ * Watches the configured source paths and recompiles on change.
+ * <p>
+ * After the first full compile only the changed source files and the units
+ * that depend on them, directly or through other units, are generated; with
+ * <code>js-classes-as-files</code> only their files are rewritten and the
+ * files of removed sources are deleted, a monolithic file has their sections
+ * replaced. Files of a failed compile are generated again by the next one.
+ * <p>
+ * When the watch service overflows or a directory is created or deleted the
+ * source path is scanned, the events of the files inside the directory never
+ * arrive.
+ * <p>
+ * Started with <code>--watch</code> followed by the compiler arguments.
+ * 
+ * @author Michael Schmalle
+ */
+public class RandoriWatcher
+{
+    static final String WATCH = "--watch";
+
+    private static final String AS_EXTENSION = ".as";
+
+    // changes arriving within this window are compiled together
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Randori randori;
+
+    private final String[] args;
+
+    private WatchService watchService;
+
+    private final Map<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+
+    private final SourceChanges changes;
+
+    private boolean compiled = false;
+
+    public static void main(String[] args)
+    {
+        String[] compilerArgs = args;
+        if (args.length > 0 && args[0].equals(WATCH))
+            compilerArgs = Arrays.copyOfRange(args, 1, args.length);
+
+        RandoriWatcher watcher = new RandoriWatcher(compilerArgs);
+        try
+        {
+            watcher.run();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
+
+    public RandoriWatcher(String[] args)
+    {
+        this(args, new SourceChanges());
+    }
+
+    RandoriWatcher(String[] args, SourceChanges changes)
+    {
+        this.args = args;
+        this.changes = changes;
+
+        randori = new Randori(new RandoriBackend());
+        randori.setResident(true);
+    }
+
+    /**
+     * Compiles the project then recompiles on every change until the thread
+     * is interrupted.
+     */
+    public void run() throws IOException, InterruptedException
+    {
+        compile();
+        watch();
+
+        System.out.println("Watching for changes...");
+
+        while (true)
+        {
+            WatchKey key = watchService.take();
+
+            while (key != null)
+            {
+                poll(key);
+                key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            if (changes.isEmpty())
+                continue;
+
+            changes.invalidate(randori.getProject(), randori.getWorkspace());
+            compile();
+        }
+    }
+
+    /**
+     * Closes the watch service and the resident compiler.
+     */
+    public void close()
+    {
+        try
+        {
+            if (watchService != null)
+                watchService.close();
+        }
+        catch (IOException e)
+        {
+        }
+        randori.close();
+    }
+
+    /**
+     * Opens the watch service and registers the project's source path.
+     */
+    void watch() throws IOException
+    {
+        watchService = FileSystems.getDefault().newWatchService();
+        for (File directory : randori.getProject().getSourcePath())
+        {
+            register(directory);
+        }
+    }
+
+    private void compile()
+    {
+        Set<ICompilerProblem> problems = new HashSet<ICompilerProblem>();
+        // everything is generated until a compile succeeds
+        randori.setDirtyFiles(compiled ? changes.getDirtyFiles() : null);
+        randori.setRemovedTypes(changes.getRemovedTypes());
+        if (randori.mainNoExit(args, problems) == 0)
+        {
+            compiled = true;
+            changes.generated();
+        }
+        changes.snapshot(randori.getProject());
+        for (ICompilerProblem problem : problems)
+        {
+            System.err.println(problem.toString());
+        }
+    }
+
+    private void poll(WatchKey key) throws IOException
+    {
+        Path directory = directories.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            handle(directory, event.kind(), (Path) event.context());
+        }
+
+        if (!key.reset())
+            directories.remove(key);
+    }
+
+    /**
+     * Reports a single event of a watched directory.
+     * 
+     * @param directory The watched directory, <code>null</code> when it's
+     * key is no longer registered.
+     * @param kind The event's kind.
+     * @param name The name of the file or directory relative to the watched
+     * directory, <code>null</code> on <code>OVERFLOW</code>.
+     */
+    void handle(Path directory, WatchEvent.Kind<?> kind, Path name)
+            throws IOException
+    {
+        // events were lost, scan for the changes instead
+        if (kind == OVERFLOW || directory == null)
+        {
+            changes.scan();
+            return;
+        }
+
+        Path path = directory.resolve(name);
+        File file = path.toFile();
+        String absolutePath = file.getAbsolutePath();
+
+        // files inside a created or deleted directory have no events
+        if (kind == ENTRY_CREATE && file.isDirectory())
+        {
+            register(file);
+            changes.scan();
+            return;
+        }
+        if (kind == ENTRY_DELETE && directories.containsValue(path))
+        {
+            changes.scan();
+            return;
+        }
+
+        if (!file.getName().endsWith(AS_EXTENSION))
+            return;
+
+        if (kind == ENTRY_CREATE)
+            changes.fileAdded(absolutePath);
+        else if (kind == ENTRY_DELETE)
+            changes.fileRemoved(absolutePath);
+        else if (kind == ENTRY_MODIFY)
+            changes.fileChanged(absolutePath);
+    }
+
+    private void register(File directory) throws IOException
+    {
+        if (!directory.isDirectory())
+            return;
+
+        Path path = directory.getAbsoluteFile().toPath();
+        WatchKey key = path.register(watchService, ENTRY_CREATE,
+                ENTRY_DELETE, ENTRY_MODIFY);
+        directories.put(key, path);
+
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            if (file.isDirectory())
+                register(file);
+        }
+    }
+}
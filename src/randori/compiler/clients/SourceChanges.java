@@ -0,0 +1,276 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.clients;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.flex.compiler.common.DependencyTypeSet;
+import org.apache.flex.compiler.filespecs.FileSpecification;
+import org.apache.flex.compiler.internal.projects.FlexProject;
+import org.apache.flex.compiler.internal.workspaces.Workspace;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.compiler.units.ICompilationUnit.UnitType;
+
+/**
+ * The source files of a resident compiler that changed, were added or
+ * removed since the last compile.
+ * <p>
+ * Changes are reported as file events or found by {@link #scan()} comparing
+ * the modification times recorded by {@link #snapshot(FlexProject)}.
+ * {@link #invalidate(FlexProject, Workspace)} notifies the workspace and
+ * collects the files to generate, the changed and added files and the files
+ * of all units depending on them directly or through other units, along with
+ * the types of the removed files. Both are kept until
+ * {@link #generated()} since a failed compile writes nothing.
+ * 
+ * @author Michael Schmalle
+ */
+class SourceChanges
+{
+    private static final String AS_EXTENSION = ".as";
+
+    private final Set<String> changed = new HashSet<String>();
+
+    private final Set<String> added = new HashSet<String>();
+
+    private final Set<String> removed = new HashSet<String>();
+
+    private final Set<String> dirty = new HashSet<String>();
+
+    private final Set<String> removedTypes = new HashSet<String>();
+
+    private final Map<String, Long> timestamps = new HashMap<String, Long>();
+
+    private final Set<File> sourcePath = new HashSet<File>();
+
+    /**
+     * Whether no change was reported since the last
+     * {@link #invalidate(FlexProject, Workspace)}.
+     */
+    public boolean isEmpty()
+    {
+        return changed.isEmpty() && added.isEmpty() && removed.isEmpty();
+    }
+
+    public void fileChanged(String path)
+    {
+        if (!added.contains(path))
+            changed.add(path);
+    }
+
+    public void fileAdded(String path)
+    {
+        removed.remove(path);
+        added.add(path);
+    }
+
+    public void fileRemoved(String path)
+    {
+        changed.remove(path);
+        if (!added.remove(path))
+            removed.add(path);
+    }
+
+    /**
+     * Records the modification times of the project's source files and its
+     * source path for the next {@link #scan()}.
+     * 
+     * @param project The compiled project.
+     */
+    public void snapshot(FlexProject project)
+    {
+        timestamps.clear();
+        for (ICompilationUnit unit : project.getCompilationUnits())
+        {
+            if (unit.getCompilationUnitType() != UnitType.AS_UNIT)
+                continue;
+
+            String path = unit.getAbsoluteFilename();
+            if (path != null)
+                timestamps.put(path, new File(path).lastModified());
+        }
+
+        sourcePath.clear();
+        for (File directory : project.getSourcePath())
+        {
+            sourcePath.add(directory.getAbsoluteFile());
+        }
+    }
+
+    /**
+     * Reports the source files whose modification time differs from the last
+     * {@link #snapshot(FlexProject)}, that no longer exist or that were added
+     * to the source path.
+     */
+    public void scan()
+    {
+        Iterator<Entry<String, Long>> iterator = timestamps.entrySet()
+                .iterator();
+        while (iterator.hasNext())
+        {
+            Entry<String, Long> entry = iterator.next();
+            File file = new File(entry.getKey());
+            if (!file.exists())
+            {
+                fileRemoved(entry.getKey());
+                iterator.remove();
+            }
+            else if (file.lastModified() != entry.getValue())
+            {
+                fileChanged(entry.getKey());
+            }
+        }
+
+        for (File directory : sourcePath)
+        {
+            scanAdded(directory);
+        }
+    }
+
+    private void scanAdded(File directory)
+    {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                scanAdded(file);
+            }
+            else if (file.getName().endsWith(AS_EXTENSION)
+                    && !timestamps.containsKey(file.getAbsolutePath()))
+            {
+                fileAdded(file.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Notifies the workspace of the reported changes and adds them to the
+     * dirty files and removed types.
+     * 
+     * @param project The project the changes are resolved in.
+     * @param workspace The project's workspace.
+     */
+    public void invalidate(FlexProject project, Workspace workspace)
+            throws InterruptedException
+    {
+        if (isEmpty())
+            return;
+
+        Map<String, ICompilationUnit> units = new HashMap<String, ICompilationUnit>();
+        for (ICompilationUnit unit : project.getCompilationUnits())
+        {
+            String path = unit.getAbsoluteFilename();
+            if (path != null)
+                units.put(path, unit);
+        }
+
+        // dependents are collected before the workspace drops the edges
+        dirty.addAll(changed);
+        dirty.addAll(added);
+
+        Set<String> sources = new HashSet<String>(changed);
+        sources.addAll(removed);
+        Set<ICompilationUnit> visited = new HashSet<ICompilationUnit>();
+        Deque<ICompilationUnit> queue = new ArrayDeque<ICompilationUnit>();
+        for (String path : sources)
+        {
+            ICompilationUnit unit = units.get(path);
+            if (unit == null)
+                continue;
+
+            if (removed.contains(path))
+                removedTypes.addAll(unit.getQualifiedNames());
+
+            if (visited.add(unit))
+                queue.add(unit);
+        }
+
+        while (!queue.isEmpty())
+        {
+            for (ICompilationUnit dependent : project
+                    .getDirectReverseDependencies(queue.remove(),
+                            DependencyTypeSet.allOf()))
+            {
+                if (!visited.add(dependent))
+                    continue;
+
+                queue.add(dependent);
+                String dependentPath = dependent.getAbsoluteFilename();
+                if (dependentPath != null)
+                    dirty.add(dependentPath);
+            }
+        }
+        dirty.removeAll(removed);
+
+        for (String path : changed)
+        {
+            workspace.fileChanged(new FileSpecification(path));
+        }
+        for (String path : added)
+        {
+            workspace.fileAdded(new FileSpecification(path));
+        }
+        for (String path : removed)
+        {
+            workspace.fileRemoved(new FileSpecification(path));
+        }
+
+        changed.clear();
+        added.clear();
+        removed.clear();
+    }
+
+    /**
+     * Returns a copy of the files to generate.
+     */
+    public Set<String> getDirtyFiles()
+    {
+        return new HashSet<String>(dirty);
+    }
+
+    /**
+     * Returns a copy of the qualified names of the removed types.
+     */
+    public Set<String> getRemovedTypes()
+    {
+        return new HashSet<String>(removedTypes);
+    }
+
+    /**
+     * Clears the dirty files and removed types after a successful compile.
+     */
+    public void generated()
+    {
+        dirty.clear();
+        removedTypes.clear();
+    }
+}
@@ -19,6 +19,12 @@
 
 package randori.compiler.codegen.js;
 
+import org.apache.flex.compiler.definitions.IDefinition;
+import org.apache.flex.compiler.definitions.ITypeDefinition;
+import org.apache.flex.compiler.tree.as.IIdentifierNode;
+
+import randori.compiler.config.IRandoriTargetSettings;
+
 /**
  * The {@link IRandoriEmitter} interface allows abstraction between the base
  * JavaScript and the randori specific source code production.
@@ -31,9 +37,41 @@ public interface IRandoriEmitter extends IJSEmitter
 
     public static final String STATIC_DELEGATE_NAME = "$createStaticDelegate";
 
+    public static final String CLASS_ALIAS = "$c";
+
+    public static final String PROTOTYPE_ALIAS = "$p";
+
+    public static final String SUPER_ALIAS = "$s";
+
     /**
      * Returns the session model for the current session.
      */
     ISessionModel getModel();
 
+    /**
+     * Returns the settings of the current compile or <code>null</code>.
+     */
+    IRandoriTargetSettings getSettings();
+
+    /**
+     * Returns the name a local variable or parameter identifier is emitted
+     * with, <code>null</code> when it keeps its source name.
+     * 
+     * @param node The identifier being emitted.
+     * @param definition The identifier's resolved definition.
+     */
+    String getLocalName(IIdentifierNode node, IDefinition definition);
+
+    /**
+     * Returns the alias the class being emitted binds a type or its
+     * prototype to, <code>null</code> when the type is not aliased.
+     * <p>
+     * The class is aliased to {@link #CLASS_ALIAS}, its prototype to
+     * {@link #PROTOTYPE_ALIAS} and its base class's prototype to
+     * {@link #SUPER_ALIAS}.
+     * 
+     * @param type The class or base class to alias.
+     * @param prototype Whether the type's prototype is referenced.
+     */
+    String getAlias(ITypeDefinition type, boolean prototype);
 }
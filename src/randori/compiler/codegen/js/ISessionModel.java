@@ -27,8 +27,13 @@ import org.apache.flex.compiler.definitions.IFunctionDefinition;
 import org.apache.flex.compiler.definitions.ITypeDefinition;
 import org.apache.flex.compiler.definitions.IVariableDefinition;
 import org.apache.flex.compiler.definitions.metadata.IMetaTag;
+import org.apache.flex.compiler.projects.ICompilerProject;
+import org.apache.flex.compiler.tree.as.IExpressionNode;
+import org.apache.flex.compiler.tree.as.IFunctionCallNode;
 import org.apache.flex.compiler.units.ICompilationUnit;
 
+import randori.compiler.internal.utils.MetaDataIndex;
+
 /**
  * The {@link ISessionModel} is the only class that will keep any kind of state
  * during one {@link ITypeDefinition} compile.
@@ -122,4 +127,34 @@ public interface ISessionModel
 
     boolean setSkipOperator(boolean value);
 
+    /**
+     * Resolves the expression's definition once per session, subsequent calls
+     * for the same node return the remembered definition.
+     * <p>
+     * Nodes are remembered by identity, a <code>null</code> resolution is
+     * remembered as well.
+     * 
+     * @param node The expression to resolve.
+     * @param project The project to resolve against.
+     * @return The resolved definition or <code>null</code>.
+     */
+    IDefinition resolve(IExpressionNode node, ICompilerProject project);
+
+    /**
+     * Resolves the called expression of a function call once per session.
+     * 
+     * @param node The function call to resolve.
+     * @param project The project to resolve against.
+     * @return The resolved definition or <code>null</code>.
+     * @see #resolve(IExpressionNode, ICompilerProject)
+     */
+    IDefinition resolveCalledExpression(IFunctionCallNode node,
+            ICompilerProject project);
+
+    /**
+     * Returns the metadata index of the build the session belongs to, shared
+     * by all sessions of the build, or <code>null</code> when the session has
+     * no index and the metadata helpers scan the tags.
+     */
+    MetaDataIndex getMetaDataIndex();
 }
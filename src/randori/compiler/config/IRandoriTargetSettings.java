@@ -19,6 +19,8 @@
 
 package randori.compiler.config;
 
+import java.util.List;
+
 import org.apache.flex.compiler.targets.ITargetSettings;
 
 import randori.compiler.clients.Randori;
@@ -68,4 +70,130 @@ public interface IRandoriTargetSettings extends ITargetSettings
      * <code>false</code>).
      */
     boolean getJsClassesAsFiles();
+
+    /**
+     * The number of threads used to generate class source code when writing
+     * a monolithic project file.
+     * <p>
+     * Classes are still appended in inheritance order, the output is the same
+     * as a single threaded generation.
+     * 
+     * @return The number of generation threads, <code>1</code> or less
+     * generates all classes on the calling thread.
+     */
+    int getJsGenerationThreads();
+
+    /**
+     * The directory used to cache generated class sources between compiles.
+     * <p>
+     * A cached class is reused when neither it's source file nor the source
+     * files of it's direct dependencies have changed.
+     * 
+     * @return The cache directory, an empty String disables the cache.
+     */
+    String getJsCacheDir();
+
+    /**
+     * The path of a JSON report of the compile's phase timings, per class
+     * generation times and counters.
+     * 
+     * @return The report path, an empty String disables the report.
+     */
+    String getMetricsReport();
+
+    /**
+     * Whether output files whose content is unchanged are left untouched.
+     * <p>
+     * The generated content is compared by digest with the file on disk, the
+     * compiler banner and it's timestamp are not part of the comparison.
+     * 
+     * @return <code>true</code> to only write files that changed.
+     */
+    boolean getJsSkipUnchangedOutput();
+
+    /**
+     * The directory the SWCs of the <code>bundle-path</code> bundles are
+     * extracted to, keyed by their CRC so unchanged SWCs are extracted once.
+     * 
+     * @return The cache directory, an empty String uses a directory in the
+     * user's home directory.
+     */
+    String getBundleCacheDir();
+
+    /**
+     * The <code>.rbl</code> bundles compiled against, their SWCs are added to
+     * the library path and their JavaScript libraries are written to the
+     * <code>js-library-path</code>.
+     */
+    List<String> getBundlePath();
+
+    /**
+     * Whether classes of the Randori framework the application can not reach
+     * are left out of <code>Randori.js</code>.
+     * <p>
+     * The application's classes, the framework's startup classes and the
+     * classes matching <code>js-tree-shake-keep</code> are the roots, a class
+     * is reached through it's base class, interfaces, resolved references and
+     * injected types.
+     * 
+     * @return <code>true</code> to drop unreachable framework classes.
+     */
+    boolean getJsTreeShake();
+
+    /**
+     * The qualified name prefixes of framework classes kept by
+     * <code>js-tree-shake</code>, used for classes the application only
+     * creates by name at runtime.
+     */
+    List<String> getJsTreeShakeKeep();
+
+    /**
+     * Whether the generated source is written compact; without indentation,
+     * blank lines and optional spaces, and with the local variables and
+     * parameters of methods renamed to short names.
+     * <p>
+     * Functions with <code>[JavaScriptCode]</code> or that use
+     * <code>eval</code> or <code>with</code> keep their local names, members
+     * and injection names are never renamed.
+     * 
+     * @return <code>true</code> to minify the generated source.
+     */
+    boolean getJsMinify();
+
+    /**
+     * Whether each class's injection points and class dependencies are
+     * emitted as frozen tables built once when the class loads, instead of
+     * functions that build new arrays on every call.
+     * <p>
+     * Classes with injected properties whose initial value is not a literal
+     * keep the function form.
+     * 
+     * @return <code>true</code> to emit injection tables.
+     */
+    boolean getJsInjectionTables();
+
+    /**
+     * Whether a <code>$factory(injector)</code> function is generated for
+     * each class whose constructor and injected members only take injectable
+     * class or interface types, letting the injector create and inject the
+     * class without walking it's injection points.
+     * <p>
+     * Classes whose constructor dependencies lead back to them are reported
+     * and get no factory.
+     * 
+     * @return <code>true</code> to generate injection factories.
+     */
+    boolean getJsInjectionFactories();
+
+    /**
+     * Whether the members of each class are emitted in a closure that binds
+     * the class, its prototype and its base class's prototype to short
+     * local aliases, used for the method and static field definitions and
+     * the class's static and super references.
+     * <p>
+     * Global classes are emitted unchanged.
+     * 
+     * @return <code>true</code> to alias class prototypes.
+     */
+    boolean getJsPrototypeAlias();
 }
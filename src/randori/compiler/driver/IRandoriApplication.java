@@ -19,6 +19,8 @@
 
 package randori.compiler.driver;
 
+import java.util.Set;
+
 import org.apache.flex.compiler.clients.problems.ProblemQuery;
 import org.apache.flex.compiler.units.ICompilationUnit;
 
@@ -46,4 +48,22 @@ public interface IRandoriApplication
      */
     boolean compile(IRandoriBackend backend, ProblemQuery problems);
 
+    /**
+     * Limits generation to the {@link ICompilationUnit}s of the given source
+     * files, the existing output of all other units is kept.
+     * 
+     * @param paths The absolute paths of the source files to generate,
+     * <code>null</code> generates all units.
+     */
+    void setDirtyFiles(Set<String> paths);
+
+    /**
+     * Sets the types whose source files were removed, the files generated
+     * for them are deleted.
+     * 
+     * @param qualifiedNames The qualified names of the removed types,
+     * <code>null</code> when none were removed.
+     */
+    void setRemovedTypes(Set<String> qualifiedNames);
+
 }
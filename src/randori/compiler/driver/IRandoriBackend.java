@@ -19,6 +19,10 @@
 
 package randori.compiler.driver;
 
+import randori.compiler.config.IRandoriTargetSettings;
+import randori.compiler.internal.metrics.CompilerMetrics;
+import randori.compiler.internal.utils.MetaDataIndex;
+
 /**
  * The {@link IRandoriBackend} API allows clients of the compiler such as the
  * {@link IRandoriApplication} access to factory methods to create emitters,
@@ -28,5 +32,43 @@ package randori.compiler.driver;
  */
 public interface IRandoriBackend extends IBackend
 {
+    /**
+     * Returns the settings of the current compile or <code>null</code>.
+     */
+    IRandoriTargetSettings getSettings();
+
+    /**
+     * Sets the settings the emitters created by this backend generate with.
+     * 
+     * @param settings The settings of the current compile.
+     */
+    void setSettings(IRandoriTargetSettings settings);
+
+    /**
+     * Returns the metrics of the current compile, never <code>null</code>.
+     */
+    CompilerMetrics getMetrics();
+
+    /**
+     * Sets the metrics the targets and emitters created by this backend
+     * record into.
+     * 
+     * @param metrics The metrics of the current compile, <code>null</code>
+     * records nothing.
+     */
+    void setMetrics(CompilerMetrics metrics);
+
+    /**
+     * Returns the metadata index of the current build or <code>null</code>.
+     */
+    MetaDataIndex getMetaDataIndex();
 
+    /**
+     * Sets the metadata index handed to the session model of each emitter
+     * created by this backend.
+     * 
+     * @param index The index of the current build, <code>null</code> once the
+     * build is done.
+     */
+    void setMetaDataIndex(MetaDataIndex index);
 }
@@ -177,15 +177,43 @@ public class ASEmitter implements IASEmitter, IEmitter
         problems = new ArrayList<ICompilerProblem>();
     }
 
+    private boolean compact;
+
+    /**
+     * Returns whether whitespace is collapsed to the minimum the output needs.
+     */
+    protected boolean isCompact()
+    {
+        return compact;
+    }
+
+    /**
+     * Sets whether indents are dropped, runs of whitespace collapsed to the
+     * spaces needed to separate tokens and blank lines removed.
+     * <p>
+     * Line breaks are kept so the output never depends on semicolon
+     * insertion rules differing from the formatted source.
+     */
+    protected void setCompact(boolean value)
+    {
+        compact = value;
+    }
+
+    private char lastChar = '\n';
+
+    private boolean pendingSpace;
+
     @Override
     public void write(String value)
     {
         try
         {
-            if (!bufferWrite)
-                out.write(value);
-            else
+            if (bufferWrite)
                 builder.append(value);
+            else if (compact)
+                writeCompact(value);
+            else
+                out.write(value);
         }
         catch (IOException e)
         {
@@ -193,8 +221,59 @@ public class ASEmitter implements IASEmitter, IEmitter
         }
     }
 
+    private void writeCompact(String value) throws IOException
+    {
+        int start = 0;
+        int end = value.length();
+        while (start < end && isBlank(value.charAt(start)))
+            start++;
+        while (end > start && isBlank(value.charAt(end - 1)))
+            end--;
+
+        if (start > 0)
+            pendingSpace = true;
+        if (start == end)
+            return;
+
+        char first = value.charAt(start);
+        if (pendingSpace && needsSpace(lastChar, first))
+            out.write(" ");
+
+        out.write(value, start, end - start);
+        lastChar = value.charAt(end - 1);
+        pendingSpace = end < value.length();
+    }
+
+    private static boolean isBlank(char c)
+    {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * Returns whether the two characters would merge into another token if
+     * the space between them was removed.
+     */
+    private static boolean needsSpace(char last, char first)
+    {
+        if (Character.isJavaIdentifierPart(last)
+                && Character.isJavaIdentifierPart(first))
+            return true;
+        if ((last == '+' || last == '-') && (first == '+' || first == '-'))
+            return true;
+        // a regular expression's flags, /a/ instanceof
+        if (last == '/' && (first == '/' || first == '*'
+                || Character.isJavaIdentifierPart(first)))
+            return true;
+        if (last == '<' && first == '!')
+            return true;
+        return Character.isDigit(last) && first == '.';
+    }
+
     protected String getIndent(int numIndent)
     {
+        if (compact)
+            return "";
+
         final StringBuilder sb = new StringBuilder();
         for (int i = 0; i < numIndent; i++)
             sb.append("\t");
@@ -216,6 +295,23 @@ public class ASEmitter implements IASEmitter, IEmitter
     @Override
     public void writeNewline()
     {
+        if (compact && !bufferWrite)
+        {
+            pendingSpace = false;
+            if (lastChar == '\n')
+                return;
+            try
+            {
+                out.write("\n");
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+            lastChar = '\n';
+            return;
+        }
+
         write("\n");
         write(getIndent(currentIndent));
     }
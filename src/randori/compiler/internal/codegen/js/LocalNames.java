@@ -0,0 +1,228 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.codegen.js;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.flex.compiler.definitions.IDefinition;
+import org.apache.flex.compiler.definitions.IFunctionDefinition;
+import org.apache.flex.compiler.definitions.IParameterDefinition;
+import org.apache.flex.compiler.definitions.IVariableDefinition;
+import org.apache.flex.compiler.tree.as.IASNode;
+import org.apache.flex.compiler.tree.as.IFunctionNode;
+import org.apache.flex.compiler.tree.as.IIdentifierNode;
+import org.apache.flex.compiler.tree.as.IObjectLiteralValuePairNode;
+import org.apache.flex.compiler.tree.as.IVariableNode;
+import org.apache.flex.compiler.tree.as.IWithNode;
+
+import randori.compiler.codegen.js.IRandoriEmitter;
+import randori.compiler.internal.utils.MetaDataUtils;
+
+/**
+ * Assigns short names to the local variables and parameters of the functions
+ * an emitter generates.
+ * <p>
+ * Names are assigned per outermost function, every local of the same name in
+ * the function and its closures gets the same short name so shadowing is
+ * kept. A function that uses <code>with</code> or <code>eval</code>, or has
+ * <code>[JavaScriptCode]</code>, keeps all of its names. The class aliases
+ * of {@link IRandoriEmitter} are never assigned.
+ * <p>
+ * Without minification only the locals named like a class alias are renamed,
+ * so they don't shadow the aliases.
+ * 
+ * @author Michael Schmalle
+ */
+public class LocalNames
+{
+    private static final String PREFIX = "$";
+
+    private static final String EVAL = "eval";
+
+    private static final List<String> RESERVED = Arrays.asList(
+            IRandoriEmitter.CLASS_ALIAS, IRandoriEmitter.PROTOTYPE_ALIAS,
+            IRandoriEmitter.SUPER_ALIAS);
+
+    private final Map<IFunctionNode, Scope> scopes = new IdentityHashMap<IFunctionNode, Scope>();
+
+    private final boolean minify;
+
+    /**
+     * @param minify Whether all locals get short names, otherwise only the
+     * locals named like a class alias are renamed.
+     */
+    public LocalNames(boolean minify)
+    {
+        this.minify = minify;
+    }
+
+    /**
+     * Returns the short name of a local identifier, <code>null</code> when
+     * the identifier keeps its name.
+     * 
+     * @param node The identifier being emitted.
+     * @param definition The identifier's resolved definition.
+     */
+    public String getName(IIdentifierNode node, IDefinition definition)
+    {
+        IASNode parent = node.getParent();
+        if (parent instanceof IVariableNode
+                && ((IVariableNode) parent).getNameExpressionNode() == node)
+            definition = ((IVariableNode) parent).getDefinition();
+
+        if (!isLocal(definition))
+            return null;
+
+        if (parent instanceof IObjectLiteralValuePairNode
+                && ((IObjectLiteralValuePairNode) parent).getNameNode() == node)
+            return null;
+
+        IFunctionNode function = getOuterFunction(node);
+        if (function == null)
+            return null;
+
+        return getScope(function).getName(definition.getBaseName());
+    }
+
+    /**
+     * Returns whether the outermost function keeps its names and uses the
+     * name of a class alias, the aliases can't be used in the function.
+     * 
+     * @param function An outermost function with a parsed body.
+     */
+    public boolean keepsAliasName(IFunctionNode function)
+    {
+        Scope scope = getScope(function);
+        if (!scope.preserved)
+            return false;
+        for (String name : RESERVED)
+        {
+            if (scope.used.contains(name))
+                return true;
+        }
+        return false;
+    }
+
+    private Scope getScope(IFunctionNode function)
+    {
+        Scope scope = scopes.get(function);
+        if (scope == null)
+        {
+            scope = new Scope(function, minify);
+            scopes.put(function, scope);
+        }
+        return scope;
+    }
+
+    private static boolean isLocal(IDefinition definition)
+    {
+        if (!(definition instanceof IVariableDefinition))
+            return false;
+        if (!(definition.getParent() instanceof IFunctionDefinition))
+            return false;
+        return !(definition instanceof IParameterDefinition && ((IParameterDefinition) definition)
+                .isRest());
+    }
+
+    private static IFunctionNode getOuterFunction(IASNode node)
+    {
+        IFunctionNode result = null;
+        IASNode parent = node.getParent();
+        while (parent != null)
+        {
+            if (parent instanceof IFunctionNode)
+                result = (IFunctionNode) parent;
+            parent = parent.getParent();
+        }
+        return result;
+    }
+
+    /**
+     * The names assigned within one outermost function.
+     */
+    private static class Scope
+    {
+        private final Map<String, String> names = new HashMap<String, String>();
+
+        private final Set<String> used = new HashSet<String>();
+
+        private final boolean minify;
+
+        private boolean preserved;
+
+        private int count;
+
+        Scope(IFunctionNode function, boolean minify)
+        {
+            this.minify = minify;
+            IFunctionDefinition definition = function.getDefinition();
+            preserved = definition != null
+                    && MetaDataUtils.hasJavaScriptCode(definition);
+            if (!preserved)
+                collect(function);
+        }
+
+        String getName(String name)
+        {
+            if (preserved || !(minify || RESERVED.contains(name)))
+                return null;
+
+            String result = names.get(name);
+            if (result == null)
+            {
+                String prefix = minify ? PREFIX : name + "_";
+                do
+                {
+                    result = prefix + Integer.toString(count++, 36);
+                }
+                while (used.contains(result) || RESERVED.contains(result));
+                names.put(name, result);
+            }
+            return result;
+        }
+
+        private void collect(IASNode node)
+        {
+            int len = node.getChildCount();
+            for (int i = 0; i < len && !preserved; i++)
+            {
+                IASNode child = node.getChild(i);
+                if (child instanceof IWithNode)
+                {
+                    preserved = true;
+                }
+                else if (child instanceof IIdentifierNode)
+                {
+                    String name = ((IIdentifierNode) child).getName();
+                    if (name.equals(EVAL))
+                        preserved = true;
+                    used.add(name);
+                }
+                collect(child);
+            }
+        }
+    }
+}
@@ -23,9 +23,11 @@ import java.io.FilterWriter;
 import java.util.List;
 
 import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.flex.compiler.definitions.IClassDefinition;
 import org.apache.flex.compiler.definitions.IDefinition;
 import org.apache.flex.compiler.definitions.IFunctionDefinition;
 import org.apache.flex.compiler.definitions.IPackageDefinition;
+import org.apache.flex.compiler.definitions.ITypeDefinition;
 import org.apache.flex.compiler.internal.tree.as.FunctionNode;
 import org.apache.flex.compiler.internal.tree.as.FunctionObjectNode;
 import org.apache.flex.compiler.problems.ICompilerProblem;
@@ -52,6 +54,7 @@ import org.apache.flex.compiler.tree.as.IVariableNode;
 
 import randori.compiler.codegen.js.IRandoriEmitter;
 import randori.compiler.codegen.js.ISessionModel;
+import randori.compiler.config.IRandoriTargetSettings;
 import randori.compiler.internal.codegen.js.emitter.BinaryOperatorEmitter;
 import randori.compiler.internal.codegen.js.emitter.DynamicAccessEmitter;
 import randori.compiler.internal.codegen.js.emitter.FieldEmitter;
@@ -61,7 +64,9 @@ import randori.compiler.internal.codegen.js.emitter.HeaderEmitter;
 import randori.compiler.internal.codegen.js.emitter.IdentifierEmitter;
 import randori.compiler.internal.codegen.js.emitter.MemberAccessExpressionEmitter;
 import randori.compiler.internal.codegen.js.emitter.MethodEmitter;
+import randori.compiler.internal.metrics.CompilerMetrics;
 import randori.compiler.internal.utils.DefinitionUtils;
+import randori.compiler.internal.utils.MetaDataIndex;
 import randori.compiler.internal.utils.MetaDataUtils;
 
 /**
@@ -92,6 +97,40 @@ public class RandoriEmitter extends JSEmitter implements IRandoriEmitter
         return model;
     }
 
+    //----------------------------------
+    // settings
+    //----------------------------------
+
+    private final IRandoriTargetSettings settings;
+
+    @Override
+    public IRandoriTargetSettings getSettings()
+    {
+        return settings;
+    }
+
+    private final LocalNames localNames;
+
+    //----------------------------------
+    // alias
+    //----------------------------------
+
+    private IClassDefinition aliasType;
+
+    private IClassDefinition aliasBase;
+
+    @Override
+    public String getAlias(ITypeDefinition type, boolean prototype)
+    {
+        if (aliasType == null || type == null)
+            return null;
+        if (type == aliasType)
+            return prototype ? PROTOTYPE_ALIAS : CLASS_ALIAS;
+        if (prototype && type == aliasBase)
+            return SUPER_ALIAS;
+        return null;
+    }
+
     //--------------------------------------------------------------------------
     // Emitters
     //--------------------------------------------------------------------------
@@ -119,10 +158,27 @@ public class RandoriEmitter extends JSEmitter implements IRandoriEmitter
     //--------------------------------------------------------------------------
 
     public RandoriEmitter(FilterWriter out)
+    {
+        this(out, null);
+    }
+
+    public RandoriEmitter(FilterWriter out, IRandoriTargetSettings settings)
+    {
+        this(out, settings, CompilerMetrics.DISABLED, null);
+    }
+
+    public RandoriEmitter(FilterWriter out, IRandoriTargetSettings settings,
+            CompilerMetrics metrics, MetaDataIndex metaDataIndex)
     {
         super(out);
 
-        model = new SessionModel();
+        this.settings = settings;
+        model = new SessionModel(metrics, metaDataIndex);
+
+        boolean minify = settings != null && settings.getJsMinify();
+        boolean alias = settings != null && settings.getJsPrototypeAlias();
+        setCompact(minify);
+        localNames = minify || alias ? new LocalNames(minify) : null;
 
         createEmitters();
     }
@@ -164,7 +220,8 @@ public class RandoriEmitter extends JSEmitter implements IRandoriEmitter
     {
         IPackageNode node = definition.getNode();
         ITypeNode tnode = findTypeNode(node);
-        if (!MetaDataUtils.isGlobal((IClassNode) tnode))
+        if (!MetaDataUtils.isGlobal((IClassNode) tnode,
+                model.getMetaDataIndex()))
         {
             header.emit(definition);
         }
@@ -189,7 +246,7 @@ public class RandoriEmitter extends JSEmitter implements IRandoriEmitter
         if (node == null)
             return; // temp because of unit tests
 
-        if (!MetaDataUtils.isGlobal((IClassNode) node))
+        if (!MetaDataUtils.isGlobal(node, model.getMetaDataIndex()))
         {
             footer.emit(node);
         }
@@ -202,10 +259,13 @@ public class RandoriEmitter extends JSEmitter implements IRandoriEmitter
         final IDefinitionNode[] members = node.getAllMemberNodes();
         if (members.length > 0)
         {
-            if (!MetaDataUtils.isGlobal(node))
+            if (!MetaDataUtils.isGlobal(node, model.getMetaDataIndex()))
             {
                 IFunctionDefinition constructor = node.getDefinition()
                         .getConstructor();
+                if (isPrototypeAlias(node, constructor))
+                    beginAliases(node.getDefinition());
+
                 IFunctionNode cnode = (IFunctionNode) constructor.getNode();
                 if (cnode != null)
                 {
@@ -217,6 +277,9 @@ public class RandoriEmitter extends JSEmitter implements IRandoriEmitter
                 }
 
                 writeNewline(";");
+
+                if (aliasType != null)
+                    emitAliases();
             }
         }
 
@@ -278,6 +341,70 @@ public class RandoriEmitter extends JSEmitter implements IRandoriEmitter
                 i++;
             }
         }
+
+        if (aliasType != null)
+        {
+            aliasType = null;
+            aliasBase = null;
+            writeNewline();
+            writeNewline("})();");
+        }
+    }
+
+    private boolean isPrototypeAlias(IClassNode node,
+            IFunctionDefinition constructor)
+    {
+        if (settings == null || !settings.getJsPrototypeAlias())
+            return false;
+        // a proto exported constructor is not the class's function
+        if (MetaDataUtils.isProtoExport(constructor, model.getMetaDataIndex()))
+            return false;
+
+        // a local that can't be renamed would shadow an alias
+        for (IDefinitionNode member : node.getAllMemberNodes())
+        {
+            if (member instanceof FunctionNode)
+            {
+                FunctionNode function = (FunctionNode) member;
+                function.parseFunctionBody(getProblems());
+                if (localNames.keepsAliasName(function))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Opens the class's closure and binds the class alias to the constructor
+     * that follows.
+     */
+    private void beginAliases(IClassDefinition definition)
+    {
+        aliasType = definition;
+
+        IClassDefinition base = definition.resolveBaseClass(getWalker()
+                .getProject());
+        if (base != null && !base.getBaseName().equals("Object"))
+            aliasBase = base;
+
+        writeNewline("(function() {");
+        write("var " + CLASS_ALIAS + " = ");
+    }
+
+    /**
+     * Binds the class's prototype and the prototype of a base class that the
+     * footer inherits from, the base class is loaded before the class since
+     * <code>$inherit</code> needs it.
+     */
+    private void emitAliases()
+    {
+        writeNewline("var " + PROTOTYPE_ALIAS + " = " + CLASS_ALIAS
+                + ".prototype;");
+        if (aliasBase != null)
+        {
+            writeNewline("var " + SUPER_ALIAS + " = "
+                    + aliasBase.getQualifiedName() + ".prototype;");
+        }
     }
 
     @Override
@@ -385,6 +512,14 @@ public class RandoriEmitter extends JSEmitter implements IRandoriEmitter
         identifier.emit(node);
     }
 
+    @Override
+    public String getLocalName(IIdentifierNode node, IDefinition definition)
+    {
+        if (localNames == null)
+            return null;
+        return localNames.getName(node, definition);
+    }
+
     @Override
     protected void emitType(IExpressionNode node)
     {
@@ -19,10 +19,14 @@
 
 package randori.compiler.internal.codegen.js;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.Date;
 import java.util.List;
 
@@ -43,6 +47,7 @@ import randori.compiler.visitor.as.IASBlockWalker;
  */
 public class RandoriWriter implements IJSWriter
 {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     private IASProject project;
 
@@ -92,15 +97,15 @@ public class RandoriWriter implements IJSWriter
             throw new RuntimeException("Problems during build");
         }
 
-        String result = writer.toString();
-
-        result = "/** Compiled by the Randori compiler v"
-                + VersionInfo.getCompilerVersion() + " on "
-                + new Date().toString() + " */\n\n" + result;
-
         try
         {
-            out.write(result.getBytes());
+            Writer output = new BufferedWriter(new OutputStreamWriter(out,
+                    UTF_8));
+            output.write("/** Compiled by the Randori compiler v"
+                    + VersionInfo.getCompilerVersion() + " on "
+                    + new Date().toString() + " */\n\n");
+            output.write(writer.toString());
+            output.flush();
         }
         catch (IOException e)
         {
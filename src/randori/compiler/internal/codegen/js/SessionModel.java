@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 import org.apache.flex.compiler.definitions.IDefinition;
@@ -30,8 +31,13 @@ import org.apache.flex.compiler.definitions.IFunctionDefinition;
 import org.apache.flex.compiler.definitions.ITypeDefinition;
 import org.apache.flex.compiler.definitions.IVariableDefinition;
 import org.apache.flex.compiler.definitions.metadata.IMetaTag;
+import org.apache.flex.compiler.projects.ICompilerProject;
+import org.apache.flex.compiler.tree.as.IExpressionNode;
+import org.apache.flex.compiler.tree.as.IFunctionCallNode;
 
 import randori.compiler.codegen.js.ISessionModel;
+import randori.compiler.internal.metrics.CompilerMetrics;
+import randori.compiler.internal.utils.MetaDataIndex;
 import randori.compiler.internal.utils.MetaDataUtils;
 import randori.compiler.internal.utils.MetaDataUtils.MetaData;
 
@@ -50,6 +56,31 @@ public class SessionModel implements ISessionModel
 
     private List<IMetaTag> viewInjectTags = new ArrayList<IMetaTag>();
 
+    private IdentityHashMap<IExpressionNode, IDefinition> resolved = new IdentityHashMap<IExpressionNode, IDefinition>();
+
+    private IdentityHashMap<IFunctionCallNode, IDefinition> resolvedCalls = new IdentityHashMap<IFunctionCallNode, IDefinition>();
+
+    private final CompilerMetrics metrics;
+
+    private final MetaDataIndex metaDataIndex;
+
+    public SessionModel()
+    {
+        this(CompilerMetrics.DISABLED, null);
+    }
+
+    /**
+     * @param metrics The metrics of the compile the resolutions are counted
+     * in.
+     * @param metaDataIndex The metadata index of the build or
+     * <code>null</code>.
+     */
+    public SessionModel(CompilerMetrics metrics, MetaDataIndex metaDataIndex)
+    {
+        this.metrics = metrics;
+        this.metaDataIndex = metaDataIndex;
+    }
+
     private boolean inAssignment;
 
     @Override
@@ -88,7 +119,7 @@ public class SessionModel implements ISessionModel
             return;
 
         // if this class is considered native, pass
-        if (MetaDataUtils.isNative(definition))
+        if (MetaDataUtils.isNative(definition, metaDataIndex))
             return;
 
         // if this class has export="false" pass
@@ -102,7 +133,8 @@ public class SessionModel implements ISessionModel
 
     private boolean isExport(ITypeDefinition definition)
     {
-        IMetaTag tag = MetaDataUtils.findTag(definition, MetaData.JavaScript);
+        IMetaTag tag = MetaDataUtils.findTag(definition, MetaData.JavaScript,
+                metaDataIndex);
         if (tag != null)
         {
             // only if the tag has export="false" will we return false
@@ -144,7 +176,7 @@ public class SessionModel implements ISessionModel
 
     public void addInjection(IDefinition definition)
     {
-        IMetaTag tag = MetaDataUtils.getInjectTag(definition);
+        IMetaTag tag = MetaDataUtils.getInjectTag(definition, metaDataIndex);
         if (tag == null)
             return;
 
@@ -162,7 +194,7 @@ public class SessionModel implements ISessionModel
 
     public void addViewInjection(IDefinition definition)
     {
-        IMetaTag tag = MetaDataUtils.getViewTag(definition);
+        IMetaTag tag = MetaDataUtils.getViewTag(definition, metaDataIndex);
         if (tag == null)
             return;
 
@@ -173,4 +205,39 @@ public class SessionModel implements ISessionModel
                 viewInjectTags.add(tag);
         }
     }
+
+    //--------------------------------------------------------------------------
+    // Resolution
+    //--------------------------------------------------------------------------
+
+    @Override
+    public IDefinition resolve(IExpressionNode node, ICompilerProject project)
+    {
+        if (resolved.containsKey(node))
+            return resolved.get(node);
+
+        metrics.incrementResolves();
+        IDefinition definition = node.resolve(project);
+        resolved.put(node, definition);
+        return definition;
+    }
+
+    @Override
+    public IDefinition resolveCalledExpression(IFunctionCallNode node,
+            ICompilerProject project)
+    {
+        if (resolvedCalls.containsKey(node))
+            return resolvedCalls.get(node);
+
+        metrics.incrementResolves();
+        IDefinition definition = node.resolveCalledExpression(project);
+        resolvedCalls.put(node, definition);
+        return definition;
+    }
+
+    @Override
+    public MetaDataIndex getMetaDataIndex()
+    {
+        return metaDataIndex;
+    }
 }
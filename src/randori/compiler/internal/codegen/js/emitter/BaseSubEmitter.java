@@ -21,9 +21,12 @@ package randori.compiler.internal.codegen.js.emitter;
 
 import org.apache.flex.compiler.definitions.IDefinition;
 import org.apache.flex.compiler.projects.ICompilerProject;
+import org.apache.flex.compiler.tree.as.IExpressionNode;
+import org.apache.flex.compiler.tree.as.IFunctionCallNode;
 
 import randori.compiler.codegen.js.IRandoriEmitter;
 import randori.compiler.codegen.js.ISessionModel;
+import randori.compiler.internal.utils.MetaDataIndex;
 import randori.compiler.internal.utils.MetaDataUtils;
 import randori.compiler.visitor.as.IASBlockWalker;
 
@@ -63,6 +66,14 @@ public abstract class BaseSubEmitter
         return emitter.getModel();
     }
 
+    /**
+     * Returns the metadata index of the session's build or <code>null</code>.
+     */
+    protected final MetaDataIndex getMetaDataIndex()
+    {
+        return emitter.getModel().getMetaDataIndex();
+    }
+
     //    protected void write(ASEmitterTokens value)
     //    {
     //        emitter.write(value);
@@ -108,9 +119,32 @@ public abstract class BaseSubEmitter
         emitter.indentPop();
     }
 
+    /**
+     * Resolves the expression's definition through the session's model, so
+     * each node is resolved once per emit.
+     * 
+     * @param node The expression to resolve.
+     * @return The resolved definition or <code>null</code>.
+     */
+    protected IDefinition resolve(IExpressionNode node)
+    {
+        return getModel().resolve(node, getProject());
+    }
+
+    /**
+     * Resolves the called expression of a function call.
+     * 
+     * @param node The function call to resolve.
+     * @return The resolved definition or <code>null</code>.
+     */
+    protected IDefinition resolveCalledExpression(IFunctionCallNode node)
+    {
+        return getModel().resolveCalledExpression(node, getProject());
+    }
+
     protected void writeIfNotNative(String value, IDefinition definition)
     {
-        if (!MetaDataUtils.isNative(definition))
+        if (!MetaDataUtils.isNative(definition, getMetaDataIndex()))
             emitter.write(value);
     }
 
@@ -22,7 +22,6 @@ package randori.compiler.internal.codegen.js.emitter;
 import org.apache.flex.compiler.definitions.IAccessorDefinition;
 import org.apache.flex.compiler.definitions.IDefinition;
 import org.apache.flex.compiler.internal.tree.as.BinaryOperatorAssignmentNode;
-import org.apache.flex.compiler.projects.ICompilerProject;
 import org.apache.flex.compiler.tree.ASTNodeID;
 import org.apache.flex.compiler.tree.as.IBinaryOperatorNode;
 import org.apache.flex.compiler.tree.as.IExpressionNode;
@@ -50,13 +49,11 @@ public class BinaryOperatorEmitter extends BaseSubEmitter implements
     @Override
     public void emit(IBinaryOperatorNode node)
     {
-        ICompilerProject project = getEmitter().getWalker().getProject();
-
         IExpressionNode left = node.getLeftOperandNode();
-        IDefinition leftDefinition = left.resolve(project);
+        IDefinition leftDefinition = resolve(left);
 
         IExpressionNode right = node.getRightOperandNode();
-        IDefinition rightDefinition = right.resolve(project);
+        IDefinition rightDefinition = resolve(right);
 
         // XXX Added see if this causes problems
         if (ASNodeUtils.hasParenOpen(node))
@@ -67,7 +64,7 @@ public class BinaryOperatorEmitter extends BaseSubEmitter implements
 
         getEmitter().getWalker().walk(left);
 
-        if (!MetaDataUtils.isNative(leftDefinition)
+        if (!MetaDataUtils.isNative(leftDefinition, getMetaDataIndex())
                 && getModel().isInAssignment()
                 && leftDefinition instanceof IAccessorDefinition)
         {
@@ -100,7 +97,8 @@ public class BinaryOperatorEmitter extends BaseSubEmitter implements
             writeIfNotNative("()", rightDefinition);
         }
 
-        if (!MetaDataUtils.isNative(leftDefinition) && wasAssignment
+        if (!MetaDataUtils.isNative(leftDefinition, getMetaDataIndex())
+                && wasAssignment
                 && leftDefinition instanceof IAccessorDefinition)
         {
             writeIfNotNative(")", leftDefinition);
@@ -21,7 +21,6 @@ package randori.compiler.internal.codegen.js.emitter;
 
 import org.apache.flex.compiler.definitions.IAccessorDefinition;
 import org.apache.flex.compiler.definitions.IDefinition;
-import org.apache.flex.compiler.projects.ICompilerProject;
 import org.apache.flex.compiler.tree.as.IDynamicAccessNode;
 import org.apache.flex.compiler.tree.as.IExpressionNode;
 
@@ -45,13 +44,11 @@ public class DynamicAccessEmitter extends BaseSubEmitter implements
     @Override
     public void emit(IDynamicAccessNode node)
     {
-        ICompilerProject project = getEmitter().getWalker().getProject();
-
         IExpressionNode left = node.getLeftOperandNode();
-        IDefinition leftDef = left.resolve(project);
+        IDefinition leftDef = resolve(left);
 
         IExpressionNode right = node.getRightOperandNode();
-        IDefinition rightDef = right.resolve(project);
+        IDefinition rightDef = resolve(right);
 
         getModel().setInAssignment(false);
 
@@ -0,0 +1,376 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.codegen.js.emitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.flex.compiler.definitions.IAccessorDefinition;
+import org.apache.flex.compiler.definitions.IClassDefinition;
+import org.apache.flex.compiler.definitions.IDefinition;
+import org.apache.flex.compiler.definitions.IFunctionDefinition;
+import org.apache.flex.compiler.definitions.IInterfaceDefinition;
+import org.apache.flex.compiler.definitions.IParameterDefinition;
+import org.apache.flex.compiler.definitions.ITypeDefinition;
+import org.apache.flex.compiler.definitions.IVariableDefinition;
+import org.apache.flex.compiler.definitions.metadata.IMetaTag;
+import org.apache.flex.compiler.tree.as.IClassNode;
+import org.apache.flex.compiler.tree.as.IVariableNode;
+
+import randori.compiler.codegen.js.IRandoriEmitter;
+import randori.compiler.codegen.js.ISubEmitter;
+import randori.compiler.internal.utils.MetaDataUtils;
+import randori.compiler.problems.InjectionCycleProblem;
+
+/**
+ * Handles the production of a class's <code>$factory(injector)</code>
+ * function, which creates and injects an instance with straight line code
+ * instead of the injector walking the class's injection points.
+ * <p>
+ * Dependencies are still requested from the injector with
+ * <code>getInstance()</code> so the bindings and scopes of the application's
+ * modules apply. A class only gets a factory when every constructor parameter
+ * and every injected member of it and it's base classes has a non native
+ * class or interface type, no injected constructor or method has an optional
+ * or rest parameter, it has no <code>[View]</code> injections and it's
+ * constructor is not part of an injection cycle.
+ * <p>
+ * <code>getInstance()</code> always resolves, a member declared
+ * <code>[Inject(required="false")]</code> or with an initial value would
+ * lose the injector's fallback to that value, such classes keep the injector's
+ * reflective path.
+ * 
+ * @author Michael Schmalle
+ */
+public class FactoryEmitter extends BaseSubEmitter implements
+        ISubEmitter<IClassNode>
+{
+    private static final String FACTORY_NAME = "$factory";
+
+    private static final String INJECTOR = "i";
+
+    private static final String INSTANCE = "o";
+
+    private static final String GET_INSTANCE = ".getInstance(";
+
+    private static final Comparator<IDefinition> BY_NAME = new Comparator<IDefinition>() {
+        @Override
+        public int compare(IDefinition o1, IDefinition o2)
+        {
+            return o1.getBaseName().compareTo(o2.getBaseName());
+        }
+    };
+
+    public FactoryEmitter(IRandoriEmitter emitter)
+    {
+        super(emitter);
+    }
+
+    @Override
+    public void emit(IClassNode node)
+    {
+        // foo.bar.Baz.$factory = function(i) {
+        //     var o = new foo.bar.Baz(i.getInstance(foo.A));
+        //     o.field = i.getInstance(foo.B);
+        //     o.method(i.getInstance(foo.C));
+        //     return o;
+        // };
+        IClassDefinition definition = node.getDefinition();
+        if (getModel().getViewInjections().size() > 0)
+            return;
+
+        List<IParameterDefinition> parameters = getConstructorParameters(definition);
+        if (parameters == null)
+            return;
+
+        List<IDefinition> members = getInjectedMembers(definition);
+        if (members == null)
+            return;
+
+        String cycle = findCycle(definition);
+        if (cycle != null)
+        {
+            getEmitter().getProblems().add(
+                    new InjectionCycleProblem(node, definition
+                            .getQualifiedName(), cycle));
+            return;
+        }
+
+        String qualifiedName = definition.getQualifiedName();
+        write(qualifiedName);
+        writeNewline("." + FACTORY_NAME + " = function(" + INJECTOR + ") {",
+                true);
+        write("var " + INSTANCE + " = new " + qualifiedName + "(");
+        emitArguments(parameters);
+        writeNewline(");");
+
+        for (IDefinition member : members)
+        {
+            emitMember(member);
+        }
+
+        writeNewline("return " + INSTANCE + ";", false);
+        writeNewline("};");
+        writeNewline();
+    }
+
+    private void emitMember(IDefinition member)
+    {
+        write(INSTANCE + ".");
+        if (member instanceof IAccessorDefinition
+                && !MetaDataUtils.isNative(member, getMetaDataIndex()))
+        {
+            IAccessorDefinition accessor = (IAccessorDefinition) member;
+            write("set_"
+                    + MetaDataUtils.getAccessorName(accessor, getProject())
+                    + "(");
+            emitInstance(accessor.resolveType(getProject()));
+            writeNewline(");");
+        }
+        else if (member instanceof IVariableDefinition)
+        {
+            IVariableDefinition variable = (IVariableDefinition) member;
+            write(variable.getBaseName() + " = ");
+            emitInstance(variable.resolveType(getProject()));
+            writeNewline(";");
+        }
+        else
+        {
+            IFunctionDefinition function = (IFunctionDefinition) member;
+            write(MetaDataUtils.getFunctionName(function) + "(");
+            emitArguments(getInjectedParameters(function));
+            writeNewline(");");
+        }
+    }
+
+    private void emitArguments(List<IParameterDefinition> parameters)
+    {
+        int i = 0;
+        for (IParameterDefinition parameter : parameters)
+        {
+            if (i > 0)
+                write(", ");
+            emitInstance(parameter.resolveType(getProject()));
+            i++;
+        }
+    }
+
+    private void emitInstance(ITypeDefinition type)
+    {
+        write(INJECTOR + GET_INSTANCE + type.getQualifiedName() + ")");
+    }
+
+    /**
+     * Returns the parameters the factory passes to the constructor,
+     * <code>null</code> when one isn't injectable or the constructor is
+     * inherited with parameters.
+     */
+    private List<IParameterDefinition> getConstructorParameters(
+            IClassDefinition definition)
+    {
+        IFunctionDefinition constructor = definition.getConstructor();
+        if (constructor == null)
+            return null;
+        if (constructor.isImplicit()
+                && constructor.getParameters().length > 0)
+            return null;
+        return getInjectedParameters(constructor);
+    }
+
+    /**
+     * Returns the parameters, <code>null</code> when one of them isn't
+     * injectable or is optional or a rest parameter, the injector's
+     * reflective path resolves those.
+     */
+    private List<IParameterDefinition> getInjectedParameters(
+            IFunctionDefinition function)
+    {
+        List<IParameterDefinition> result = new ArrayList<IParameterDefinition>();
+        for (IParameterDefinition parameter : function.getParameters())
+        {
+            if (parameter.isRest() || parameter.hasDefaultValue())
+                return null;
+            if (!isInjectable(parameter.resolveType(getProject())))
+                return null;
+            result.add(parameter);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the injected members of the class and it's base classes, base
+     * class members first, <code>null</code> when one of them isn't
+     * injectable.
+     */
+    private List<IDefinition> getInjectedMembers(IClassDefinition definition)
+    {
+        LinkedList<IClassDefinition> hierarchy = new LinkedList<IClassDefinition>();
+        IClassDefinition base = definition.resolveBaseClass(getProject());
+        while (base != null && !base.getBaseName().equals("Object")
+                && !MetaDataUtils.isNative(base, getMetaDataIndex()))
+        {
+            hierarchy.addFirst(base);
+            base = base.resolveBaseClass(getProject());
+        }
+
+        List<IDefinition> result = new ArrayList<IDefinition>();
+        for (IClassDefinition type : hierarchy)
+        {
+            List<IDefinition> members = new ArrayList<IDefinition>();
+            for (IDefinition member : type.getContainedScope()
+                    .getAllLocalDefinitions())
+            {
+                if (!member.isStatic()
+                        && MetaDataUtils.getInjectTag(member,
+                                getMetaDataIndex()) != null)
+                    members.add(member);
+            }
+            Collections.sort(members, BY_NAME);
+            addMembers(result, members, false);
+            addMembers(result, members, true);
+        }
+
+        addTags(result, getModel().getPropertyInjections());
+        addTags(result, getModel().getMethodInjections());
+
+        for (IDefinition member : result)
+        {
+            if (!isRequired(member))
+                return null;
+
+            if (member instanceof IVariableDefinition)
+            {
+                if (!isInjectable(((IVariableDefinition) member)
+                        .resolveType(getProject())))
+                    return null;
+            }
+            else if (getInjectedParameters((IFunctionDefinition) member) == null)
+            {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private static void addMembers(List<IDefinition> result,
+            List<IDefinition> members, boolean methods)
+    {
+        for (IDefinition member : members)
+        {
+            if ((member instanceof IVariableDefinition) != methods)
+                result.add(member);
+        }
+    }
+
+    private static void addTags(List<IDefinition> result,
+            Collection<IMetaTag> tags)
+    {
+        for (IMetaTag tag : tags)
+        {
+            result.add(tag.getDecoratedDefinition());
+        }
+    }
+
+    /**
+     * Returns whether the member is set from the injector without a fallback,
+     * an optional member or a field with an initial value has one.
+     */
+    private boolean isRequired(IDefinition member)
+    {
+        String required = MetaDataUtils.getInjectTag(member,
+                getMetaDataIndex()).getAttributeValue("required");
+        if (required != null && !required.equals("true"))
+            return false;
+
+        if (member instanceof IVariableDefinition
+                && !(member instanceof IAccessorDefinition))
+        {
+            IVariableNode node = (IVariableNode) member.getNode();
+            if (node != null && node.getAssignedValueNode() != null)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isInjectable(ITypeDefinition type)
+    {
+        if (!(type instanceof IClassDefinition || type instanceof IInterfaceDefinition))
+            return false;
+        if (type.getPackageName() == null || type.getPackageName().equals(""))
+            return false;
+        return !MetaDataUtils.isNative(type, getMetaDataIndex());
+    }
+
+    /**
+     * Returns the constructor dependency path leading back to the class,
+     * <code>null</code> when the class's constructor is not part of a cycle.
+     */
+    private String findCycle(IClassDefinition definition)
+    {
+        LinkedList<IClassDefinition> path = new LinkedList<IClassDefinition>();
+        if (!findCycle(definition, definition, path,
+                new HashSet<IClassDefinition>()))
+            return null;
+
+        StringBuilder sb = new StringBuilder();
+        for (IClassDefinition type : path)
+        {
+            if (sb.length() > 0)
+                sb.append(" -> ");
+            sb.append(type.getQualifiedName());
+        }
+        return sb.toString();
+    }
+
+    private boolean findCycle(IClassDefinition target,
+            IClassDefinition current, LinkedList<IClassDefinition> path,
+            Set<IClassDefinition> visited)
+    {
+        path.add(current);
+        IFunctionDefinition constructor = current.getConstructor();
+        if (constructor != null)
+        {
+            for (IParameterDefinition parameter : constructor.getParameters())
+            {
+                ITypeDefinition type = parameter.resolveType(getProject());
+                if (!(type instanceof IClassDefinition))
+                    continue;
+
+                IClassDefinition dependency = (IClassDefinition) type;
+                if (dependency == target)
+                {
+                    path.add(target);
+                    return true;
+                }
+                if (visited.add(dependency)
+                        && findCycle(target, dependency, path, visited))
+                    return true;
+            }
+        }
+        path.removeLast();
+        return false;
+    }
+}
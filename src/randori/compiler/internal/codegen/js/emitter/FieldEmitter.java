@@ -19,6 +19,7 @@
 
 package randori.compiler.internal.codegen.js.emitter;
 
+import org.apache.flex.compiler.definitions.ITypeDefinition;
 import org.apache.flex.compiler.definitions.IVariableDefinition;
 import org.apache.flex.compiler.tree.as.IExpressionNode;
 import org.apache.flex.compiler.tree.as.IVariableNode;
@@ -48,9 +49,17 @@ public class FieldEmitter extends BaseSubEmitter implements
         IVariableDefinition definition = (IVariableDefinition) node
                 .getDefinition();
 
-        String prefix = RandoriUtils.toFieldPrefix(definition, getWalker()
-                .getProject());
-        write(prefix);
+        String alias = getEmitter().getAlias(
+                (ITypeDefinition) definition.getParent(), false);
+        if (alias != null && definition.isStatic())
+        {
+            write(alias + "." + definition.getBaseName());
+        }
+        else
+        {
+            write(RandoriUtils.toFieldPrefix(definition, getWalker()
+                    .getProject()));
+        }
         emitAssignedValue(node.getAssignedValueNode());
     }
 
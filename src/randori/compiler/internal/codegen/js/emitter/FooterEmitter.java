@@ -28,10 +28,14 @@ import org.apache.flex.compiler.definitions.ITypeDefinition;
 import org.apache.flex.compiler.definitions.IVariableDefinition;
 import org.apache.flex.compiler.definitions.metadata.IMetaTag;
 import org.apache.flex.compiler.tree.as.IClassNode;
+import org.apache.flex.compiler.tree.as.IExpressionNode;
+import org.apache.flex.compiler.tree.as.ILiteralNode;
+import org.apache.flex.compiler.tree.as.ILiteralNode.LiteralType;
 import org.apache.flex.compiler.tree.as.IVariableNode;
 
 import randori.compiler.codegen.js.IRandoriEmitter;
 import randori.compiler.codegen.js.ISubEmitter;
+import randori.compiler.config.IRandoriTargetSettings;
 import randori.compiler.internal.utils.DefinitionUtils;
 import randori.compiler.internal.utils.MetaDataUtils;
 
@@ -47,6 +51,7 @@ import randori.compiler.internal.utils.MetaDataUtils;
  * <ul>
  * <li>Constructor, Field and Method Injection</li>
  * <li>View Injection</li>
+ * <li>Injection factories, see {@link FactoryEmitter}</li>
  * </ul>
  * 
  * @author Michael Schmalle
@@ -58,9 +63,18 @@ public class FooterEmitter extends BaseSubEmitter implements
 
     private static final String INHERIT_NAME = "$inherit";
 
+    private static final String DEPENDENCY_TABLE = "$classDependencies";
+
+    private static final String INJECTION_TABLE = "$injectionPoints";
+
+    private static final String FREEZE = "Object.freeze";
+
+    private final FactoryEmitter factory;
+
     public FooterEmitter(IRandoriEmitter emitter)
     {
         super(emitter);
+        factory = new FactoryEmitter(emitter);
     }
 
     @Override
@@ -68,8 +82,19 @@ public class FooterEmitter extends BaseSubEmitter implements
     {
         emitInherit(node);
         emitClassName(node);
-        emitGetClassDependencies(node);
-        emitInjectionPoints(node);
+        if (isInjectionTables())
+        {
+            emitClassDependencyTable(node);
+            emitInjectionTable(node);
+        }
+        else
+        {
+            emitGetClassDependencies(node);
+            emitInjectionPoints(node);
+        }
+        IRandoriTargetSettings settings = getEmitter().getSettings();
+        if (settings != null && settings.getJsInjectionFactories())
+            factory.emit(node);
         emitLast(node);
     }
 
@@ -134,6 +159,178 @@ public class FooterEmitter extends BaseSubEmitter implements
         writeNewline();
     }
 
+    /**
+     * Returns whether the class's metadata is emitted as frozen tables,
+     * injected properties with an initial value other than a string, number,
+     * boolean or null literal need a new value for each injection and keep
+     * the function form.
+     */
+    private boolean isInjectionTables()
+    {
+        IRandoriTargetSettings settings = getEmitter().getSettings();
+        if (settings == null || !settings.getJsInjectionTables())
+            return false;
+
+        for (IMetaTag tag : getEmitter().getModel().getPropertyInjections())
+        {
+            IVariableNode node = (IVariableNode) tag.getDecoratedDefinition()
+                    .getNode();
+            IExpressionNode value = node.getAssignedValueNode();
+            if (value != null && !isScalarLiteral(value))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isScalarLiteral(IExpressionNode node)
+    {
+        if (!(node instanceof ILiteralNode))
+            return false;
+
+        LiteralType type = ((ILiteralNode) node).getLiteralType();
+        return type == LiteralType.STRING || type == LiteralType.NUMBER
+                || type == LiteralType.BOOLEAN || type == LiteralType.NULL
+                || type == LiteralType.VOID;
+    }
+
+    void emitClassDependencyTable(IClassNode tnode)
+    {
+        // foo.bar.Baz.$classDependencies = Object.freeze(['foo.Bar']);
+        // foo.bar.Baz.getClassDependencies = function(t) {
+        //     return foo.bar.Baz.$classDependencies;
+        // };
+        String qualifiedName = tnode.getQualifiedName();
+        write(qualifiedName);
+        write("." + DEPENDENCY_TABLE + " = " + FREEZE + "([");
+
+        int i = 0;
+        for (ITypeDefinition type : getEmitter().getModel().getDependencies())
+        {
+            if (i > 0)
+                write(", ");
+            write("'" + type.getQualifiedName() + "'");
+            i++;
+        }
+
+        writeNewline("]);");
+        writeNewline();
+
+        write(qualifiedName);
+        writeNewline(".getClassDependencies = function(t) {", true);
+        writeNewline("return " + qualifiedName + "." + DEPENDENCY_TABLE + ";",
+                false);
+        writeNewline("};");
+        writeNewline();
+    }
+
+    void emitInjectionTable(IClassNode node)
+    {
+        // foo.bar.Baz.$injectionPoints = Object.freeze([
+        //     Object.freeze([{n:'a', t:'foo.A'}]),
+        //     Object.freeze(foo.Bar.injectionPoints(1).concat([...])),
+        //     ...
+        // ]);
+        // foo.bar.Baz.injectionPoints = function(t) {
+        //     return foo.bar.Baz.$injectionPoints[t] || [];
+        // };
+        IClassDefinition definiton = node.getDefinition();
+        IClassDefinition baseDefinition = definiton
+                .resolveBaseClass(getProject());
+
+        boolean hasArgs = DefinitionUtils.hasConstructorParameters(definiton);
+        boolean isValidBase = isValidBaseClasse(baseDefinition);
+        String baseQualifiedName = toBaseQualifiedName(definiton);
+
+        String qualifiedName = node.getQualifiedName();
+        write(qualifiedName);
+        writeNewline("." + INJECTION_TABLE + " = " + FREEZE + "([", true);
+
+        emitConstructorTable(definiton, hasArgs, baseQualifiedName);
+        writeNewline(",");
+        emitMetaTagTable(1, getEmitter().getModel().getPropertyInjections(),
+                isValidBase, baseQualifiedName);
+        writeNewline(",");
+        emitMetaTagTable(2, getEmitter().getModel().getMethodInjections(),
+                isValidBase, baseQualifiedName);
+        writeNewline(",");
+        emitMetaTagTable(3, getEmitter().getModel().getViewInjections(),
+                isValidBase, baseQualifiedName);
+        indentPop();
+        writeNewline();
+        writeNewline("]);");
+        writeNewline();
+
+        write(qualifiedName);
+        writeNewline(".injectionPoints = function(t) {", true);
+        writeNewline("return " + qualifiedName + "." + INJECTION_TABLE
+                + "[t] || [];", false);
+        writeNewline("};");
+        writeNewline();
+    }
+
+    private void emitConstructorTable(IClassDefinition definition,
+            boolean hasArgs, String baseQualifiedName)
+    {
+        if (!hasArgs)
+        {
+            write(FREEZE + "([])");
+            return;
+        }
+
+        IFunctionDefinition constructor = definition.getConstructor();
+        IParameterDefinition[] parameters = constructor.getParameters();
+        if (constructor.isImplicit() || parameters.length == 0)
+        {
+            write(FREEZE + "(" + baseQualifiedName + ".injectionPoints(0))");
+            return;
+        }
+
+        write(FREEZE + "([");
+        for (int i = 0; i < parameters.length; i++)
+        {
+            if (i > 0)
+                write(", ");
+            emitConstructorEntry(parameters[i]);
+        }
+        write("])");
+    }
+
+    private void emitMetaTagTable(int type, Collection<IMetaTag> injections,
+            boolean isValidBase, String baseQualifiedName)
+    {
+        write(FREEZE + "(");
+        if (isValidBase)
+        {
+            write(baseQualifiedName + ".injectionPoints(" + type + ")");
+            if (injections.size() == 0)
+            {
+                write(")");
+                return;
+            }
+            write(".concat(");
+        }
+
+        write("[");
+        int i = 0;
+        for (IMetaTag tag : injections)
+        {
+            if (i > 0)
+                write(", ");
+            if (type == 1)
+                emitPropertyEntry(tag);
+            else if (type == 2)
+                emitMethodEntry(tag);
+            else
+                emitViewEntry(tag);
+            i++;
+        }
+        write("]");
+
+        if (isValidBase)
+            write(")");
+        write(")");
+    }
+
     void emitInjectionPoints(IClassNode node)
     {
         IClassDefinition definiton = node.getDefinition();
@@ -212,12 +409,9 @@ public class FooterEmitter extends BaseSubEmitter implements
             writeNewline();
             for (IParameterDefinition parameter : parameters)
             {
-                ITypeDefinition rtype = parameter.resolveType(getProject());
-                String exportName = MetaDataUtils.getExportName(rtype);
-                write("p.push({n:'" + parameter.getBaseName() + "'");
-                write(",");
-                write(" t:'" + exportName + "'");
-                write("});");
+                write("p.push(");
+                emitConstructorEntry(parameter);
+                write(");");
 
                 if (i < len - 1)
                     writeNewline();
@@ -239,31 +433,14 @@ public class FooterEmitter extends BaseSubEmitter implements
         String baseQualfiiedName = toBaseQualifiedName(definition);
 
         writeNewline("case 1:", true);
-        emitInjectionHeader(baseQualfiiedName, isValidBase);
+        emitInjectionHeader(baseQualfiiedName, isValidBase,
+                injections.size() > 0);
 
         for (IMetaTag tag : injections)
         {
-            IVariableDefinition owner = (IVariableDefinition) tag
-                    .getDecoratedDefinition();
-            ITypeDefinition ownerType = owner.resolveType(getProject());
-
-            write("p.push({n:'" + owner.getBaseName() + "'");
-
-            if (!MetaDataUtils.isNative(ownerType))
-            {
-                write(",");
-                write(" t:'" + ownerType.getQualifiedName() + "'");
-            }
-
-            write(",");
-            write(" r:" + toInjectRequired(tag));
-
-            String value = DefinitionUtils.returnInitialVariableValue(
-                    (IVariableNode) owner.getNode(), getEmitter());
-            write(",");
-            write(" v:" + value);
-
-            writeNewline("});");
+            write("p.push(");
+            emitPropertyEntry(tag);
+            writeNewline(");");
         }
 
         writeNewline("break;", false);
@@ -279,41 +456,14 @@ public class FooterEmitter extends BaseSubEmitter implements
         String baseQualfiiedName = toBaseQualifiedName(definition);
 
         writeNewline("case 2:", true);
-        emitInjectionHeader(baseQualfiiedName, isValidBase);
+        emitInjectionHeader(baseQualfiiedName, isValidBase,
+                injections.size() > 0);
 
         for (IMetaTag tag : injections)
         {
-            IFunctionDefinition owner = (IFunctionDefinition) tag
-                    .getDecoratedDefinition();
-
-            write("p.push({n:'" + owner.getBaseName() + "'");
-            write(", p:[");
-
-            IParameterDefinition[] parameters = owner.getParameters();
-            int i = 0;
-            int len = parameters.length;
-            for (IParameterDefinition parameter : parameters)
-            {
-                ITypeDefinition ownerType = parameter.resolveType(getProject());
-
-                write("{");
-                write("n:'" + parameter.getBaseName() + "'");
-
-                if (!MetaDataUtils.isNative(ownerType))
-                {
-                    write(",");
-                    write(" t:'" + ownerType.getQualifiedName() + "'");
-                }
-
-                write("}");
-
-                if (i < len - 1)
-                    write(", ");
-                i++;
-            }
-
-            write("]");
-            writeNewline("});");
+            write("p.push(");
+            emitMethodEntry(tag);
+            writeNewline(");");
         }
 
         writeNewline("break;", false);
@@ -329,35 +479,113 @@ public class FooterEmitter extends BaseSubEmitter implements
         String baseQualfiiedName = toBaseQualifiedName(definition);
 
         writeNewline("case 3:", true);
-        emitInjectionHeader(baseQualfiiedName, isValidBase);
+        emitInjectionHeader(baseQualfiiedName, isValidBase,
+                injections.size() > 0);
 
         for (IMetaTag tag : injections)
         {
-            String required = toViewRequired(tag);
-            IVariableDefinition owner = (IVariableDefinition) tag
-                    .getDecoratedDefinition();
-            ITypeDefinition type = owner.resolveType(getProject());
+            write("p.push(");
+            emitViewEntry(tag);
+            write(");");
+            writeNewline();
+        }
 
-            write("p.push({n:'" + owner.getBaseName() + "'");
+        writeNewline("break;", false);
+    }
 
-            if (!MetaDataUtils.isNative(type))
-            {
-                write(",");
-                write(" t:'" + type.getQualifiedName() + "'");
-            }
+    private void emitConstructorEntry(IParameterDefinition parameter)
+    {
+        ITypeDefinition rtype = parameter.resolveType(getProject());
+        String exportName = MetaDataUtils.getExportName(rtype,
+                getMetaDataIndex());
+        write("{n:'" + parameter.getBaseName() + "'");
+        write(",");
+        write(" t:'" + exportName + "'");
+        write("}");
+    }
+
+    private void emitPropertyEntry(IMetaTag tag)
+    {
+        IVariableDefinition owner = (IVariableDefinition) tag
+                .getDecoratedDefinition();
+        ITypeDefinition ownerType = owner.resolveType(getProject());
+
+        write("{n:'" + owner.getBaseName() + "'");
+
+        if (!MetaDataUtils.isNative(ownerType, getMetaDataIndex()))
+        {
+            write(",");
+            write(" t:'" + ownerType.getQualifiedName() + "'");
+        }
 
-            if (tag.getAttributeValue("required") != null
-                    && required.equals("0"))
+        write(",");
+        write(" r:" + toInjectRequired(tag));
+
+        String value = DefinitionUtils.returnInitialVariableValue(
+                (IVariableNode) owner.getNode(), getEmitter());
+        write(",");
+        write(" v:" + value);
+        write("}");
+    }
+
+    private void emitMethodEntry(IMetaTag tag)
+    {
+        IFunctionDefinition owner = (IFunctionDefinition) tag
+                .getDecoratedDefinition();
+
+        write("{n:'" + owner.getBaseName() + "'");
+        write(", p:[");
+
+        IParameterDefinition[] parameters = owner.getParameters();
+        int i = 0;
+        int len = parameters.length;
+        for (IParameterDefinition parameter : parameters)
+        {
+            ITypeDefinition ownerType = parameter.resolveType(getProject());
+
+            write("{");
+            write("n:'" + parameter.getBaseName() + "'");
+
+            if (!MetaDataUtils.isNative(ownerType, getMetaDataIndex()))
             {
                 write(",");
-                write(" r:" + required);
+                write(" t:'" + ownerType.getQualifiedName() + "'");
             }
 
-            write("});");
-            writeNewline();
+            write("}");
+
+            if (i < len - 1)
+                write(", ");
+            i++;
         }
 
-        writeNewline("break;", false);
+        write("]");
+        write("}");
+    }
+
+    private void emitViewEntry(IMetaTag tag)
+    {
+        String required = toViewRequired(tag);
+        IVariableDefinition owner = (IVariableDefinition) tag
+                .getDecoratedDefinition();
+        ITypeDefinition type = owner.resolveType(getProject());
+
+        write("{n:'" + owner.getBaseName() + "'");
+
+        if (!MetaDataUtils.isNative(type, getMetaDataIndex()))
+        {
+            write(",");
+            write(" t:'" + type.getQualifiedName() + "'");
+        }
+
+        if (tag.getAttributeValue("required") != null
+                && required.equals("0"))
+        {
+            write(",");
+            write(" r:" + required);
+        }
+
+        write("}");
     }
 
     private void emitInjectionDefault(IClassNode tnode, boolean isBaseNative)
@@ -370,9 +598,15 @@ public class FooterEmitter extends BaseSubEmitter implements
     }
 
     private void emitInjectionHeader(String baseQualfiiedName,
-            boolean isValidBase)
+            boolean isValidBase, boolean hasInjections)
     {
-        if (isValidBase)
+        if (isValidBase && hasInjections)
+        {
+            // the base class may return its frozen injection table
+            writeNewline("p = " + baseQualfiiedName
+                    + ".injectionPoints(t).slice();");
+        }
+        else if (isValidBase)
         {
             writeNewline("p = " + baseQualfiiedName + ".injectionPoints(t);");
         }
@@ -32,7 +32,6 @@ import org.apache.flex.compiler.definitions.metadata.IMetaTagAttribute;
 import org.apache.flex.compiler.internal.definitions.AppliedVectorDefinition;
 import org.apache.flex.compiler.internal.definitions.ClassTraitsDefinition;
 import org.apache.flex.compiler.internal.tree.as.FunctionCallNode;
-import org.apache.flex.compiler.projects.ICompilerProject;
 import org.apache.flex.compiler.tree.ASTNodeID;
 import org.apache.flex.compiler.tree.as.IExpressionNode;
 import org.apache.flex.compiler.tree.as.IFunctionCallNode;
@@ -65,7 +64,7 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
     public void emit(IFunctionCallNode node)
     {
         FunctionCallNode fnode = (FunctionCallNode) node;
-        IDefinition definition = node.resolveCalledExpression(getProject());
+        IDefinition definition = resolveCalledExpression(node);
 
         if (node.isNewExpression())
         {
@@ -91,10 +90,20 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
                     .getNameNode();
             if (mnode.getLeftOperandNode().getNodeID() == ASTNodeID.SuperID)
             {
-                String baseName = DefinitionUtils.toSuperQualifiedName(node,
-                        getProject());
-                write(baseName);
-                write(".prototype");
+                String alias = getEmitter().getAlias(
+                        DefinitionUtils.resolveSuperClass(node, getProject()),
+                        true);
+                if (alias != null)
+                {
+                    write(alias);
+                }
+                else
+                {
+                    String baseName = DefinitionUtils.toSuperQualifiedName(
+                            node, getProject());
+                    write(baseName);
+                    write(".prototype");
+                }
                 // TODO where is the '.' getting added?
                 getWalker().walk(node.getNameNode());
                 write(".call");
@@ -119,8 +128,7 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
 
     protected void emitNew(IFunctionCallNode node)
     {
-        ICompilerProject project = getWalker().getProject();
-        IDefinition expression = node.resolveCalledExpression(project);
+        IDefinition expression = resolveCalledExpression(node);
         if (!(expression instanceof IClassDefinition))
         {
             IVariableDefinition vdef = (IVariableDefinition) expression;
@@ -149,7 +157,11 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
                 write("new");
                 write(" ");
                 // XXX change this to walk
-                write(vdef.getBaseName());
+                String localName = null;
+                if (node.getNameNode() instanceof IIdentifierNode)
+                    localName = getEmitter().getLocalName(
+                            (IIdentifierNode) node.getNameNode(), vdef);
+                write(localName != null ? localName : vdef.getBaseName());
                 write("(");
                 walkArguments(node);
                 write(")");
@@ -162,7 +174,8 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
         IClassDefinition definiton = DefinitionUtils.getClassDefinition(node);
 
         // check for ommit constructor
-        IMetaTag ctag = MetaDataUtils.findJavaScriptTag(newDefinition);
+        IMetaTag ctag = MetaDataUtils.findJavaScriptTag(newDefinition,
+                getMetaDataIndex());
         if (ctag != null)
         {
             IMetaTagAttribute attribute = ctag.getAttribute("omitconstructor");
@@ -204,10 +217,10 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
                 write("]");
                 return;
             }
-            else if (!MetaDataUtils.isExport(expression))
+            else if (!MetaDataUtils.isExport(expression, getMetaDataIndex()))
             {
                 IMetaTag tag = MetaDataUtils.findTag(expression,
-                        MetaData.JavaScriptConstructor);
+                        MetaData.JavaScriptConstructor, getMetaDataIndex());
                 if (tag != null)
                 {
                     String factoryMethod = tag
@@ -222,14 +235,15 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
         }
 
         // first see if there is a JavaScript
-        if (MetaDataUtils.hasJavaScriptTag(newDefinition))
+        if (MetaDataUtils.hasJavaScriptTag(newDefinition, getMetaDataIndex()))
         {
             // is the class an export
-            if (MetaDataUtils.isClassExport(newDefinition))
+            if (MetaDataUtils.isClassExport(newDefinition, getMetaDataIndex()))
             {
                 // since the class is an export, get the 'mode'
                 // the default is 'prototype'
-                Mode mode = MetaDataUtils.getMode(newDefinition);
+                Mode mode = MetaDataUtils.getMode(newDefinition,
+                        getMetaDataIndex());
                 switch (mode)
                 {
                 case GLOBAL:
@@ -246,14 +260,16 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
             else
             {
                 // [JavaScript(export="false",name="Object")]
-                Mode mode = MetaDataUtils.getMode(newDefinition);
+                Mode mode = MetaDataUtils.getMode(newDefinition,
+                        getMetaDataIndex());
                 switch (mode)
                 {
                 case JSON:
                     emitJson(node, newDefinition);
                     break;
                 default:
-                    String name = MetaDataUtils.getExportName(newDefinition);
+                    String name = MetaDataUtils.getExportName(newDefinition,
+                            getMetaDataIndex());
                     if (name.equals("AudioContext"))
                     {
                         name = "webkit" + name;
@@ -378,7 +394,8 @@ public class FunctionCallEmitter extends BaseSubEmitter implements
         ITypeDefinition type = node.resolveType(getProject());
         if (type instanceof ClassTraitsDefinition)
         {
-            String name = MetaDataUtils.getClassExportName((ClassTraitsDefinition) type);
+            String name = MetaDataUtils.getClassExportName(
+                    (ClassTraitsDefinition) type, getMetaDataIndex());
             write(name);
             getModel().addDependency(type);
         }
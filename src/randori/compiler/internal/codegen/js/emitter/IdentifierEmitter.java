@@ -62,11 +62,19 @@ public class IdentifierEmitter extends BaseSubEmitter implements
                 getProject());
         if (lbase == node)
         {
-            if (ExpressionUtils.isValidThis(node, getProject()))
+            if (ExpressionUtils.isValidThis(node, getProject(),
+                    getModel()))
                 write("this.");
         }
 
-        IDefinition definition = node.resolve(getProject());
+        IDefinition definition = resolve(node);
+
+        String localName = getEmitter().getLocalName(node, definition);
+        if (localName != null)
+        {
+            write(localName);
+            return;
+        }
 
         if (definition instanceof IAccessorDefinition)
         {
@@ -108,16 +116,15 @@ public class IdentifierEmitter extends BaseSubEmitter implements
                     .getParent();
             if (mnode.getRightOperandNode() instanceof IIdentifierNode)
             {
-                IDefinition rightDef = (IDefinition) mnode
-                        .getRightOperandNode().resolve(getProject());
+                IDefinition rightDef = (IDefinition) resolve(mnode
+                        .getRightOperandNode());
                 if (rightDef instanceof IVariableDefinition)
                 {
                     IVariableDefinition vdef = (IVariableDefinition) rightDef;
                     IClassDefinition cdef = (IClassDefinition) definition;
                     if (vdef.isStatic())
                     {
-                        String qualifiedName = cdef.getQualifiedName();
-                        write(qualifiedName);
+                        write(toClassName(cdef));
                     }
                 }
                 else
@@ -134,6 +141,12 @@ public class IdentifierEmitter extends BaseSubEmitter implements
             write(node.getName());
     }
 
+    private String toClassName(IClassDefinition definition)
+    {
+        String alias = getEmitter().getAlias(definition, false);
+        return alias != null ? alias : definition.getQualifiedName();
+    }
+
     private void emitIdentifierVariable(IIdentifierNode node,
             IVariableDefinition definition)
     {
@@ -146,8 +159,7 @@ public class IdentifierEmitter extends BaseSubEmitter implements
                     .getClassDefinition(definition);
             if (cdef != null)
             {
-                String qualifiedName = cdef.getQualifiedName();
-                write(qualifiedName);
+                write(toClassName(cdef));
                 write(".");
                 write(definition.getBaseName());
             }
@@ -180,7 +192,7 @@ public class IdentifierEmitter extends BaseSubEmitter implements
     private void emitIdentifierAccessor(IIdentifierNode node,
             IAccessorDefinition definition)
     {
-        if (!MetaDataUtils.isNative(definition))
+        if (!MetaDataUtils.isNative(definition, getMetaDataIndex()))
         {
             String name = MetaDataUtils.getAccessorName(definition,
                     getProject());
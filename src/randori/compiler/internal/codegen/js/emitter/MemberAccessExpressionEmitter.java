@@ -52,10 +52,10 @@ public class MemberAccessExpressionEmitter extends BaseSubEmitter implements
         ICompilerProject project = getEmitter().getWalker().getProject();
 
         IExpressionNode left = node.getLeftOperandNode();
-        IDefinition leftDef = left.resolve(project);
+        IDefinition leftDef = resolve(left);
 
         IExpressionNode right = node.getRightOperandNode();
-        IDefinition rightDef = right.resolve(project);
+        IDefinition rightDef = resolve(right);
 
         boolean isTransparent = RandoriUtils.isTransparentMemberAccess(left,
                 right);
@@ -84,11 +84,11 @@ public class MemberAccessExpressionEmitter extends BaseSubEmitter implements
             return;
         }
 
-        if (RandoriUtils.isConstantMemberAccess(left, right, project))
+        if (RandoriUtils.isConstantMemberAccess(left, right, project,
+                getModel()))
         {
             // if Foo.BAR, we skip below and just write the scalar value
-            IConstantDefinition cdef = (IConstantDefinition) right
-                    .resolve(project);
+            IConstantDefinition cdef = (IConstantDefinition) resolve(right);
             Object value = cdef.resolveInitialValue(project);
             if (value != null)
                 write(value.toString());
@@ -102,10 +102,9 @@ public class MethodEmitter extends BaseSubEmitter implements
 
         IClassNode cnode = (IClassNode) node
                 .getAncestorOfType(IClassNode.class);
-        if (!MetaDataUtils.isGlobal(cnode))
+        if (!MetaDataUtils.isGlobal(cnode, getMetaDataIndex()))
         {
-            String prefix = RandoriUtils.toMethodPrefix(definition, getWalker()
-                    .getProject());
+            String prefix = toMethodPrefix(definition);
             write(prefix);
             write(" = function");
 
@@ -121,6 +120,17 @@ public class MethodEmitter extends BaseSubEmitter implements
         }
     }
 
+    private String toMethodPrefix(IFunctionDefinition definition)
+    {
+        ITypeDefinition type = (ITypeDefinition) definition.getParent();
+        String className = getEmitter().getAlias(type, false);
+        if (className == null)
+            return RandoriUtils.toMethodPrefix(definition, getProject());
+
+        return RandoriUtils.toMethodPrefix(definition, getProject(),
+                className, getEmitter().getAlias(type, true));
+    }
+
     public void emitHeader(IFunctionNode node)
     {
         IFunctionDefinition definition = node.getDefinition();
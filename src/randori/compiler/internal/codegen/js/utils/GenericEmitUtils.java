@@ -6,10 +6,13 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.flex.compiler.constants.IASKeywordConstants;
+import org.apache.flex.compiler.tree.as.IExpressionNode;
 import org.apache.flex.compiler.tree.as.IFunctionNode;
+import org.apache.flex.compiler.tree.as.IIdentifierNode;
 import org.apache.flex.compiler.tree.as.IParameterNode;
 
 import randori.compiler.codegen.as.IASEmitter;
+import randori.compiler.codegen.js.IRandoriEmitter;
 import randori.compiler.internal.utils.DefinitionUtils;
 
 /**
@@ -74,7 +77,7 @@ public class GenericEmitUtils
                 {
                     code.setLength(0);
 
-                    code.append(pnode.getName());
+                    code.append(getName(pnode, emitter));
                     code.append(" = ");
                     code.append(pnode.getDefaultValue());
                     code.append(";");
@@ -93,4 +96,20 @@ public class GenericEmitUtils
             }
         }
     }
+
+    private static String getName(IParameterNode node, IASEmitter emitter)
+    {
+        if (emitter instanceof IRandoriEmitter)
+        {
+            IExpressionNode name = node.getNameExpressionNode();
+            if (name instanceof IIdentifierNode)
+            {
+                String localName = ((IRandoriEmitter) emitter).getLocalName(
+                        (IIdentifierNode) name, node.getDefinition());
+                if (localName != null)
+                    return localName;
+            }
+        }
+        return node.getName();
+    }
 }
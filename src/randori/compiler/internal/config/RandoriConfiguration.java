@@ -19,9 +19,15 @@
 
 package randori.compiler.internal.config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.flex.compiler.config.Configuration;
 import org.apache.flex.compiler.config.ConfigurationValue;
 import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.apache.flex.compiler.internal.config.annotations.Arguments;
 import org.apache.flex.compiler.internal.config.annotations.Config;
 import org.apache.flex.compiler.internal.config.annotations.Mapping;
 
@@ -132,4 +138,259 @@ public class RandoriConfiguration extends Configuration
         jsClassesAsFiles = value;
     }
 
+    //
+    // 'js-generation-threads'
+    //
+
+    private int jsGenerationThreads = 1;
+
+    public int getJsGenerationThreads()
+    {
+        return jsGenerationThreads;
+    }
+
+    @Config
+    @Mapping("js-generation-threads")
+    public void setJsGenerationThreads(ConfigurationValue cv, int value)
+            throws ConfigurationException
+    {
+        jsGenerationThreads = value;
+    }
+
+    //
+    // 'js-cache-dir'
+    //
+
+    private String jsCacheDir = "";
+
+    public String getJsCacheDir()
+    {
+        return jsCacheDir;
+    }
+
+    @Config
+    @Mapping("js-cache-dir")
+    public void setJsCacheDir(ConfigurationValue cv, String value)
+            throws ConfigurationException
+    {
+        jsCacheDir = value;
+    }
+
+    //
+    // 'metrics-report'
+    //
+
+    private String metricsReport = "";
+
+    public String getMetricsReport()
+    {
+        return metricsReport;
+    }
+
+    @Config
+    @Mapping("metrics-report")
+    public void setMetricsReport(ConfigurationValue cv, String value)
+            throws ConfigurationException
+    {
+        metricsReport = value;
+    }
+
+    //
+    // 'js-skip-unchanged-output'
+    //
+
+    private boolean jsSkipUnchangedOutput = false;
+
+    public boolean getJsSkipUnchangedOutput()
+    {
+        return jsSkipUnchangedOutput;
+    }
+
+    @Config
+    @Mapping("js-skip-unchanged-output")
+    public void setJsSkipUnchangedOutput(ConfigurationValue cv, boolean value)
+            throws ConfigurationException
+    {
+        jsSkipUnchangedOutput = value;
+    }
+
+    //
+    // 'bundle-path'
+    //
+
+    private List<String> bundlePath = new ArrayList<String>();
+
+    public List<String> getBundlePath()
+    {
+        return bundlePath;
+    }
+
+    @Config(allowMultiple = true, isPath = true)
+    @Mapping("bundle-path")
+    @Arguments(Arguments.PATH_ELEMENT)
+    public void setBundlePath(ConfigurationValue cv, String[] paths)
+            throws ConfigurationException
+    {
+        bundlePath.addAll(Arrays.asList(paths));
+    }
+
+    //
+    // 'bundle-cache-dir'
+    //
+
+    private String bundleCacheDir = "";
+
+    public String getBundleCacheDir()
+    {
+        return bundleCacheDir;
+    }
+
+    @Config
+    @Mapping("bundle-cache-dir")
+    public void setBundleCacheDir(ConfigurationValue cv, String value)
+            throws ConfigurationException
+    {
+        bundleCacheDir = value;
+    }
+
+    private List<String> bundleLibraryPath = Collections.emptyList();
+
+    /**
+     * Sets the SWCs of the <code>bundle-path</code> bundles, they are added
+     * to the library path when the configuration is applied to the project.
+     * 
+     * @param paths The SWC files.
+     */
+    public void setBundleLibraryPath(List<String> paths)
+    {
+        bundleLibraryPath = paths;
+    }
+
+    @Override
+    public List<String> getCompilerLibraryPath()
+    {
+        List<String> paths = super.getCompilerLibraryPath();
+        if (bundleLibraryPath.isEmpty())
+            return paths;
+
+        List<String> result = new ArrayList<String>(paths);
+        result.addAll(bundleLibraryPath);
+        return result;
+    }
+
+    //
+    // 'js-tree-shake'
+    //
+
+    private boolean jsTreeShake = false;
+
+    public boolean getJsTreeShake()
+    {
+        return jsTreeShake;
+    }
+
+    @Config
+    @Mapping("js-tree-shake")
+    public void setJsTreeShake(ConfigurationValue cv, boolean value)
+            throws ConfigurationException
+    {
+        jsTreeShake = value;
+    }
+
+    //
+    // 'js-tree-shake-keep'
+    //
+
+    private List<String> jsTreeShakeKeep = new ArrayList<String>();
+
+    public List<String> getJsTreeShakeKeep()
+    {
+        return jsTreeShakeKeep;
+    }
+
+    @Config(allowMultiple = true)
+    @Mapping("js-tree-shake-keep")
+    @Arguments("prefix")
+    public void setJsTreeShakeKeep(ConfigurationValue cv, String[] prefixes)
+            throws ConfigurationException
+    {
+        jsTreeShakeKeep.addAll(Arrays.asList(prefixes));
+    }
+
+    //
+    // 'js-minify'
+    //
+
+    private boolean jsMinify = false;
+
+    public boolean getJsMinify()
+    {
+        return jsMinify;
+    }
+
+    @Config
+    @Mapping("js-minify")
+    public void setJsMinify(ConfigurationValue cv, boolean value)
+            throws ConfigurationException
+    {
+        jsMinify = value;
+    }
+
+    //
+    // 'js-injection-tables'
+    //
+
+    private boolean jsInjectionTables = false;
+
+    public boolean getJsInjectionTables()
+    {
+        return jsInjectionTables;
+    }
+
+    @Config
+    @Mapping("js-injection-tables")
+    public void setJsInjectionTables(ConfigurationValue cv, boolean value)
+            throws ConfigurationException
+    {
+        jsInjectionTables = value;
+    }
+
+    //
+    // 'js-injection-factories'
+    //
+
+    private boolean jsInjectionFactories = false;
+
+    public boolean getJsInjectionFactories()
+    {
+        return jsInjectionFactories;
+    }
+
+    @Config
+    @Mapping("js-injection-factories")
+    public void setJsInjectionFactories(ConfigurationValue cv, boolean value)
+            throws ConfigurationException
+    {
+        jsInjectionFactories = value;
+    }
+
+    //
+    // 'js-prototype-alias'
+    //
+
+    private boolean jsPrototypeAlias = false;
+
+    public boolean getJsPrototypeAlias()
+    {
+        return jsPrototypeAlias;
+    }
+
+    @Config
+    @Mapping("js-prototype-alias")
+    public void setJsPrototypeAlias(ConfigurationValue cv, boolean value)
+            throws ConfigurationException
+    {
+        jsPrototypeAlias = value;
+    }
+
 }
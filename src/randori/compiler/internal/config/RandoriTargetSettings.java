@@ -19,6 +19,8 @@
 
 package randori.compiler.internal.config;
 
+import java.util.List;
+
 import org.apache.flex.compiler.config.Configuration;
 import org.apache.flex.compiler.internal.config.TargetSettings;
 
@@ -71,4 +73,75 @@ public class RandoriTargetSettings extends TargetSettings implements
         return configuration.getJsClassesAsFiles();
     }
 
+    @Override
+    public int getJsGenerationThreads()
+    {
+        return configuration.getJsGenerationThreads();
+    }
+
+    @Override
+    public String getJsCacheDir()
+    {
+        return configuration.getJsCacheDir();
+    }
+
+    @Override
+    public String getMetricsReport()
+    {
+        return configuration.getMetricsReport();
+    }
+
+    @Override
+    public boolean getJsSkipUnchangedOutput()
+    {
+        return configuration.getJsSkipUnchangedOutput();
+    }
+
+    @Override
+    public String getBundleCacheDir()
+    {
+        return configuration.getBundleCacheDir();
+    }
+
+    @Override
+    public List<String> getBundlePath()
+    {
+        return configuration.getBundlePath();
+    }
+
+    @Override
+    public boolean getJsTreeShake()
+    {
+        return configuration.getJsTreeShake();
+    }
+
+    @Override
+    public List<String> getJsTreeShakeKeep()
+    {
+        return configuration.getJsTreeShakeKeep();
+    }
+
+    @Override
+    public boolean getJsMinify()
+    {
+        return configuration.getJsMinify();
+    }
+
+    @Override
+    public boolean getJsInjectionTables()
+    {
+        return configuration.getJsInjectionTables();
+    }
+
+    @Override
+    public boolean getJsInjectionFactories()
+    {
+        return configuration.getJsInjectionFactories();
+    }
+
+    @Override
+    public boolean getJsPrototypeAlias()
+    {
+        return configuration.getJsPrototypeAlias();
+    }
 }
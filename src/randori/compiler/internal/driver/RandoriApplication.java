@@ -21,9 +21,16 @@ package randori.compiler.internal.driver;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.flex.compiler.clients.problems.ProblemQuery;
 import org.apache.flex.compiler.internal.projects.FlexProject;
+import org.apache.flex.compiler.tree.as.IClassNode;
 import org.apache.flex.compiler.units.ICompilationUnit;
 import org.apache.flex.compiler.units.ICompilationUnit.UnitType;
 
@@ -31,15 +38,19 @@ import randori.compiler.config.IRandoriTargetSettings;
 import randori.compiler.driver.IRandoriApplication;
 import randori.compiler.driver.IRandoriBackend;
 import randori.compiler.internal.driver.model.ApplicationModel;
+import randori.compiler.internal.driver.model.BaseCompilationSet;
 import randori.compiler.internal.driver.model.RandoriGuiceModel;
 import randori.compiler.internal.driver.model.RandoriModel;
+import randori.compiler.internal.driver.model.TreeShaker;
+import randori.compiler.internal.metrics.CompilerMetrics;
+import randori.compiler.internal.metrics.CompilerMetrics.Phase;
+import randori.compiler.internal.utils.MetaDataIndex;
 
 /**
  * @author Michael Schmalle
  */
 public class RandoriApplication implements IRandoriApplication
 {
-    @SuppressWarnings("unused")
     private final FlexProject project;
 
     private RandoriGuiceModel guice;
@@ -52,12 +63,33 @@ public class RandoriApplication implements IRandoriApplication
 
     private IRandoriTargetSettings settings;
 
+    private final CompilerMetrics metrics;
+
+    private final MetaDataIndex metaDataIndex;
+
     public RandoriApplication(FlexProject project,
             List<ICompilationUnit> compilationUnits,
             IRandoriTargetSettings settings)
+    {
+        this(project, compilationUnits, settings, CompilerMetrics.DISABLED,
+                null);
+    }
+
+    /**
+     * @param metrics The metrics of the compile the generation phases are
+     * recorded in.
+     * @param metaDataIndex The metadata index of the build, handed to the
+     * backend's emitters, or <code>null</code>.
+     */
+    public RandoriApplication(FlexProject project,
+            List<ICompilationUnit> compilationUnits,
+            IRandoriTargetSettings settings, CompilerMetrics metrics,
+            MetaDataIndex metaDataIndex)
     {
         this.project = project;
         this.settings = settings;
+        this.metrics = metrics;
+        this.metaDataIndex = metaDataIndex;
 
         List<ICompilationUnit> units = new ArrayList<ICompilationUnit>();
         for (ICompilationUnit unit : compilationUnits)
@@ -74,29 +106,155 @@ public class RandoriApplication implements IRandoriApplication
         application = new ApplicationModel(project, settings);
     }
 
+    @Override
+    public void setDirtyFiles(Set<String> paths)
+    {
+        guice.setDirtyFiles(paths);
+        randori.setDirtyFiles(paths);
+        application.setDirtyFiles(paths);
+    }
+
+    @Override
+    public void setRemovedTypes(Set<String> qualifiedNames)
+    {
+        // only the application's classes are written as files
+        application.setRemovedTypes(qualifiedNames);
+    }
+
     @Override
     public boolean compile(IRandoriBackend backend, ProblemQuery problems)
     {
+        backend.setSettings(settings);
+        backend.setMetaDataIndex(metaDataIndex);
         filter(problems);
+        if (settings.getJsTreeShake())
+            shake(problems);
         generate(backend, problems);
         return true;
     }
 
     protected void filter(ProblemQuery problems)
     {
-        guice.filter(compilationUnits);
-        randori.filter(compilationUnits);
-        application.filter(compilationUnits);
+        Phase phase = metrics.startPhase("filter");
+
+        // each unit's tree is fetched once and routed to the first set
+        // accepting it, the sets keep the units in compilation order
+        List<IClassNode> nodes = findClassNodes(compilationUnits);
+        for (int i = 0; i < compilationUnits.size(); i++)
+        {
+            ICompilationUnit unit = compilationUnits.get(i);
+            IClassNode node = nodes.get(i);
+            if (guice.offer(unit, node))
+                continue;
+            if (randori.offer(unit, node))
+                continue;
+            application.offer(unit, node);
+        }
+
+        phase.stop();
+    }
+
+    /**
+     * Drops the framework classes the application and the Randori Guice
+     * library can not reach from <code>Randori.js</code>.
+     * 
+     * @param problems The compile's problems, the problems of the function
+     * bodies the tree shaker parsed are added.
+     */
+    protected void shake(ProblemQuery problems)
+    {
+        Phase phase = metrics.startPhase("tree shake");
+
+        TreeShaker treeShaker = new TreeShaker(project,
+                settings.getJsTreeShakeKeep(), metaDataIndex);
+        application.addTo(treeShaker, true);
+        guice.addTo(treeShaker, true);
+        randori.addTo(treeShaker, false);
+        treeShaker.shake();
+        randori.setTreeShaker(treeShaker);
+        problems.addAll(treeShaker.getProblems());
+
+        phase.stop();
+    }
+
+    /**
+     * Returns the class node of each unit in order, the syntax trees are
+     * fetched on the generation threads.
+     */
+    protected List<IClassNode> findClassNodes(List<ICompilationUnit> units)
+    {
+        List<IClassNode> nodes = new ArrayList<IClassNode>(units.size());
+
+        int threads = settings.getJsGenerationThreads();
+        if (threads <= 1 || units.size() <= 1)
+        {
+            for (ICompilationUnit unit : units)
+            {
+                nodes.add(BaseCompilationSet.findClassNode(unit,
+                        metaDataIndex));
+            }
+            return nodes;
+        }
+
+        List<Callable<IClassNode>> tasks = new ArrayList<Callable<IClassNode>>(
+                units.size());
+        for (final ICompilationUnit unit : units)
+        {
+            tasks.add(new Callable<IClassNode>() {
+                @Override
+                public IClassNode call() throws Exception
+                {
+                    return BaseCompilationSet.findClassNode(unit,
+                            metaDataIndex);
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+                threads, units.size()));
+        try
+        {
+            for (Future<IClassNode> future : executor.invokeAll(tasks))
+            {
+                nodes.add(future.get());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        return nodes;
     }
 
     protected void generate(IRandoriBackend backend, ProblemQuery problems)
     {
+        Phase phase = metrics.startPhase("generate RandoriGuiceModel");
         guice.generate(backend, problems.getProblems(), settings.getOutput());
+        phase.stop();
 
+        phase = metrics.startPhase("generate RandoriModel");
         randori.generate(backend, problems.getProblems(), settings.getOutput());
+        phase.stop();
 
+        phase = metrics.startPhase("generate ApplicationModel");
         application.generate(backend, problems.getProblems(),
                 settings.getOutput());
+        phase.stop();
     }
 
 }
@@ -33,6 +33,7 @@ import org.apache.flex.compiler.targets.ITargetSettings;
 import org.apache.flex.compiler.units.ICompilationUnit;
 
 import randori.compiler.codegen.js.IRandoriEmitter;
+import randori.compiler.config.IRandoriTargetSettings;
 import randori.compiler.driver.IRandoriBackend;
 import randori.compiler.driver.IRandoriTarget;
 import randori.compiler.internal.codegen.js.RandoriEmitter;
@@ -40,6 +41,8 @@ import randori.compiler.internal.codegen.js.RandoriWriter;
 import randori.compiler.internal.config.RandoriConfiguration;
 import randori.compiler.internal.config.RandoriConfigurator;
 import randori.compiler.internal.driver.as.ASBackend;
+import randori.compiler.internal.metrics.CompilerMetrics;
+import randori.compiler.internal.utils.MetaDataIndex;
 
 /**
  * The backend for the {@link IRandoriEmitter}.
@@ -51,6 +54,48 @@ public class RandoriBackend extends ASBackend implements IRandoriBackend
 
     private boolean parseOnly;
 
+    private IRandoriTargetSettings settings;
+
+    private CompilerMetrics metrics = CompilerMetrics.DISABLED;
+
+    private MetaDataIndex metaDataIndex;
+
+    @Override
+    public IRandoriTargetSettings getSettings()
+    {
+        return settings;
+    }
+
+    @Override
+    public void setSettings(IRandoriTargetSettings settings)
+    {
+        this.settings = settings;
+    }
+
+    @Override
+    public CompilerMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    @Override
+    public void setMetrics(CompilerMetrics metrics)
+    {
+        this.metrics = metrics != null ? metrics : CompilerMetrics.DISABLED;
+    }
+
+    @Override
+    public MetaDataIndex getMetaDataIndex()
+    {
+        return metaDataIndex;
+    }
+
+    @Override
+    public void setMetaDataIndex(MetaDataIndex index)
+    {
+        metaDataIndex = index;
+    }
+
     @Override
     public String getOutputExtension()
     {
@@ -73,7 +118,8 @@ public class RandoriBackend extends ASBackend implements IRandoriBackend
     public IRandoriTarget createTarget(IASProject project,
             ITargetSettings settings, ITargetProgressMonitor monitor)
     {
-        return new RandoriTarget((CompilerProject) project, settings, monitor);
+        return new RandoriTarget((CompilerProject) project, settings,
+                monitor, metrics);
     }
 
     @Override
@@ -88,7 +134,8 @@ public class RandoriBackend extends ASBackend implements IRandoriBackend
     @Override
     public IRandoriEmitter createEmitter(FilterWriter out)
     {
-        IRandoriEmitter emitter = new RandoriEmitter(out);
+        IRandoriEmitter emitter = new RandoriEmitter(out, settings, metrics,
+                metaDataIndex);
         //emitter.setDocEmitter(createDocEmitter(emitter));
         return emitter;
     }
@@ -19,19 +19,25 @@
 
 package randori.compiler.internal.driver.model;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.flex.compiler.internal.projects.FlexProject;
 import org.apache.flex.compiler.problems.ICompilerProblem;
+import org.apache.flex.compiler.problems.InternalCompilerProblem;
 import org.apache.flex.compiler.tree.as.ITypeNode;
 import org.apache.flex.compiler.units.ICompilationUnit;
 
-import randori.compiler.codegen.as.IASWriter;
 import randori.compiler.config.IRandoriTargetSettings;
 import randori.compiler.driver.IRandoriBackend;
 import randori.compiler.internal.utils.FileUtils;
@@ -51,6 +57,8 @@ public class ApplicationModel extends BaseCompilationSet
 
     private static final String GUICE = "guice";
 
+    private final AtomicInteger changedFiles = new AtomicInteger();
+
     public ApplicationModel(FlexProject project, IRandoriTargetSettings settings)
     {
         super(project, settings);
@@ -74,18 +82,16 @@ public class ApplicationModel extends BaseCompilationSet
         boolean classesAsFiles = settings.getJsClassesAsFiles();
         if (classesAsFiles)
         {
+            deleteRemoved();
+
+            List<ICompilationUnit> units = new ArrayList<ICompilationUnit>();
             for (ICompilationUnit unit : getCompilationUnits())
             {
-                try
-                {
-                    write(unit);
-                }
-                catch (RuntimeException e)
-                {
-                    // cancel compile
-                    break;
-                }
+                if (isDirty(unit))
+                    units.add(unit);
             }
+
+            writeFiles(units);
         }
         else
         {
@@ -100,15 +106,140 @@ public class ApplicationModel extends BaseCompilationSet
         }
     }
 
+    /**
+     * Deletes the files generated for the types whose source files were
+     * removed, a type that moved to another file is written again after.
+     */
+    protected void deleteRemoved()
+    {
+        Set<String> removedTypes = getRemovedTypes();
+        if (removedTypes == null)
+            return;
+
+        File outputFolder = new File(outputDirectory,
+                settings.getJsBasePath());
+        for (String qualifiedName : removedTypes)
+        {
+            File outputClassFile = new File(outputFolder,
+                    FileUtils.returnFullPath(qualifiedName, "js"));
+            if (outputClassFile.delete())
+                System.out.println("Deleted file: " + outputClassFile);
+        }
+    }
+
+    /**
+     * Writes each unit to it's own file on a pool of
+     * <code>js-generation-threads</code> workers.
+     * <p>
+     * A unit failing does not stop the others, the problems of all failed
+     * units are added to the compile's problems and units that could not be
+     * written are counted as failed.
+     * 
+     * @param units The {@link ICompilationUnit}s to output.
+     */
+    protected void writeFiles(List<ICompilationUnit> units)
+    {
+        changedFiles.set(0);
+
+        int failed = 0;
+        int threads = settings.getJsGenerationThreads();
+        if (threads <= 1 || units.size() <= 1)
+        {
+            for (ICompilationUnit unit : units)
+            {
+                if (!tryWrite(unit))
+                    failed++;
+            }
+        }
+        else
+        {
+            failed = writeFilesConcurrently(units, threads);
+        }
+
+        if (failed > 0)
+            System.err.println(failed + " of " + units.size()
+                    + " files failed to compile");
+
+        if (settings.getJsSkipUnchangedOutput())
+            System.out.println(changedFiles.get() + " of " + units.size()
+                    + " files changed");
+    }
+
+    private int writeFilesConcurrently(List<ICompilationUnit> units,
+            int threads)
+    {
+        List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(
+                units.size());
+        for (final ICompilationUnit unit : units)
+        {
+            tasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception
+                {
+                    return tryWrite(unit);
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+                threads, units.size()));
+        int failed = 0;
+        try
+        {
+            for (Future<Boolean> result : executor.invokeAll(tasks))
+            {
+                if (!result.get())
+                    failed++;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            // tryWrite() catches the unit's failure
+            throw new RuntimeException(e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return failed;
+    }
+
+    private boolean tryWrite(ICompilationUnit unit)
+    {
+        try
+        {
+            return write(unit);
+        }
+        catch (IOException e)
+        {
+            addProblem(new InternalCompilerProblem(e));
+            return false;
+        }
+        catch (RuntimeException e)
+        {
+            addProblem(new InternalCompilerProblem(e));
+            return false;
+        }
+    }
+
     /**
      * Writes an individual {@link ICompilationUnit} to file.
      * <p>
      * This method uses the unit's package name to calculate the directory
-     * structure of the output class file.
+     * structure of the output class file. The file is replaced atomically, a
+     * failed unit leaves the previous file in place.
      * 
      * @param unit The {@link ICompilationUnit} to output.
+     * @return Whether the unit was written, <code>false</code> when the
+     * emitter reported errors.
+     * @throws IOException When the file could not be written or the thread was
+     * interrupted, the interrupt flag is kept.
      */
-    void write(ICompilationUnit unit)
+    boolean write(ICompilationUnit unit) throws IOException
     {
         String basePath = settings.getJsBasePath();
 
@@ -117,10 +248,6 @@ public class ApplicationModel extends BaseCompilationSet
             outputFolder.mkdirs();
 
         File outputClassFile = null;
-        IASWriter writer = null;
-        BufferedOutputStream out = null;
-
-        // TODO this is a mess, all this output needs to be refactored into the build target
 
         try
         {
@@ -129,47 +256,26 @@ public class ApplicationModel extends BaseCompilationSet
 
             System.out.println("Compiling file: " + outputClassFile);
 
-            writer = backend.createWriter(project,
-                    (List<ICompilerProblem>) problems, unit, false);
-
-            out = new BufferedOutputStream(
-                    new FileOutputStream(outputClassFile));
+            String result = emitUnit(unit);
+            if (result == null)
+                return false;
 
-            writer.writeTo(out);
-            out.flush();
+            if (writeOutput(outputClassFile, createFileBanner(), result))
+                changedFiles.incrementAndGet();
+            return true;
         }
         catch (InterruptedException e)
         {
-            e.printStackTrace();
-        }
-        catch (FileNotFoundException e)
-        {
-            e.printStackTrace();
-        }
-        catch (IOException e)
-        {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(unit.getName());
         }
         catch (RuntimeException e)
         {
-            // XXX HACK not sure how to "not" create this file with the stream
             System.err.println("Compiling file failed "
-                    + outputClassFile.getName());
+                    + (outputClassFile != null ? outputClassFile.getName()
+                            : unit.getName()));
             throw e;
         }
-        finally
-        {
-            try
-            {
-                out.close();
-                writer.close();
-            }
-            catch (IOException e)
-            {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
-        }
     }
 
 }
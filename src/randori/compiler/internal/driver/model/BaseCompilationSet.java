@@ -19,16 +19,24 @@
 
 package randori.compiler.internal.driver.model;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.Writer;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.flex.compiler.clients.problems.ProblemQuery;
 import org.apache.flex.compiler.definitions.IClassDefinition;
@@ -49,8 +57,13 @@ import randori.compiler.config.IRandoriTargetSettings;
 import randori.compiler.driver.IRandoriBackend;
 import randori.compiler.driver.IRandoriTarget;
 import randori.compiler.internal.codegen.as.ASFilterWriter;
+import randori.compiler.internal.metrics.CompilerMetrics;
+import randori.compiler.internal.metrics.CompilerMetrics.ClassTiming;
 import randori.compiler.internal.utils.DefinitionUtils;
+import randori.compiler.internal.utils.FileUtils;
+import randori.compiler.internal.utils.MetaDataIndex;
 import randori.compiler.internal.utils.MetaDataUtils;
+import randori.compiler.internal.utils.RandoriUtils;
 import randori.compiler.visitor.as.IASBlockWalker;
 
 /**
@@ -63,10 +76,18 @@ public abstract class BaseCompilationSet
 {
     private static final String OBJECT = "Object";
 
+    private static final String BANNER = "// ====================================================";
+
+    private static final String SECTION = "\n" + BANNER + "\n// ";
+
+    static final String FILE_BANNER = "/** Compiled by the Randori compiler v";
+
     protected HashMap<IClassDefinition, BinaryEntry> map = new HashMap<IClassDefinition, BinaryEntry>();
 
     private Collection<ICompilationUnit> compilationUnits = new ArrayList<ICompilationUnit>();
 
+    private HashMap<ICompilationUnit, IClassNode> classNodes = new HashMap<ICompilationUnit, IClassNode>();
+
     protected final FlexProject project;
 
     protected IRandoriTargetSettings settings;
@@ -75,20 +96,31 @@ public abstract class BaseCompilationSet
 
     private File outputFile;
 
-    // TODO (mschmalle) I'm sure this needs a refactor to Writer, but this was quick and dirty
-    protected StringBuilder builder;
+    private File tempFile;
+
+    protected Writer out;
 
     protected IRandoriBackend backend;
 
+    protected CompilerMetrics metrics = CompilerMetrics.DISABLED;
+
+    protected MetaDataIndex metaDataIndex;
+
     protected List<ICompilerProblem> problems;
 
+    protected FragmentCache cache;
+
+    private Set<String> dirtyFiles;
+
+    private Set<String> removedTypes;
+
+    private TreeShaker treeShaker;
+
     public BaseCompilationSet(FlexProject project,
             IRandoriTargetSettings settings)
     {
         this.project = project;
         this.settings = settings;
-
-        builder = new StringBuilder();
     }
 
     /**
@@ -101,14 +133,31 @@ public abstract class BaseCompilationSet
     {
         for (ICompilationUnit unit : units)
         {
-            IClassNode node = getClassNode(unit);
-            if (accept(node))
-            {
-                addCompilationUnit(unit);
-            }
+            offer(unit, findClassNode(unit, metaDataIndex));
         }
     }
 
+    /**
+     * Adds the unit to this set if the set accepts its class node, the node
+     * is kept for the generation.
+     * <p>
+     * Used when the class nodes of all units are fetched once and classified
+     * across all sets.
+     * 
+     * @param unit The {@link ICompilationUnit} offered to the set.
+     * @param node The unit's exported {@link IClassNode} or <code>null</code>.
+     * @return <code>true</code> if the unit was added to this set.
+     */
+    public boolean offer(ICompilationUnit unit, IClassNode node)
+    {
+        if (!accept(node))
+            return false;
+
+        addCompilationUnit(unit);
+        classNodes.put(unit, node);
+        return true;
+    }
+
     /**
      * Called to filter out compilation units in tha main set based on the
      * subclasses requirements realting to which project the unit is located in.
@@ -142,6 +191,83 @@ public abstract class BaseCompilationSet
         compilationUnits.add(unit);
     }
 
+    /**
+     * Limits the next generation to the units of the given source files, the
+     * output of all other units is left as is.
+     * 
+     * @param paths The absolute paths of the changed source files,
+     * <code>null</code> generates all units.
+     */
+    public void setDirtyFiles(Set<String> paths)
+    {
+        dirtyFiles = paths;
+    }
+
+    /**
+     * Returns whether the unit needs to be generated during this generation.
+     * 
+     * @param unit The {@link ICompilationUnit} to test.
+     */
+    protected boolean isDirty(ICompilationUnit unit)
+    {
+        return dirtyFiles == null
+                || dirtyFiles.contains(unit.getAbsoluteFilename());
+    }
+
+    /**
+     * Sets the types whose source files were removed since the last
+     * generation.
+     * 
+     * @param qualifiedNames The qualified names of the removed types,
+     * <code>null</code> when none were removed.
+     */
+    public void setRemovedTypes(Set<String> qualifiedNames)
+    {
+        removedTypes = qualifiedNames;
+    }
+
+    /**
+     * Returns the qualified names of the types whose source files were
+     * removed, <code>null</code> when none were removed.
+     */
+    protected Set<String> getRemovedTypes()
+    {
+        return removedTypes;
+    }
+
+    /**
+     * Limits the monolithic output to the classes the tree shaker reaches.
+     * 
+     * @param treeShaker The shaken tree shaker, <code>null</code> writes all
+     * classes.
+     */
+    public void setTreeShaker(TreeShaker treeShaker)
+    {
+        this.treeShaker = treeShaker;
+    }
+
+    /**
+     * Adds the classes of this set to the tree shaker.
+     * 
+     * @param treeShaker The tree shaker.
+     * @param roots Whether all classes are roots, otherwise only the classes
+     * matching a keep prefix are.
+     */
+    public void addTo(TreeShaker treeShaker, boolean roots)
+    {
+        for (ICompilationUnit unit : getCompilationUnits())
+        {
+            IClassNode node = getClassNode(unit);
+            if (node == null)
+                continue;
+
+            if (roots)
+                treeShaker.addRoot(node.getDefinition());
+            else
+                treeShaker.addKept(node.getDefinition());
+        }
+    }
+
     /**
      * Generated the specific source code based in the
      * {@link IRandoriTargetSettings} compiler arguments.
@@ -160,8 +286,35 @@ public abstract class BaseCompilationSet
             List<ICompilerProblem> problems, File output)
     {
         this.backend = backend;
+        this.metrics = backend.getMetrics();
+        this.metaDataIndex = backend.getMetaDataIndex();
         this.problems = problems;
         this.outputDirectory = output;
+
+        String cacheDirectory = settings.getJsCacheDir();
+        if (cacheDirectory != null && !cacheDirectory.equals(""))
+        {
+            cache = new FragmentCache(project, new File(cacheDirectory),
+                    getCacheSalt());
+        }
+    }
+
+    /**
+     * Returns a String describing the settings that change the generated
+     * source, used to invalidate cached class sources when they change.
+     */
+    protected String getCacheSalt()
+    {
+        String salt = getClass().getSimpleName();
+        if (settings.getJsMinify())
+            salt += ":minify";
+        if (settings.getJsInjectionTables())
+            salt += ":tables";
+        if (settings.getJsInjectionFactories())
+            salt += ":factories";
+        if (settings.getJsPrototypeAlias())
+            salt += ":alias";
+        return salt;
     }
 
     /**
@@ -202,56 +355,256 @@ public abstract class BaseCompilationSet
     }
 
     /**
-     * Recursively method that walks a classes dependency list while calling
-     * {@link #writeClass(IClassDefinition)} to output the file in inheritance
-     * order.
+     * Recursively method that walks a classes dependency list while adding
+     * each class to the <code>result</code> in inheritance order.
      * 
      * @param definition The parent {@link ITypeDefinition} to walk it's
      * dependencies.
+     * @param result The ordered list of classes to write.
      */
-    protected void walkClass(IClassDefinition definition)
+    protected void walkClass(IClassDefinition definition,
+            List<IClassDefinition> result)
     {
         BinaryEntry entry = map.get(definition);
 
-        writeClass(definition);
+        result.add(definition);
 
         if (entry.getDependencies() != null)
         {
             for (IClassDefinition dependency : entry.getDependencies())
             {
-                walkClass(dependency);
+                walkClass(dependency, result);
+            }
+        }
+    }
+
+    /**
+     * Writes the ordered list of classes to the output, when the
+     * <code>js-generation-threads</code> argument is greater than one the
+     * class sources are generated concurrently and written in order.
+     * <p>
+     * Only a window of generated classes is held in memory at once, each
+     * class is written as soon as the classes before it have been written.
+     * 
+     * @param definitions The {@link IClassDefinition}s in output order.
+     */
+    protected void writeClasses(List<IClassDefinition> definitions)
+            throws IOException
+    {
+        int threads = settings.getJsGenerationThreads();
+        if (threads <= 1 || definitions.size() <= 1)
+        {
+            for (IClassDefinition definition : definitions)
+            {
+                writeClass(definition);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+                threads, definitions.size()));
+        try
+        {
+            int window = threads * 2;
+            LinkedList<Future<String>> fragments = new LinkedList<Future<String>>();
+            Iterator<IClassDefinition> iterator = definitions.iterator();
+            while (iterator.hasNext() || !fragments.isEmpty())
+            {
+                while (iterator.hasNext() && fragments.size() < window)
+                {
+                    final IClassDefinition definition = iterator.next();
+                    fragments.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception
+                        {
+                            return emitClass(definition);
+                        }
+                    }));
+                }
+
+                out.write(getFragment(fragments.removeFirst()));
             }
         }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String getFragment(Future<String> fragment)
+    {
+        try
+        {
+            return fragment.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
     }
 
     /**
-     * Writes a single {@link IClassDefinition} to the buffer during a full
+     * Writes a single {@link IClassDefinition} to the output during a full
      * project output.
      * 
-     * @param definition The {@link IClassDefinition} to write to the buffer.
+     * @param definition The {@link IClassDefinition} to write to the output.
      */
-    protected void writeClass(IClassDefinition definition)
+    protected void writeClass(IClassDefinition definition) throws IOException
+    {
+        out.write(emitClass(definition));
+    }
+
+    /**
+     * Generates the source code of a single {@link IClassDefinition} including
+     * it's section banner.
+     * <p>
+     * This method is called concurrently when generating with more than one
+     * thread, it uses it's own writer, emitter and walker.
+     * 
+     * @param definition The {@link IClassDefinition} to generate.
+     * @return The class's source code or an empty String if the class does not
+     * belong to this set.
+     */
+    protected String emitClass(IClassDefinition definition)
     {
         if (!accept(definition.getNode()))
-            return;
+            return "";
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(SECTION + definition.getQualifiedName() + "\n");
+        sb.append(BANNER + "\n\n");
+
+        ClassTiming timing = metrics.startClass(definition
+                .getQualifiedName());
 
-        builder.append("\n// ====================================================\n");
-        builder.append("// " + definition.getQualifiedName() + "\n");
-        builder.append("// ====================================================\n\n");
+        ICompilationUnit unit = project.getScope()
+                .getCompilationUnitForDefinition(definition);
+        if (cache != null && unit != null)
+        {
+            String source = cache.get(unit);
+            if (source != null)
+            {
+                timing.stop(source, true);
+                sb.append(source);
+                return sb.toString();
+            }
+        }
 
         IClassNode node = (IClassNode) definition.getNode();
         IFileNode fileNode = (IFileNode) node
                 .getAncestorOfType(IFileNode.class);
 
+        List<ICompilerProblem> classProblems = new ArrayList<ICompilerProblem>();
+
         ASFilterWriter writer = backend.createWriterBuffer(project);
         IRandoriEmitter emitter = (IRandoriEmitter) backend
                 .createEmitter(writer);
-        IASBlockWalker visitor = backend.createWalker(project, problems,
+        IASBlockWalker visitor = backend.createWalker(project, classProblems,
                 emitter);
 
         visitor.visitFile(fileNode);
 
-        builder.append(writer.toString());
+        List<ICompilerProblem> eproblems = RandoriUtils.getProblems(emitter);
+        if (classProblems.size() > 0 || eproblems.size() > 0)
+        {
+            synchronized (problems)
+            {
+                problems.addAll(classProblems);
+                problems.addAll(eproblems);
+            }
+        }
+
+        String source = writer.toString();
+        // a class with problems is generated again so they are reported
+        if (cache != null && unit != null && classProblems.isEmpty()
+                && eproblems.isEmpty())
+        {
+            cache.put(unit, source);
+        }
+
+        timing.stop(source, false);
+
+        sb.append(source);
+        return sb.toString();
+    }
+
+    /**
+     * Generates the source code of a single {@link ICompilationUnit} without
+     * a file banner.
+     * <p>
+     * This method is called concurrently when writing classes as files with
+     * more than one thread.
+     * 
+     * @param unit The {@link ICompilationUnit} to generate.
+     * @return The unit's source code, <code>null</code> when the emitter
+     * reported errors. The problems are added to the compile's problems.
+     */
+    protected String emitUnit(ICompilationUnit unit)
+    {
+        ClassTiming timing = metrics.startClass(unit.getName());
+
+        if (cache != null)
+        {
+            String source = cache.get(unit);
+            if (source != null)
+            {
+                timing.stop(source, true);
+                return source;
+            }
+        }
+
+        List<ICompilerProblem> unitProblems = new ArrayList<ICompilerProblem>();
+
+        ASFilterWriter writer = backend.createWriterBuffer(project);
+        IRandoriEmitter emitter = (IRandoriEmitter) backend
+                .createEmitter(writer);
+        IASBlockWalker visitor = backend.createWalker(project, unitProblems,
+                emitter);
+
+        visitor.visitCompilationUnit(unit);
+
+        List<ICompilerProblem> eproblems = RandoriUtils.getProblems(emitter);
+        if (unitProblems.size() > 0 || eproblems.size() > 0)
+        {
+            synchronized (problems)
+            {
+                problems.addAll(unitProblems);
+                problems.addAll(eproblems);
+            }
+        }
+        if (RandoriUtils.hasErrors(eproblems))
+            return null;
+
+        String source = writer.toString();
+        if (cache != null && unitProblems.isEmpty() && eproblems.isEmpty())
+        {
+            cache.put(unit, source);
+        }
+
+        timing.stop(source, false);
+        return source;
+    }
+
+    /**
+     * Adds a problem to the compile's problems, units and classes are
+     * generated concurrently.
+     */
+    protected void addProblem(ICompilerProblem problem)
+    {
+        synchronized (problems)
+        {
+            problems.add(problem);
+        }
     }
 
     /**
@@ -263,14 +616,49 @@ public abstract class BaseCompilationSet
      */
     protected void writeFull(String basePath, String fileName)
     {
-        builder = new StringBuilder();
-
         File outputFolder = new File(outputDirectory.getAbsoluteFile(),
                 basePath);
         outputFolder.mkdirs();
 
         outputFile = new File(outputFolder, fileName);
 
+        List<IClassDefinition> definitions = getOrderedClasses();
+
+        if (dirtyFiles != null && outputFile.exists())
+        {
+            if (patchFull(definitions))
+                return;
+        }
+
+        try
+        {
+            open();
+            out.write(createFileBanner());
+
+            writeClasses(definitions);
+
+            flush();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            close();
+        }
+
+        System.out.println("Finished");
+    }
+
+    /**
+     * Returns the classes of this set in the order they are written to a
+     * monolithic file, globals first then each class in inheritance order.
+     */
+    protected List<IClassDefinition> getOrderedClasses()
+    {
+        map.clear();
+
         List<IClassNode> nodes = new ArrayList<IClassNode>();
 
         List<IClassNode> globals = new ArrayList<IClassNode>();
@@ -278,9 +666,13 @@ public abstract class BaseCompilationSet
         for (ICompilationUnit unit : getCompilationUnits())
         {
             IClassNode node = getClassNode(unit);
+            if (node != null && treeShaker != null
+                    && !treeShaker.isReachable(node.getDefinition()))
+                continue;
+
             if (node != null)
             {
-                if (MetaDataUtils.isGlobal(node))
+                if (MetaDataUtils.isGlobal(node, metaDataIndex))
                 {
                     globals.add(node);
                 }
@@ -291,52 +683,274 @@ public abstract class BaseCompilationSet
             }
         }
 
-        builder.append("/** Compiled by the Randori compiler v"
-                + VersionInfo.getCompilerVersion() + " on "
-                + new Date().toString() + " */\n\n");
-
         for (IClassNode node : nodes)
         {
             handleClass(node.getDefinition(), null);
         }
 
+        List<IClassDefinition> definitions = new ArrayList<IClassDefinition>();
+
         for (IClassNode node : globals)
         {
-            writeClass(node.getDefinition());
+            definitions.add(node.getDefinition());
         }
 
         for (Entry<IClassDefinition, BinaryEntry> entry : map.entrySet())
         {
             if (entry.getValue().isRoot())
             {
-                walkClass(entry.getKey());
+                walkClass(entry.getKey(), definitions);
             }
         }
 
-        flush();
+        return definitions;
+    }
 
-        System.out.println("Finished");
+    /**
+     * Replaces the sections of the dirty classes in the existing monolithic
+     * file using the banners written by {@link #emitClass(IClassDefinition)}.
+     * <p>
+     * The file is left untouched and <code>false</code> returned when the
+     * file's sections do not match the current classes and order, a class was
+     * added, removed or it's base class changed.
+     * 
+     * @param definitions The classes in output order.
+     * @return Whether the file was patched.
+     */
+    protected boolean patchFull(List<IClassDefinition> definitions)
+    {
+        String content;
+        try
+        {
+            content = FileUtils.readFileAsString(outputFile, FileUtils.UTF_8);
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+
+        List<String> names = new ArrayList<String>();
+        List<IClassDefinition> dirty = new ArrayList<IClassDefinition>();
+        for (IClassDefinition definition : definitions)
+        {
+            if (!accept(definition.getNode()))
+                continue;
+
+            names.add(definition.getQualifiedName());
+
+            ICompilationUnit unit = project.getScope()
+                    .getCompilationUnitForDefinition(definition);
+            if (unit != null && isDirty(unit))
+                dirty.add(definition);
+        }
+
+        // the sections in the file must be the classes in the same order
+        List<Integer> offsets = new ArrayList<Integer>();
+        int index = content.indexOf(SECTION);
+        for (String name : names)
+        {
+            if (index == -1)
+                return false;
+            int start = index + SECTION.length();
+            int end = content.indexOf('\n', start);
+            if (end == -1 || !content.substring(start, end).equals(name))
+                return false;
+            offsets.add(index);
+            index = content.indexOf(SECTION, end);
+        }
+
+        if (index != -1)
+            return false;
+
+        if (dirty.size() == 0)
+            return true;
+
+        try
+        {
+            open();
+            out.write(content, 0, offsets.get(0));
+            for (int i = 0; i < names.size(); i++)
+            {
+                int start = offsets.get(i);
+                int end = i + 1 < offsets.size() ? offsets.get(i + 1)
+                        : content.length();
+
+                IClassDefinition definition = findClass(dirty, names.get(i));
+                if (definition != null)
+                {
+                    out.write(emitClass(definition));
+                }
+                else
+                {
+                    out.write(content, start, end - start);
+                }
+            }
+            flush();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            close();
+        }
+
+        System.out.println("Patched " + dirty.size() + " classes in "
+                + outputFile.getName());
+
+        return true;
+    }
+
+    private static IClassDefinition findClass(
+            List<IClassDefinition> definitions, String qualifiedName)
+    {
+        for (IClassDefinition definition : definitions)
+        {
+            if (definition.getQualifiedName().equals(qualifiedName))
+                return definition;
+        }
+        return null;
+    }
+
+    /**
+     * Opens the buffered output of a full project write to the target file.
+     */
+    protected void open() throws IOException
+    {
+        if (settings.getJsSkipUnchangedOutput() && outputFile.exists())
+        {
+            // written aside and compared when closed
+            tempFile = File.createTempFile(outputFile.getName() + ".",
+                    ".tmp", outputFile.getParentFile());
+            out = FileUtils.createWriter(tempFile);
+        }
+        else
+        {
+            out = FileUtils.createWriter(outputFile);
+        }
     }
 
     /**
-     * Flushes the buffer of a full project write to the target file.
+     * Flushes the output of a full project write to the target file.
      */
-    protected void flush()
+    protected void flush() throws IOException
     {
-        BufferedOutputStream out;
+        out.flush();
+    }
+
+    /**
+     * Closes the output of a full project write.
+     */
+    protected void close()
+    {
+        if (out == null)
+            return;
+
         try
         {
-            out = new BufferedOutputStream(new FileOutputStream(outputFile));
-            out.write(builder.toString().getBytes());
             out.close();
+            if (tempFile == null || replaceIfChanged(tempFile, outputFile))
+                metrics.fileWritten(outputFile);
         }
         catch (IOException e)
         {
             e.printStackTrace();
         }
+        finally
+        {
+            if (tempFile != null)
+                tempFile.delete();
+            tempFile = null;
+        }
+        out = null;
+    }
+
+    private boolean replaceIfChanged(File source, File target)
+            throws IOException
+    {
+        if (MessageDigest.isEqual(FileUtils.digest(source, FILE_BANNER),
+                FileUtils.digest(target, FILE_BANNER)))
+        {
+            metrics.incrementFilesUnchanged();
+            System.out.println("Unchanged " + target.getName());
+            return false;
+        }
+
+        FileUtils.moveAtomically(source, target);
+        return true;
+    }
+
+    /**
+     * Writes a single output file, when <code>js-skip-unchanged-output</code>
+     * is set a file with the same content, not counting the banner, is left
+     * untouched.
+     * <p>
+     * The file is replaced atomically.
+     * 
+     * @param file The output file.
+     * @param banner The file's banner.
+     * @param content The file's content following the banner.
+     * @return <code>true</code> if the file was written.
+     */
+    protected boolean writeOutput(File file, String banner, String content)
+            throws IOException
+    {
+        if (settings.getJsSkipUnchangedOutput() && file.exists()
+                && MessageDigest.isEqual(
+                        FileUtils.digest(FILE_BANNER, banner, content),
+                        FileUtils.digest(file, FILE_BANNER)))
+        {
+            metrics.incrementFilesUnchanged();
+            return false;
+        }
+
+        FileUtils.writeFileAtomically(file, banner, content);
+        metrics.fileWritten(file);
+        return true;
+    }
+
+    /**
+     * Returns the banner starting each output file.
+     */
+    protected static String createFileBanner()
+    {
+        return FILE_BANNER + VersionInfo.getCompilerVersion() + " on "
+                + new Date().toString() + " */\n\n";
     }
 
     protected IClassNode getClassNode(ICompilationUnit unit)
+    {
+        IClassNode node = classNodes.get(unit);
+        if (node != null)
+            return node;
+        return findClassNode(unit, metaDataIndex);
+    }
+
+    /**
+     * Returns the exported {@link IClassNode} of an ActionScript unit, waits
+     * for the unit's syntax tree.
+     * 
+     * @param unit The {@link ICompilationUnit} to search.
+     * @return The class node or <code>null</code> if the unit has no exported
+     * class.
+     */
+    public static IClassNode findClassNode(ICompilationUnit unit)
+    {
+        return findClassNode(unit, null);
+    }
+
+    /**
+     * Returns the exported {@link IClassNode} of an ActionScript unit, waits
+     * for the unit's syntax tree.
+     * 
+     * @param unit The {@link ICompilationUnit} to search.
+     * @param index The metadata index of the build or <code>null</code>.
+     * @return The class node or <code>null</code> if the unit has no exported
+     * class.
+     */
+    public static IClassNode findClassNode(ICompilationUnit unit,
+            MetaDataIndex index)
     {
         if (unit.getCompilationUnitType() != UnitType.AS_UNIT)
             return null;
@@ -353,7 +967,8 @@ public abstract class BaseCompilationSet
                         .findClassNode(packageNode);
                 if (classNode != null)
                 {
-                    if (MetaDataUtils.isExport(classNode.getDefinition()))
+                    if (MetaDataUtils.isExport(classNode.getDefinition(),
+                            index))
                     {
                         return classNode;
                     }
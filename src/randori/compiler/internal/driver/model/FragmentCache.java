@@ -0,0 +1,243 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.driver.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.flex.compiler.internal.projects.FlexProject;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.compiler.units.ICompilationUnit.UnitType;
+
+import randori.compiler.common.VersionInfo;
+import randori.compiler.internal.utils.FileUtils;
+
+/**
+ * A persistent on disk cache of generated class sources.
+ * <p>
+ * Each entry is keyed by a digest of the unit's source and the sources of all
+ * the units it depends on directly or transitively (the inheritance chain,
+ * imported types, injected constructor parameters, inlined constants), any
+ * change to one of those files invalidates the entry.
+ * <p>
+ * The cache is safe to use from concurrent generation threads.
+ * 
+ * @author Michael Schmalle
+ */
+public class FragmentCache
+{
+    private static final String EXTENSION = ".jscache";
+
+    private final FlexProject project;
+
+    private final File directory;
+
+    private final String salt;
+
+    private final ConcurrentHashMap<String, String> fingerprints = new ConcurrentHashMap<String, String>();
+
+    private final ConcurrentHashMap<ICompilationUnit, String> keys = new ConcurrentHashMap<ICompilationUnit, String>();
+
+    /**
+     * Creates a cache.
+     * 
+     * @param project The project the cached units belong to.
+     * @param directory The directory the entries are stored in.
+     * @param salt Any output settings that change the generated source, added
+     * to every key.
+     */
+    public FragmentCache(FlexProject project, File directory, String salt)
+    {
+        this.project = project;
+        this.directory = directory;
+        this.salt = VersionInfo.getCompilerVersion() + ";" + salt;
+        directory.mkdirs();
+    }
+
+    /**
+     * Returns the cached source for the unit or <code>null</code> if there is
+     * no entry or the entry is stale.
+     * 
+     * @param unit The {@link ICompilationUnit} to lookup.
+     */
+    public String get(ICompilationUnit unit)
+    {
+        String key = getKey(unit);
+        if (key == null)
+            return null;
+
+        File file = getFile(unit);
+        if (!file.isFile())
+            return null;
+
+        try
+        {
+            String content = FileUtils.readFileAsString(file,
+                    FileUtils.UTF_8);
+            int index = content.indexOf('\n');
+            if (index == -1 || !key.equals(content.substring(0, index)))
+                return null;
+            return content.substring(index + 1);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the generated source for the unit.
+     * 
+     * @param unit The {@link ICompilationUnit} that was generated.
+     * @param source The generated source.
+     */
+    public void put(ICompilationUnit unit, String source)
+    {
+        String key = getKey(unit);
+        if (key == null)
+            return;
+
+        try
+        {
+            FileUtils.writeFileAtomically(getFile(unit), key, "\n", source);
+        }
+        catch (IOException e)
+        {
+            // the unit is generated again by the next compile
+        }
+    }
+
+    private File getFile(ICompilationUnit unit)
+    {
+        String path = unit.getAbsoluteFilename();
+        return new File(directory, digest(path) + EXTENSION);
+    }
+
+    /**
+     * Returns the key of the unit, the unit's dependencies are resolved and
+     * fingerprinted once per cache instance.
+     */
+    String getKey(ICompilationUnit unit)
+    {
+        String key = keys.get(unit);
+        if (key != null)
+            return key;
+
+        String fingerprint = getFingerprint(unit);
+        if (fingerprint == null)
+            return null;
+
+        List<String> dependencies = new ArrayList<String>();
+        for (ICompilationUnit dependency : getDependencies(unit))
+        {
+            if (dependency == unit)
+                continue;
+            String print = getFingerprint(dependency);
+            if (print == null)
+                return null;
+            dependencies.add(dependency.getAbsoluteFilename() + "=" + print);
+        }
+        Collections.sort(dependencies);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(salt).append('\n');
+        sb.append(fingerprint).append('\n');
+        for (String dependency : dependencies)
+        {
+            sb.append(dependency).append('\n');
+        }
+
+        key = digest(sb.toString());
+        keys.put(unit, key);
+        return key;
+    }
+
+    /**
+     * Returns the transitive closure of the unit's dependencies, a change to a
+     * grand parent's source changes the generated code of the grand child
+     * just as a change to the direct base class does.
+     */
+    private Set<ICompilationUnit> getDependencies(ICompilationUnit unit)
+    {
+        Set<ICompilationUnit> result = new HashSet<ICompilationUnit>();
+        LinkedList<ICompilationUnit> queue = new LinkedList<ICompilationUnit>();
+        queue.add(unit);
+        while (!queue.isEmpty())
+        {
+            for (ICompilationUnit dependency : project
+                    .getDirectDependencies(queue.removeFirst()))
+            {
+                if (result.add(dependency))
+                    queue.add(dependency);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Source units are fingerprinted by content, library units by the
+     * library's size and modification time.
+     */
+    private String getFingerprint(ICompilationUnit unit)
+    {
+        String path = unit.getAbsoluteFilename();
+        if (path == null)
+            return null;
+
+        String fingerprint = fingerprints.get(path);
+        if (fingerprint != null)
+            return fingerprint;
+
+        File file = new File(path);
+        if (!file.isFile())
+            return null;
+
+        if (unit.getCompilationUnitType() == UnitType.AS_UNIT)
+        {
+            try
+            {
+                fingerprint = FileUtils.toHex(FileUtils.digest(file, null));
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
+        }
+        else
+        {
+            fingerprint = file.length() + ":" + file.lastModified();
+        }
+
+        fingerprints.put(path, fingerprint);
+        return fingerprint;
+    }
+
+    private static String digest(String content)
+    {
+        return FileUtils.toHex(FileUtils.digest((String) null, content));
+    }
+}
@@ -0,0 +1,260 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.driver.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.flex.compiler.definitions.IClassDefinition;
+import org.apache.flex.compiler.definitions.IDefinition;
+import org.apache.flex.compiler.definitions.IFunctionDefinition;
+import org.apache.flex.compiler.definitions.IParameterDefinition;
+import org.apache.flex.compiler.definitions.ITypeDefinition;
+import org.apache.flex.compiler.definitions.IVariableDefinition;
+import org.apache.flex.compiler.internal.tree.as.FunctionNode;
+import org.apache.flex.compiler.problems.ICompilerProblem;
+import org.apache.flex.compiler.projects.ICompilerProject;
+import org.apache.flex.compiler.tree.as.IASNode;
+import org.apache.flex.compiler.tree.as.IClassNode;
+import org.apache.flex.compiler.tree.as.IDefinitionNode;
+import org.apache.flex.compiler.tree.as.IIdentifierNode;
+
+import randori.compiler.internal.utils.DefinitionUtils;
+import randori.compiler.internal.utils.MetaDataIndex;
+import randori.compiler.internal.utils.MetaDataUtils;
+
+/**
+ * Computes the classes reachable from the application's classes.
+ * <p>
+ * A class reaches it's base class, the classes of every definition an
+ * identifier in it's source resolves to and the types the injector creates
+ * for it; the constructor parameters and the <code>[Inject]</code> and
+ * <code>[View]</code> members. The references of the source include the
+ * <code>new</code> expressions and argument types the emitter records as the
+ * class's dependencies.
+ * <p>
+ * Only classes are dropped, a method can be called through an override, by
+ * the injector or from JavaScript by name.
+ * 
+ * @author Michael Schmalle
+ */
+public class TreeShaker
+{
+    /**
+     * The framework classes the page creates by name to start the application.
+     */
+    static final String STARTUP = "randori.startup.";
+
+    private final ICompilerProject project;
+
+    private final List<String> keep = new ArrayList<String>();
+
+    private final Set<IClassDefinition> reachable = new HashSet<IClassDefinition>();
+
+    private final LinkedList<IClassDefinition> queue = new LinkedList<IClassDefinition>();
+
+    private final List<ICompilerProblem> problems = new ArrayList<ICompilerProblem>();
+
+    private final MetaDataIndex metaDataIndex;
+
+    /**
+     * Creates a tree shaker.
+     * 
+     * @param project The project the classes are resolved in.
+     * @param keep The qualified name prefixes of classes always kept.
+     */
+    public TreeShaker(ICompilerProject project, Collection<String> keep)
+    {
+        this(project, keep, null);
+    }
+
+    /**
+     * Creates a tree shaker.
+     * 
+     * @param project The project the classes are resolved in.
+     * @param keep The qualified name prefixes of classes always kept.
+     * @param metaDataIndex The metadata index of the build or
+     * <code>null</code>.
+     */
+    public TreeShaker(ICompilerProject project, Collection<String> keep,
+            MetaDataIndex metaDataIndex)
+    {
+        this.project = project;
+        this.metaDataIndex = metaDataIndex;
+        this.keep.add(STARTUP);
+        this.keep.addAll(keep);
+    }
+
+    /**
+     * Adds a class the application starts from, the class and all classes it
+     * reaches are kept.
+     * 
+     * @param definition The root class.
+     */
+    public void addRoot(IClassDefinition definition)
+    {
+        reach(definition);
+    }
+
+    /**
+     * Adds the class as a root if it matches a keep prefix.
+     * 
+     * @param definition The class to test.
+     * @return Whether the class is kept.
+     */
+    public boolean addKept(IClassDefinition definition)
+    {
+        for (String prefix : keep)
+        {
+            if (definition.getQualifiedName().startsWith(prefix))
+            {
+                reach(definition);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Walks the classes reached from the roots, classes without source are
+     * kept but not walked.
+     */
+    public void shake()
+    {
+        while (!queue.isEmpty())
+        {
+            IClassDefinition definition = queue.removeFirst();
+
+            reach(definition.resolveBaseClass(project));
+
+            IClassNode node = (IClassNode) definition.getNode();
+            if (node == null)
+                continue;
+
+            reachInjections(node);
+            walk(node);
+        }
+    }
+
+    /**
+     * Returns whether the class is reached from the roots.
+     * 
+     * @param definition The class to test.
+     */
+    public boolean isReachable(IClassDefinition definition)
+    {
+        return reachable.contains(definition);
+    }
+
+    /**
+     * Returns the number of reachable classes.
+     */
+    public int size()
+    {
+        return reachable.size();
+    }
+
+    /**
+     * Returns the problems of the function bodies parsed while walking, a
+     * body is parsed once so the emitter does not report them again.
+     */
+    public List<ICompilerProblem> getProblems()
+    {
+        return problems;
+    }
+
+    private void reachInjections(IClassNode node)
+    {
+        IFunctionDefinition constructor = node.getDefinition()
+                .getConstructor();
+        if (constructor != null)
+            reachParameters(constructor);
+
+        for (IDefinitionNode member : node.getAllMemberNodes())
+        {
+            IDefinition definition = member.getDefinition();
+            if (MetaDataUtils.getInjectTag(definition, metaDataIndex) == null
+                    && MetaDataUtils.getViewTag(definition,
+                            metaDataIndex) == null)
+                continue;
+
+            if (definition instanceof IVariableDefinition)
+            {
+                reachType(((IVariableDefinition) definition)
+                        .resolveType(project));
+            }
+            else if (definition instanceof IFunctionDefinition)
+            {
+                IFunctionDefinition function = (IFunctionDefinition) definition;
+                reachParameters(function);
+                reachType(function.resolveReturnType(project));
+            }
+        }
+    }
+
+    private void reachParameters(IFunctionDefinition function)
+    {
+        for (IParameterDefinition parameter : function.getParameters())
+        {
+            reachType(parameter.resolveType(project));
+        }
+    }
+
+    private void walk(IASNode node)
+    {
+        int n = node.getChildCount();
+        for (int i = 0; i < n; i++)
+        {
+            IASNode child = node.getChild(i);
+            if (child instanceof FunctionNode)
+            {
+                ((FunctionNode) child).parseFunctionBody(problems);
+            }
+            if (child instanceof IIdentifierNode)
+            {
+                IDefinition definition = ((IIdentifierNode) child)
+                        .resolve(project);
+                if (definition != null)
+                    reachType(DefinitionUtils.getTypeDefinition(definition));
+            }
+
+            walk(child);
+        }
+    }
+
+    private void reachType(ITypeDefinition type)
+    {
+        // interfaces are not written
+        if (type instanceof IClassDefinition)
+            reach((IClassDefinition) type);
+    }
+
+    private void reach(IClassDefinition definition)
+    {
+        if (definition == null || !reachable.add(definition))
+            return;
+
+        queue.add(definition);
+    }
+}
@@ -0,0 +1,361 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the wall and cpu time of the compile phases along with per class
+ * emit times and counters.
+ * <p>
+ * Each compile records into its own metrics, handed from the compiler to the
+ * backend, target and application of the compile. A compile without a metrics
+ * report uses {@link #DISABLED}, which records nothing. All methods are safe
+ * to call from concurrent generation threads.
+ * <p>
+ * The cpu time of a phase is the process's cpu time so the work of the
+ * generation threads is included, as is the work of other compiles running in
+ * the same VM. The cpu time of a class is the time of the thread generating
+ * it.
+ * 
+ * @author Michael Schmalle
+ */
+public class CompilerMetrics
+{
+    /**
+     * Metrics that record nothing, shared by all compiles without a metrics
+     * report.
+     */
+    public static final CompilerMetrics DISABLED = new CompilerMetrics(false);
+
+    private static final ThreadMXBean THREADS = ManagementFactory
+            .getThreadMXBean();
+
+    private static final OperatingSystemMXBean SYSTEM = ManagementFactory
+            .getOperatingSystemMXBean();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final boolean enabled;
+
+    private final ConcurrentLinkedQueue<Phase> phases = new ConcurrentLinkedQueue<Phase>();
+
+    private final ConcurrentLinkedQueue<ClassTiming> classes = new ConcurrentLinkedQueue<ClassTiming>();
+
+    private final AtomicLong resolves = new AtomicLong();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private final AtomicLong filesWritten = new AtomicLong();
+
+    private final AtomicLong filesUnchanged = new AtomicLong();
+
+    public CompilerMetrics()
+    {
+        this(true);
+    }
+
+    private CompilerMetrics(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a phase, the phase is recorded when {@link Phase#stop()}
+     * is called.
+     * 
+     * @param name The name of the phase.
+     */
+    public Phase startPhase(String name)
+    {
+        return new Phase(this, name);
+    }
+
+    /**
+     * Starts timing the generation of a class on the calling thread.
+     * 
+     * @param qualifiedName The qualified name of the class.
+     */
+    public ClassTiming startClass(String qualifiedName)
+    {
+        return new ClassTiming(this, qualifiedName);
+    }
+
+    /**
+     * Counts a definition resolution made while emitting.
+     */
+    public void incrementResolves()
+    {
+        if (enabled)
+            resolves.incrementAndGet();
+    }
+
+    public long getResolves()
+    {
+        return resolves.get();
+    }
+
+    public long getBytesWritten()
+    {
+        return bytesWritten.get();
+    }
+
+    /**
+     * Counts an output file that was left untouched because its content did
+     * not change.
+     */
+    public void incrementFilesUnchanged()
+    {
+        if (enabled)
+            filesUnchanged.incrementAndGet();
+    }
+
+    /**
+     * Counts an output file that was written or replaced, the file's length is
+     * added to the bytes written. Files left untouched are counted with
+     * {@link #incrementFilesUnchanged()} instead.
+     * 
+     * @param file The written output file.
+     */
+    public void fileWritten(File file)
+    {
+        if (!enabled)
+            return;
+
+        filesWritten.incrementAndGet();
+        bytesWritten.addAndGet(file.length());
+    }
+
+    /**
+     * Writes the recorded metrics as JSON, the report is not counted as an
+     * output file.
+     * 
+     * @param file The report file.
+     */
+    public void writeReport(File file) throws IOException
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null)
+            parent.mkdirs();
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), UTF_8));
+        try
+        {
+            out.write(toJSON());
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the recorded metrics as a JSON document.
+     */
+    public String toJSON()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"phases\": [");
+        appendAll(sb, new ArrayList<Timing>(phases));
+        sb.append("],\n");
+        sb.append("  \"classes\": [");
+        appendAll(sb, new ArrayList<Timing>(classes));
+        sb.append("],\n");
+        sb.append("  \"resolves\": ").append(resolves.get()).append(",\n");
+        sb.append("  \"filesWritten\": ").append(filesWritten.get())
+                .append(",\n");
+        sb.append("  \"filesUnchanged\": ").append(filesUnchanged.get())
+                .append(",\n");
+        sb.append("  \"bytesWritten\": ").append(bytesWritten.get())
+                .append("\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void appendAll(StringBuilder sb, List<Timing> timings)
+    {
+        for (int i = 0; i < timings.size(); i++)
+        {
+            sb.append(i == 0 ? "\n    " : ",\n    ");
+            timings.get(i).appendTo(sb);
+        }
+        if (timings.size() > 0)
+            sb.append("\n  ");
+    }
+
+    static long cpuTime(boolean process)
+    {
+        if (process
+                && SYSTEM instanceof com.sun.management.OperatingSystemMXBean)
+            return ((com.sun.management.OperatingSystemMXBean) SYSTEM)
+                    .getProcessCpuTime();
+        if (!THREADS.isCurrentThreadCpuTimeSupported())
+            return 0;
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    static String quote(String value)
+    {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < ' ')
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * A wall and cpu time, the cpu time of the process or of the measuring
+     * thread.
+     */
+    public static abstract class Timing
+    {
+        final CompilerMetrics metrics;
+
+        final String name;
+
+        private final boolean process;
+
+        private final long wallStart;
+
+        private final long cpuStart;
+
+        long wall;
+
+        long cpu;
+
+        Timing(CompilerMetrics metrics, String name, boolean process)
+        {
+            this.metrics = metrics;
+            this.name = name;
+            this.process = process;
+            wallStart = metrics.enabled ? System.nanoTime() : 0;
+            cpuStart = metrics.enabled ? cpuTime(process) : 0;
+        }
+
+        void measure()
+        {
+            wall = System.nanoTime() - wallStart;
+            cpu = cpuTime(process) - cpuStart;
+        }
+
+        void appendTo(StringBuilder sb)
+        {
+            sb.append("{\"name\": ").append(quote(name));
+            sb.append(", \"wallMillis\": ").append(wall / 1000000.0);
+            sb.append(", \"cpuMillis\": ").append(cpu / 1000000.0);
+        }
+    }
+
+    /**
+     * A compile phase, measured with the process's cpu time.
+     */
+    public static class Phase extends Timing
+    {
+        Phase(CompilerMetrics metrics, String name)
+        {
+            super(metrics, name, true);
+        }
+
+        public void stop()
+        {
+            if (!metrics.enabled)
+                return;
+
+            measure();
+            metrics.phases.add(this);
+        }
+
+        @Override
+        void appendTo(StringBuilder sb)
+        {
+            super.appendTo(sb);
+            sb.append("}");
+        }
+    }
+
+    /**
+     * The generation of a single class, measured with the generating thread's
+     * cpu time.
+     */
+    public static class ClassTiming extends Timing
+    {
+        private long bytes;
+
+        private boolean cached;
+
+        ClassTiming(CompilerMetrics metrics, String name)
+        {
+            super(metrics, name, false);
+        }
+
+        /**
+         * Records the class's timing.
+         * 
+         * @param source The generated source.
+         * @param cached Whether the source was served from the cache.
+         */
+        public void stop(String source, boolean cached)
+        {
+            if (!metrics.enabled)
+                return;
+
+            measure();
+            this.bytes = source != null ? source.getBytes(UTF_8).length : 0;
+            this.cached = cached;
+            metrics.classes.add(this);
+        }
+
+        @Override
+        void appendTo(StringBuilder sb)
+        {
+            super.appendTo(sb);
+            sb.append(", \"bytes\": ").append(bytes);
+            sb.append(", \"cached\": ").append(cached);
+            sb.append("}");
+        }
+    }
+}
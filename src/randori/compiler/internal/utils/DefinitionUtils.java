@@ -246,6 +246,20 @@ public class DefinitionUtils
         return null;
     }
 
+    /**
+     * Returns the base class of the class containing the node or
+     * <code>null</code>.
+     */
+    public static IClassDefinition resolveSuperClass(IASNode node,
+            ICompilerProject project)
+    {
+        ITypeNode tnode = (ITypeNode) node.getAncestorOfType(ITypeNode.class);
+        ITypeDefinition type = (ITypeDefinition) tnode.getDefinition();
+        if (type instanceof IClassDefinition)
+            return ((IClassDefinition) type).resolveBaseClass(project);
+        return null;
+    }
+
     public static String toSuperQualifiedName(IASNode node,
             ICompilerProject project)
     {
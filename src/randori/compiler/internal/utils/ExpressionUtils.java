@@ -54,11 +54,22 @@ import org.apache.flex.compiler.tree.as.IScopedNode;
 import org.apache.flex.compiler.tree.as.IUnaryOperatorNode;
 import org.apache.flex.compiler.tree.as.IVariableNode;
 
+import randori.compiler.codegen.js.ISessionModel;
+
 /**
  * @author Michael Schmalle
  */
 public class ExpressionUtils
 {
+    /**
+     * Returns the base {@link IExpressionNode} of the node passed by walking
+     * its children; no definitions are resolved, so the walk is not memoized
+     * in the {@link ISessionModel}.
+     *
+     * @param iNode The node to walk.
+     * @param toRight Whether binary operators walk to their right operand.
+     * @param project The current compiler project.
+     */
     public static IExpressionNode getNode(IASNode iNode, Boolean toRight,
             ICompilerProject project)
     {
@@ -293,6 +304,16 @@ public class ExpressionUtils
 
     public static boolean isValidThis(IIdentifierNode node,
             ICompilerProject project)
+    {
+        return isValidThis(node, project, null);
+    }
+
+    /**
+     * Returns whether the identifier needs an inserted <code>this.</code>,
+     * resolving through the session's model when one is passed.
+     */
+    public static boolean isValidThis(IIdentifierNode node,
+            ICompilerProject project, ISessionModel model)
     {
         // added super.foo(), wanted to 'this' behind foo
         if (node.getParent() instanceof IMemberAccessExpressionNode)
@@ -333,7 +354,8 @@ public class ExpressionUtils
 
         }
 
-        IDefinition definition = node.resolve(project);
+        IDefinition definition = model != null ? model.resolve(node, project)
+                : node.resolve(project);
         if (definition == null)
             return false; // Is this correct?
         if (definition instanceof IParameterDefinition)
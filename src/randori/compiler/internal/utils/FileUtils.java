@@ -19,13 +19,30 @@
 
 package randori.compiler.internal.utils;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.flex.compiler.definitions.ITypeDefinition;
 
 /**
@@ -33,6 +50,10 @@ import org.apache.flex.compiler.definitions.ITypeDefinition;
  */
 public class FileUtils
 {
+    public static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
     public static String readFileAsString(String filePath) throws IOException
     {
         StringBuffer fileData = new StringBuffer();
@@ -48,6 +69,218 @@ public class FileUtils
         return fileData.toString();
     }
 
+    public static String readFileAsString(File file, Charset charset)
+            throws IOException
+    {
+        StringBuilder fileData = new StringBuilder();
+        Reader reader = new InputStreamReader(new FileInputStream(file),
+                charset);
+        try
+        {
+            char[] buf = new char[8192];
+            int numRead = 0;
+            while ((numRead = reader.read(buf)) != -1)
+            {
+                fileData.append(buf, 0, numRead);
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return fileData.toString();
+    }
+
+    /**
+     * Creates a buffered UTF-8 writer for the file.
+     */
+    public static Writer createWriter(File file) throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+                file), UTF_8));
+    }
+
+    /**
+     * Writes the content to a temporary file next to the target then renames
+     * it over the target, readers never see a partially written file.
+     * 
+     * @param file The target file.
+     * @param content The parts of the file's content, written one after the
+     * other as UTF-8.
+     */
+    public static void writeFileAtomically(File file, String... content)
+            throws IOException
+    {
+        File temp = File.createTempFile(file.getName() + ".", ".tmp",
+                file.getAbsoluteFile().getParentFile());
+        Writer writer = null;
+        try
+        {
+            writer = createWriter(temp);
+            for (String part : content)
+            {
+                writer.write(part);
+            }
+            writer.close();
+            writer = null;
+
+            moveAtomically(temp, file);
+        }
+        finally
+        {
+            if (writer != null)
+                writer.close();
+            temp.delete();
+        }
+    }
+
+    /**
+     * Moves the source over the target, atomically where the file system
+     * supports it.
+     * 
+     * @param source The file to move.
+     * @param target The file to replace.
+     */
+    public static void moveAtomically(File source, File target)
+            throws IOException
+    {
+        try
+        {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns the SHA-1 digest of the content's UTF-8 encoding, a first line
+     * starting with the volatile prefix is not part of the digest. The parts
+     * are encoded as they are digested, without being joined.
+     * 
+     * @param volatilePrefix The prefix of a first line to skip,
+     * <code>null</code> digests all of the content.
+     * @param content The parts of the content to digest, the first line
+     * must be part of the first.
+     */
+    public static byte[] digest(String volatilePrefix, String... content)
+    {
+        MessageDigest digest = createDigest();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM,
+                        digest), UTF_8));
+        try
+        {
+            for (int i = 0; i < content.length; i++)
+            {
+                String part = content[i];
+                int offset = 0;
+                if (i == 0 && volatilePrefix != null
+                        && part.startsWith(volatilePrefix))
+                {
+                    int end = part.indexOf('\n');
+                    offset = end != -1 ? end + 1 : part.length();
+                }
+                writer.write(part, offset, part.length() - offset);
+            }
+            writer.close();
+        }
+        catch (IOException e)
+        {
+            // the null stream does not throw
+            throw new IllegalStateException(e);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Returns the SHA-1 digest of the file's content, a first line starting
+     * with the volatile prefix is not part of the digest.
+     * 
+     * @param file The file to digest.
+     * @param volatilePrefix The prefix of a first line to skip,
+     * <code>null</code> digests all of the file.
+     */
+    public static byte[] digest(File file, String volatilePrefix)
+            throws IOException
+    {
+        MessageDigest digest = createDigest();
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try
+        {
+            if (volatilePrefix != null)
+                skipVolatileLine(in, volatilePrefix.getBytes(UTF_8));
+
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, n);
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    private static void skipVolatileLine(InputStream in, byte[] prefix)
+            throws IOException
+    {
+        byte[] head = new byte[prefix.length];
+        in.mark(prefix.length);
+        int read = 0;
+        while (read < head.length)
+        {
+            int n = in.read(head, read, head.length - read);
+            if (n == -1)
+                break;
+            read += n;
+        }
+
+        if (read == head.length && Arrays.equals(head, prefix))
+        {
+            int c;
+            while ((c = in.read()) != -1 && c != '\n')
+                ;
+        }
+        else
+        {
+            in.reset();
+        }
+    }
+
+    /**
+     * Returns the lower case hexadecimal form of a digest.
+     */
+    public static String toHex(byte[] bytes)
+    {
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            result[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            result[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(result);
+    }
+
+    private static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public static void writeFile(String filePath, String data)
     {
         BufferedWriter writer = null;
@@ -0,0 +1,183 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.flex.compiler.definitions.IDefinition;
+import org.apache.flex.compiler.definitions.metadata.IMetaTag;
+import org.apache.flex.compiler.internal.definitions.AppliedVectorDefinition;
+
+import randori.compiler.internal.utils.MetaDataUtils.MetaData;
+import randori.compiler.internal.utils.MetaDataUtils.MetaData.Mode;
+
+/**
+ * An index of the Randori metadata of the definitions of one build.
+ * <p>
+ * Each definition's meta tags are scanned once, the first time the
+ * definition is looked up, and kept as the {@link MetaData} tags it contains
+ * plus a set of flags for the <code>[JavaScript]</code> attributes the
+ * {@link MetaDataUtils} helpers test.
+ * <p>
+ * Each build creates its own index once its definitions have been created,
+ * the index is handed through the application and backend to the session
+ * model of every emitter of the build. It is safe to use from concurrent
+ * generation threads. The {@link MetaDataUtils} helpers given no index scan
+ * the tags directly.
+ * 
+ * @author Michael Schmalle
+ */
+public class MetaDataIndex
+{
+    /**
+     * The definition has a <code>[JavaScript]</code> tag.
+     */
+    public static final int JAVASCRIPT = 1;
+
+    /**
+     * The <code>[JavaScript]</code> tag has <code>export="false"</code>.
+     */
+    public static final int EXPORT_FALSE = 1 << 1;
+
+    /**
+     * The definition is native; <code>export="false"</code>, a vector or a
+     * <code>[native]</code> tag.
+     */
+    public static final int NATIVE = 1 << 2;
+
+    /**
+     * The <code>[JavaScript]</code> tag has a <code>mode</code> attribute.
+     */
+    public static final int MODE = 1 << 3;
+
+    /**
+     * The <code>[JavaScript]</code> tag has <code>mode="global"</code>.
+     */
+    public static final int MODE_GLOBAL = 1 << 4;
+
+    /**
+     * The <code>[JavaScript]</code> tag has <code>mode="json"</code>.
+     */
+    public static final int MODE_JSON = 1 << 5;
+
+    private static final MetaData[] META_DATA = MetaData.values();
+
+    private final ConcurrentHashMap<IDefinition, Entry> entries = new ConcurrentHashMap<IDefinition, Entry>();
+
+    /**
+     * Returns the definition's entry, scanning its meta tags the first time.
+     * 
+     * @param definition The definition to look up.
+     */
+    public Entry get(IDefinition definition)
+    {
+        Entry entry = entries.get(definition);
+        if (entry == null)
+        {
+            entry = new Entry(definition);
+            Entry previous = entries.putIfAbsent(definition, entry);
+            if (previous != null)
+                entry = previous;
+        }
+        return entry;
+    }
+
+    /**
+     * The scanned metadata of a single definition.
+     */
+    public static class Entry
+    {
+        private final int flags;
+
+        private final IMetaTag[] tags = new IMetaTag[META_DATA.length];
+
+        Entry(IDefinition definition)
+        {
+            for (MetaData metaData : META_DATA)
+            {
+                tags[metaData.ordinal()] = definition
+                        .getMetaTagByName(metaData.getName());
+            }
+
+            int value = 0;
+            IMetaTag tag = getTag(MetaData.JavaScript);
+            if (tag != null)
+            {
+                value |= JAVASCRIPT;
+
+                String export = tag
+                        .getAttributeValue(MetaDataUtils.ATT_EXPORT);
+                if (MetaDataUtils.VALUE_FALSE.equals(export))
+                    value |= EXPORT_FALSE | NATIVE;
+
+                String mode = tag.getAttributeValue(MetaDataUtils.ATT_MODE);
+                if (mode != null)
+                {
+                    value |= MODE;
+                    if (mode.equals(MetaDataUtils.VALUE_GLOBAL))
+                        value |= MODE_GLOBAL;
+                    else if (mode.equals(MetaDataUtils.VALUE_JSON))
+                        value |= MODE_JSON;
+                }
+            }
+
+            if (definition instanceof AppliedVectorDefinition
+                    || definition.getMetaTagByName(MetaDataUtils.TAG_NATIVE) != null)
+                value |= NATIVE;
+
+            flags = value;
+        }
+
+        /**
+         * Returns the definition's tag or <code>null</code>.
+         * 
+         * @param metaData The tag to return.
+         */
+        public IMetaTag getTag(MetaData metaData)
+        {
+            return tags[metaData.ordinal()];
+        }
+
+        /**
+         * Returns whether all of the flags are set.
+         * 
+         * @param flag The flags to test.
+         */
+        public boolean is(int flag)
+        {
+            return (flags & flag) == flag;
+        }
+
+        /**
+         * Returns the <code>[JavaScript]</code> mode, <code>defaultMode</code>
+         * when the tag has no mode attribute.
+         */
+        public Mode getMode(Mode defaultMode)
+        {
+            if (!is(MODE))
+                return defaultMode;
+            if (is(MODE_GLOBAL))
+                return Mode.GLOBAL;
+            if (is(MODE_JSON))
+                return Mode.JSON;
+            return Mode.PROTOTYPE;
+        }
+    }
+}
@@ -50,6 +50,9 @@ import randori.compiler.internal.utils.NativeUtils.NativeType;
  * <li>[JavaScriptMethod()]</li>
  * <li></li>
  * </ul>
+ * <p>
+ * The helpers taking a {@link MetaDataIndex} look the tags up in the index of
+ * the current build, without an index the definition's tags are scanned.
  * 
  * @author Michael Schmalle
  */
@@ -110,7 +113,16 @@ public class MetaDataUtils
 
     public static final Mode getMode(IDefinition definition)
     {
-        IMetaTag tag = findTag(definition, metaDataFor(definition));
+        return getMode(definition, null);
+    }
+
+    public static final Mode getMode(IDefinition definition,
+            MetaDataIndex index)
+    {
+        if (index != null && definition instanceof IClassDefinition)
+            return index.get(definition).getMode(Mode.PROTOTYPE);
+
+        IMetaTag tag = findTag(definition, metaDataFor(definition), index);
         if (tag == null)
             return Mode.PROTOTYPE;
 
@@ -134,7 +146,13 @@ public class MetaDataUtils
 
     public static boolean isProtoExport(IDefinition definition)
     {
-        IMetaTag tag = findTag(definition, MetaData.JavaScript);
+        return isProtoExport(definition, null);
+    }
+
+    public static boolean isProtoExport(IDefinition definition,
+            MetaDataIndex index)
+    {
+        IMetaTag tag = findTag(definition, MetaData.JavaScript, index);
         if (tag != null)
         {
             // [JavaScript(export="true", mode="global", name="Object")]
@@ -166,11 +184,17 @@ public class MetaDataUtils
      * @return
      */
     public static final boolean isClassExport(IClassDefinition definition)
+    {
+        return isClassExport(definition, null);
+    }
+
+    public static final boolean isClassExport(IClassDefinition definition,
+            MetaDataIndex index)
     {
         if (definition == null)
             return false;
 
-        IMetaTag tag = findTag(definition, MetaData.JavaScript);
+        IMetaTag tag = findTag(definition, MetaData.JavaScript, index);
         // no JavaScript tag; is export
         if (tag == null)
             return true;
@@ -191,16 +215,22 @@ public class MetaDataUtils
      * @param definition The definition to check for export.
      */
     public static final boolean isExport(IDefinition definition)
+    {
+        return isExport(definition, null);
+    }
+
+    public static final boolean isExport(IDefinition definition,
+            MetaDataIndex index)
     {
         IClassDefinition type = DefinitionUtils.getClassDefinition(definition);
         if (type == null)
             return false;
 
         // if the type is native, no export
-        if (isNative(type))
+        if (isNative(type, index))
             return false;
 
-        IMetaTag tag = findTag(type, MetaData.JavaScript);
+        IMetaTag tag = findTag(type, MetaData.JavaScript, index);
         if (tag != null)
         {
             // only if the tag has export="false" will we return false
@@ -213,19 +243,34 @@ public class MetaDataUtils
     }
 
     public static final boolean isNative(IDefinition definition)
+    {
+        return isNative(definition, null);
+    }
+
+    public static final boolean isNative(IDefinition definition,
+            MetaDataIndex index)
     {
         IClassDefinition type = DefinitionUtils.getClassDefinition(definition);
         if (type == null)
             return false;
 
-        return isNative(type);
+        return isNative(type, index);
     }
 
     public static final boolean isNative(IClassDefinition definition)
+    {
+        return isNative(definition, null);
+    }
+
+    public static final boolean isNative(IClassDefinition definition,
+            MetaDataIndex index)
     {
         if (definition == null)
             return false;
 
+        if (index != null)
+            return index.get(definition).is(MetaDataIndex.NATIVE);
+
         IMetaTag tag = findTag(definition, MetaData.JavaScript);
         if (tag != null)
         {
@@ -299,9 +344,15 @@ public class MetaDataUtils
     }
 
     public static String getClassExportName(ClassTraitsDefinition definition)
+    {
+        return getClassExportName(definition, null);
+    }
+
+    public static String getClassExportName(ClassTraitsDefinition definition,
+            MetaDataIndex index)
     {
         String name = definition.getQualifiedName();
-        IMetaTag tag = findTag(definition, MetaData.JavaScript);
+        IMetaTag tag = findTag(definition, MetaData.JavaScript, index);
         if (tag == null)
             return name;
 
@@ -313,6 +364,12 @@ public class MetaDataUtils
     }
 
     public static String getExportName(ITypeDefinition definition)
+    {
+        return getExportName(definition, null);
+    }
+
+    public static String getExportName(ITypeDefinition definition,
+            MetaDataIndex index)
     {
         if (definition instanceof AppliedVectorDefinition)
             return NativeType.Array.getValue();
@@ -321,10 +378,10 @@ public class MetaDataUtils
         if (definition.getBaseName().equals(NativeType.Any.getValue()))
             return NativeType.Object.getValue();
 
-        if (!isNative(definition))
+        if (!isNative(definition, index))
             return definition.getQualifiedName();
 
-        IMetaTag tag = findTag(definition, MetaData.JavaScript);
+        IMetaTag tag = findTag(definition, MetaData.JavaScript, index);
         if (tag == null)
             return definition.getQualifiedName();
         return tag.getAttributeValue(ATT_NAME);
@@ -375,25 +432,30 @@ public class MetaDataUtils
 
     public static boolean isGlobal(IClassNode node)
     {
-        if (node == null)
-            return false;
+        return isGlobal(node, null);
+    }
 
-        IMetaTag tag = findTag(node.getDefinition(), MetaData.JavaScript);
-        if (tag == null)
+    public static boolean isGlobal(IClassNode node, MetaDataIndex index)
+    {
+        if (node == null)
             return false;
 
-        String value = tag.getAttributeValue(ATT_MODE);
-        if (value != null && value.equals(VALUE_GLOBAL))
-            return true;
-
-        return false;
+        return isGlobal(node.getDefinition(), index);
     }
 
     public static boolean isGlobal(IDefinition definition)
+    {
+        return isGlobal(definition, null);
+    }
+
+    public static boolean isGlobal(IDefinition definition, MetaDataIndex index)
     {
         if (definition == null)
             return false;
 
+        if (index != null)
+            return index.get(definition).is(MetaDataIndex.MODE_GLOBAL);
+
         IMetaTag tag = findTag(definition, MetaData.JavaScript);
         if (tag == null)
             return false;
@@ -445,12 +507,34 @@ public class MetaDataUtils
     public static final IMetaTag findTag(IDefinition definition,
             MetaData metaData)
     {
+        return findTag(definition, metaData, null);
+    }
+
+    /**
+     * Returns the definition's tag, from the index when one is given.
+     * 
+     * @param definition The definition to search.
+     * @param metaData The tag to return.
+     * @param index The metadata index of the current build or
+     * <code>null</code> to scan the definition's tags.
+     */
+    public static final IMetaTag findTag(IDefinition definition,
+            MetaData metaData, MetaDataIndex index)
+    {
+        if (index != null)
+            return index.get(definition).getTag(metaData);
         return definition.getMetaTagByName(metaData.getName());
     }
 
     public static IMetaTag findJavaScriptTag(IDefinition definition)
     {
-        return findTag(definition, MetaData.JavaScript);
+        return findJavaScriptTag(definition, null);
+    }
+
+    public static IMetaTag findJavaScriptTag(IDefinition definition,
+            MetaDataIndex index)
+    {
+        return findTag(definition, MetaData.JavaScript, index);
     }
 
     public static boolean hasJavaScriptTag(IClassDefinition definition)
@@ -460,7 +544,13 @@ public class MetaDataUtils
 
     public static boolean hasJavaScriptTag(IDefinition definition)
     {
-        return findTag(definition, MetaData.JavaScript) != null;
+        return hasJavaScriptTag(definition, null);
+    }
+
+    public static boolean hasJavaScriptTag(IDefinition definition,
+            MetaDataIndex index)
+    {
+        return findTag(definition, MetaData.JavaScript, index) != null;
     }
 
     public static Mode getModeDefaultJson(IClassDefinition definition)
@@ -489,12 +579,24 @@ public class MetaDataUtils
 
     public static IMetaTag getViewTag(IDefinition definition)
     {
-        return findTag(definition, MetaData.View);
+        return getViewTag(definition, null);
+    }
+
+    public static IMetaTag getViewTag(IDefinition definition,
+            MetaDataIndex index)
+    {
+        return findTag(definition, MetaData.View, index);
     }
 
     public static IMetaTag getInjectTag(IDefinition definition)
     {
-        return findTag(definition, MetaData.Inject);
+        return getInjectTag(definition, null);
+    }
+
+    public static IMetaTag getInjectTag(IDefinition definition,
+            MetaDataIndex index)
+    {
+        return findTag(definition, MetaData.Inject, index);
     }
 
 }
@@ -21,6 +21,7 @@ package randori.compiler.internal.utils;
 
 import java.util.List;
 
+import org.apache.flex.compiler.clients.problems.CompilerProblemCategorizer;
 import org.apache.flex.compiler.definitions.IAccessorDefinition;
 import org.apache.flex.compiler.definitions.IConstantDefinition;
 import org.apache.flex.compiler.definitions.IDefinition;
@@ -28,6 +29,7 @@ import org.apache.flex.compiler.definitions.IFunctionDefinition;
 import org.apache.flex.compiler.definitions.ITypeDefinition;
 import org.apache.flex.compiler.definitions.IVariableDefinition;
 import org.apache.flex.compiler.internal.definitions.ClassTraitsDefinition;
+import org.apache.flex.compiler.problems.CompilerProblemSeverity;
 import org.apache.flex.compiler.problems.ICompilerProblem;
 import org.apache.flex.compiler.projects.ICompilerProject;
 import org.apache.flex.compiler.tree.ASTNodeID;
@@ -36,6 +38,7 @@ import org.apache.flex.compiler.tree.as.IIdentifierNode;
 import org.apache.flex.compiler.tree.as.IMemberAccessExpressionNode;
 
 import randori.compiler.codegen.as.IASEmitter;
+import randori.compiler.codegen.js.ISessionModel;
 import randori.compiler.internal.codegen.as.ASEmitter;
 
 /**
@@ -48,6 +51,23 @@ public class RandoriUtils
         return ((ASEmitter) emitter).getProblems();
     }
 
+    /**
+     * Returns whether one of the problems is an error, warnings don't stop a
+     * class from being written.
+     */
+    public static boolean hasErrors(List<ICompilerProblem> problems)
+    {
+        CompilerProblemCategorizer categorizer = new CompilerProblemCategorizer();
+        for (ICompilerProblem problem : problems)
+        {
+            CompilerProblemSeverity severity = categorizer
+                    .getProblemSeverity(problem);
+            if (severity == CompilerProblemSeverity.ERROR)
+                return true;
+        }
+        return false;
+    }
+
     public static String toFieldPrefix(IVariableDefinition definition,
             ICompilerProject project)
     {
@@ -66,17 +86,28 @@ public class RandoriUtils
         ITypeDefinition type = (ITypeDefinition) definition.getParent();
         // foo.bar.baz.A
         String qualifiedName = type.getQualifiedName();
+        return toMethodPrefix(definition, project, qualifiedName,
+                qualifiedName + ".prototype");
+    }
+
+    /**
+     * Returns the method's assignment target with the class and its
+     * prototype referenced by the given names.
+     * 
+     * @param definition The method.
+     * @param project The current project.
+     * @param className The expression of the method's class.
+     * @param prototypeName The expression of the class's prototype.
+     */
+    public static String toMethodPrefix(IFunctionDefinition definition,
+            ICompilerProject project, String className, String prototypeName)
+    {
         StringBuilder sb = new StringBuilder();
-        sb.append(qualifiedName);
 
         if (MetaDataUtils.isProtoExport(definition)
                 || !definition.isConstructor())
         {
-            if (!definition.isStatic())
-            {
-                sb.append(".");
-                sb.append("prototype");
-            }
+            sb.append(definition.isStatic() ? className : prototypeName);
             sb.append(".");
             String name = null;
             if (definition instanceof IAccessorDefinition)
@@ -94,6 +125,10 @@ public class RandoriUtils
             }
             sb.append(name);
         }
+        else
+        {
+            sb.append(className);
+        }
 
         return sb.toString();
     }
@@ -114,6 +149,17 @@ public class RandoriUtils
 
     public static boolean isConstantMemberAccess(IExpressionNode left,
             IExpressionNode right, ICompilerProject project)
+    {
+        return isConstantMemberAccess(left, right, project, null);
+    }
+
+    /**
+     * Returns whether the access is <code>Type.CONSTANT</code>, resolving the
+     * right through the session's model when one is passed.
+     */
+    public static boolean isConstantMemberAccess(IExpressionNode left,
+            IExpressionNode right, ICompilerProject project,
+            ISessionModel model)
     {
         if (left instanceof IIdentifierNode && right instanceof IIdentifierNode)
         {
@@ -122,7 +168,8 @@ public class RandoriUtils
             IDefinition dleft = ileft.resolveType(project);
             if (dleft instanceof ClassTraitsDefinition)
             {
-                IDefinition dright = iright.resolve(project);
+                IDefinition dright = model != null ? model.resolve(iright,
+                        project) : iright.resolve(project);
                 if (dright instanceof IConstantDefinition)
                     return true;
             }
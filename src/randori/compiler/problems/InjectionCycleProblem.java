@@ -0,0 +1,50 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.problems;
+
+import org.apache.flex.compiler.common.ISourceLocation;
+import org.apache.flex.compiler.problems.CompilerProblem;
+import org.apache.flex.compiler.problems.CompilerProblemSeverity;
+import org.apache.flex.compiler.problems.annotations.DefaultSeverity;
+
+/**
+ * A warning, the class keeps the injector's reflective path.
+ * 
+ * @author Michael Schmalle
+ */
+@DefaultSeverity(CompilerProblemSeverity.WARNING)
+public class InjectionCycleProblem extends CompilerProblem
+{
+
+    public static final String DESCRIPTION = "Constructor injection cycle ${cycle}, no factory generated for ${type}.";
+
+    public InjectionCycleProblem(ISourceLocation site, String type,
+            String cycle)
+    {
+        super(site);
+        this.type = type;
+        this.cycle = cycle;
+    }
+
+    public final String type;
+
+    public final String cycle;
+
+}
@@ -0,0 +1,58 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package demo.alias;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.junit.Test;
+
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.js.codegen.ResourceTestBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class AliasBaseTest extends ResourceTestBase
+{
+    @Test
+    public void test_no_super_alias() throws ConfigurationException
+    {
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        configuration.setJsPrototypeAlias(null, true);
+        setSettings(new RandoriTargetSettings(configuration));
+
+        // Object is never a base to alias
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        assertTrue(code, code.contains("var $p = $c.prototype;\n"));
+        assertFalse(code, code.contains("$s"));
+        assertTrue(code, code.contains("$c.label ="));
+        assertTrue(code, code.contains("return value + $c.label.length;"));
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.alias.AliasBase";
+    }
+}
@@ -0,0 +1,101 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package demo.alias;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.apache.flex.compiler.tree.as.IFileNode;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.Test;
+
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.js.codegen.ResourceTestBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class AliasShadowTest extends ResourceTestBase
+{
+    @Override
+    public void setUp()
+    {
+        super.setUp();
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        try
+        {
+            configuration.setJsPrototypeAlias(null, true);
+        }
+        catch (ConfigurationException e)
+        {
+            throw new RuntimeException(e);
+        }
+        setSettings(new RandoriTargetSettings(configuration));
+    }
+
+    @Test
+    public void test_alias_locals_renamed()
+    {
+        // without minify only the locals named like an alias are renamed
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        assertTrue(code, code.contains("var $c = demo.alias.AliasShadow = "
+                + "function() {"));
+        assertTrue(code, code.contains("$p.run = function($c_0) {"));
+        assertTrue(code, code.contains("var $s_1 = $c_0.length;"));
+        assertTrue(code, code.contains("return $s_1 + $c.label.length;"));
+    }
+
+    @Test
+    public void test_with_uses_qualified_names()
+    {
+        // the with block keeps the $c parameter, the class is not aliased
+        visitor.visitFile(getFileNode("demo/alias/AliasWith.as"));
+        String code = writer.toString();
+        assertFalse(code, code.contains("(function() {"));
+        assertTrue(code,
+                code.contains("return demo.alias.AliasWith.label.length;"));
+    }
+
+    private IFileNode getFileNode(String path)
+    {
+        String normalized = FilenameNormalization.normalize(getBasePath()
+                + "/" + path);
+        try
+        {
+            return (IFileNode) workspace.getCompilationUnits(normalized,
+                    project).iterator().next().getSyntaxTreeRequest().get()
+                    .getAST();
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.alias.AliasShadow";
+    }
+}
@@ -0,0 +1,121 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package demo.alias;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.junit.Test;
+
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.js.codegen.ResourceTestBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class AliasSubclassTest extends ResourceTestBase
+{
+    @Test
+    public void test_closure() throws ConfigurationException
+    {
+        enableAliases();
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        assertTrue(code, code.contains("(function() {\nvar $c = "
+                + "demo.alias.AliasSubclass = function() {"));
+        assertTrue(code, code.contains("};\nvar $p = $c.prototype;\n"
+                + "var $s = demo.alias.AliasBase.prototype;\n"));
+
+        // the footer follows the closure and inherits into the same prototype
+        int close = code.indexOf("})();");
+        assertTrue(code, close != -1);
+        assertTrue(code, close < code.indexOf("$inherit("));
+    }
+
+    @Test
+    public void test_methods() throws ConfigurationException
+    {
+        enableAliases();
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        assertTrue(code, code.contains("$p.run = function(value) {"));
+        assertTrue(code, code.contains("$c.create = function() {"));
+        assertFalse(code, code.contains("demo.alias.AliasSubclass.prototype"));
+    }
+
+    @Test
+    public void test_static_field() throws ConfigurationException
+    {
+        enableAliases();
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        assertTrue(code, code.contains("$c.count ="));
+    }
+
+    @Test
+    public void test_static_references() throws ConfigurationException
+    {
+        enableAliases();
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        // both the bare and the qualified reference
+        assertTrue(code, code.contains("$c.count++"));
+        assertTrue(code, code.contains("+ $c.count;"));
+        assertFalse(code, code.contains("demo.alias.AliasSubclass.count"));
+    }
+
+    @Test
+    public void test_super_call() throws ConfigurationException
+    {
+        enableAliases();
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        assertTrue(code, code.contains("$s.run.call(this,value)"));
+        assertFalse(code,
+                code.contains("demo.alias.AliasBase.prototype.run.call"));
+    }
+
+    @Test
+    public void test_disabled()
+    {
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        assertFalse(code, code.contains("(function() {"));
+        assertTrue(code, code.contains("demo.alias.AliasSubclass.prototype.run"
+                + " = function(value) {"));
+        assertTrue(code, code.contains("demo.alias.AliasBase.prototype.run"
+                + ".call(this,value)"));
+    }
+
+    private void enableAliases() throws ConfigurationException
+    {
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        configuration.setJsPrototypeAlias(null, true);
+        setSettings(new RandoriTargetSettings(configuration));
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.alias.AliasSubclass";
+    }
+}
@@ -0,0 +1,61 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package demo.inject;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.junit.Test;
+
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.js.codegen.ResourceTestBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class TableSubclassTest extends ResourceTestBase
+{
+    @Test
+    public void test_switch_copies_base_table() throws ConfigurationException
+    {
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        configuration.setJsInjectionTables(null, true);
+        setSettings(new RandoriTargetSettings(configuration));
+
+        // 'created' has a non literal value, the subclass keeps the switch
+        // form while its base returns a frozen table
+        visitor.visitFile(fileNode);
+        String code = writer.toString();
+        assertFalse(code.contains("demo.inject.TableSubclass.$injectionPoints"));
+        assertTrue(code.contains("case 1:\n\t\t\tp = demo.inject.TableBase."
+                + "injectionPoints(t).slice();\n\t\t\tp.push({n:'created', "
+                + "t:'demo.foo.ClassA', r:0, v:"));
+        assertTrue(code.contains("case 2:\n\t\t\tp = demo.inject.TableBase."
+                + "injectionPoints(t);\n\t\t\tbreak;"));
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.inject.TableSubclass";
+    }
+}
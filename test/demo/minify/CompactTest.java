@@ -0,0 +1,147 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package demo.minify;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.apache.flex.compiler.tree.as.IFunctionNode;
+import org.junit.Test;
+
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.js.codegen.ResourceTestBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class CompactTest extends ResourceTestBase
+{
+    @Override
+    public void setUp()
+    {
+        super.setUp();
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        try
+        {
+            configuration.setJsMinify(null, true);
+        }
+        catch (ConfigurationException e)
+        {
+            throw new RuntimeException(e);
+        }
+        setSettings(new RandoriTargetSettings(configuration));
+    }
+
+    @Test
+    public void test_regex_instanceof()
+    {
+        visit("regex_instanceof");
+        assertContains("/a/ instanceof RegExp");
+    }
+
+    @Test
+    public void test_regex_in()
+    {
+        visit("regex_in");
+        assertContains("/a/ in $0");
+    }
+
+    @Test
+    public void test_shadowing_closure()
+    {
+        // the closure's locals shadow the method's under the same short names
+        visit("shadow");
+        assertNotContains("value");
+        assertNotContains("count");
+        assertContains("function($0)");
+        assertContains("var $1=$0;");
+        assertContains("var $1=$0+1;");
+        assertContains("return $1;");
+    }
+
+    @Test
+    public void test_with_preserved()
+    {
+        visit("uses_with");
+        assertContains("var local=1;");
+        assertContains("with(target)");
+    }
+
+    @Test
+    public void test_eval_preserved()
+    {
+        visit("uses_eval");
+        assertContains("var local=1;");
+        assertContains("eval(code)");
+    }
+
+    @Test
+    public void test_javascript_code_preserved()
+    {
+        visit("uses_code");
+        assertContains("function(param)");
+        assertContains("param.length;");
+    }
+
+    @Test
+    public void test_default_param()
+    {
+        visit("default_param");
+        assertNotContains("second");
+        assertContains("function($0,$1)");
+        assertContains("$1 = 42;");
+    }
+
+    @Test
+    public void test_rest_param()
+    {
+        // rest parameters are read through arguments
+        visit("rest_param");
+        assertNotContains("first");
+        assertContains("function($0,rest)");
+        assertContains("var $1=arguments.length;");
+    }
+
+    private void visit(String name)
+    {
+        IFunctionNode node = findFunction(name, classNode);
+        visitor.visitFunction(node);
+    }
+
+    private void assertContains(String code)
+    {
+        mCode = writer.toString();
+        assertTrue(mCode, mCode.contains(code));
+    }
+
+    private void assertNotContains(String code)
+    {
+        mCode = writer.toString();
+        assertFalse(mCode, mCode.contains(code));
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.minify.Compact";
+    }
+}
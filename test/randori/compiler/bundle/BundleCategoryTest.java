@@ -19,11 +19,17 @@
 
 package randori.compiler.bundle;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
 
 import org.junit.After;
 import org.junit.Before;
@@ -97,6 +103,43 @@ public class BundleCategoryTest extends BaseBundleTest
         assertEquals(2, category.getEntries().size());
     }
 
+    @Test
+    public void test_addContent() throws IOException
+    {
+        byte[] content = "var Foo;".getBytes("UTF-8");
+        IBundleEntry entry = category.addContent(content, 42, "foo.js");
+        assertEquals("MyLibrary/bin/swc/foo.js", entry.getPath());
+        assertNull(entry.getFile());
+        assertSame(content, entry.getContent());
+        assertEquals(42, entry.getLastModified());
+        assertArrayEquals(content,
+                IOUtils.toByteArray(entry.createInputStream()));
+    }
+
+    @Test
+    public void test_addSource() throws IOException
+    {
+        final byte[] content = "var Bar;".getBytes("UTF-8");
+        IBundleEntry entry = category.addSource(new IBundleEntrySource() {
+            @Override
+            public InputStream createInputStream() throws IOException
+            {
+                return new ByteArrayInputStream(content);
+            }
+
+            @Override
+            public long getLastModified()
+            {
+                return 42;
+            }
+        }, "bar.js");
+        assertNull(entry.getFile());
+        assertNull(entry.getContent());
+        assertEquals(42, entry.getLastModified());
+        assertArrayEquals(content,
+                IOUtils.toByteArray(entry.createInputStream()));
+    }
+
     @Test
     public void test_getEntries()
     {
@@ -0,0 +1,181 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.flex.swc.ISWC;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import randori.compiler.bundle.IBundleContainer.Type;
+import randori.compiler.bundle.io.BundleIndex;
+import randori.compiler.bundle.io.ZipAssembler;
+
+public class BundleIndexTest
+{
+    private static final String FOO_JS = "lib/js/classes/Foo.js";
+
+    private static final String BAR_JS = "lib/js/classes/Bar.js";
+
+    private Bundle bundle;
+
+    private HashMap<String, ZipAssembler.Entry> written;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        bundle = new Bundle(new File("test.rbl"));
+        bundle.getVersion().setBundleVersion("1.0");
+        bundle.getVersion().setRandoriVersion("0.2.4");
+        bundle.getVersion().setCompilerBuild("42");
+
+        BundleLibrary library = new BundleLibrary("lib");
+        IBundleCategory category = library.addContainer(Type.JS).addCategory(
+                IBundleCategory.Type.CLASSES);
+        category.addFile(FOO_JS);
+        category.addFile(BAR_JS);
+        library.addContainer(Type.BIN).addCategory(IBundleCategory.Type.SWC)
+                .addFile("lib/bin/swc/builtin.swc");
+        bundle.addLibrary(library);
+        bundle.addLibrary(new BundleLibrary("other"));
+
+        written = new HashMap<String, ZipAssembler.Entry>();
+        written.put(FOO_JS, ZipAssembler.store(FOO_JS,
+                "var Foo;".getBytes("UTF-8"), 0));
+    }
+
+    @Test
+    public void test_populate() throws IOException
+    {
+        Bundle result = read();
+
+        assertEquals("1.0", result.getVersion().getBundleVersion());
+        assertEquals("0.2.4", result.getVersion().getRandoriVersion());
+        assertEquals("42", result.getVersion().getCompilerBuild());
+        assertNull(result.getVersion().getCompilerName());
+
+        IBundleLibrary library = result.getLibrary("lib");
+        assertNotNull(library);
+        assertEquals(2, library.getContainers().size());
+
+        IBundleCategory category = library.getContainer(Type.JS).getCategory(
+                IBundleCategory.Type.CLASSES);
+        assertEquals(2, category.getEntries().size());
+        Iterator<IBundleEntry> iterator = category.getEntries().iterator();
+        assertEquals(FOO_JS, iterator.next().getPath());
+        assertEquals(BAR_JS, iterator.next().getPath());
+
+        assertNotNull(library.getContainer(Type.BIN).getCategory(
+                IBundleCategory.Type.SWC));
+    }
+
+    @Test
+    public void test_entries() throws IOException
+    {
+        BundleIndex index = BundleIndex.read(new ByteArrayInputStream(
+                BundleIndex.write(bundle, written)));
+
+        ZipAssembler.Entry expected = written.get(FOO_JS);
+        BundleIndex.Entry entry = index.getEntry(FOO_JS);
+        assertEquals(expected.getMethod(), entry.getMethod());
+        assertEquals(expected.getCrc(), entry.getCrc());
+        assertEquals(expected.getSize(), entry.getSize());
+        assertEquals(expected.getCompressedSize(), entry.getCompressedSize());
+
+        assertEquals(-1, index.getEntry(BAR_JS).getLocalHeaderOffset());
+    }
+
+    @Test
+    public void test_lazy() throws IOException
+    {
+        final BundleIndex index = BundleIndex.read(new ByteArrayInputStream(
+                BundleIndex.write(bundle, written)));
+        final List<String> loaded = new ArrayList<String>();
+        Bundle result = new Bundle(new File("test.rbl"));
+        result.setLoader(new IBundleLibraryLoader() {
+            @Override
+            public Collection<String> getLibraryNames()
+            {
+                return index.getLibraryNames();
+            }
+
+            @Override
+            public IBundleLibrary loadLibrary(String name)
+            {
+                loaded.add(name);
+                try
+                {
+                    return index.createLibrary(name);
+                }
+                catch (IOException e)
+                {
+                    return null;
+                }
+            }
+
+            @Override
+            public ISWC loadSWC(IBundleLibrary library, IBundleEntry entry)
+            {
+                loaded.add(entry.getPath());
+                return null;
+            }
+        });
+
+        assertTrue(loaded.isEmpty());
+        assertNotNull(result.getLibrary("lib"));
+        assertNull(result.getLibrary("missing"));
+        assertEquals(1, loaded.size());
+
+        assertNull(result.getSWCLibrary("lib", "builtin"));
+        assertEquals("lib/bin/swc/builtin.swc", loaded.get(1));
+
+        assertEquals(2, result.getLibraries().size());
+        assertEquals("other", loaded.get(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void test_invalid() throws IOException
+    {
+        BundleIndex.read(new ByteArrayInputStream("<bundle/>".getBytes()));
+    }
+
+    private Bundle read() throws IOException
+    {
+        Bundle result = new Bundle(new File("test.rbl"));
+        BundleIndex.read(
+                new ByteArrayInputStream(BundleIndex.write(bundle, written)))
+                .populate(result);
+        return result;
+    }
+}
@@ -0,0 +1,214 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.bundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.flex.compiler.problems.FileInLibraryIOProblem;
+import org.apache.flex.compiler.problems.ICompilerProblem;
+import org.apache.flex.swc.SWC;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import randori.compiler.bundle.IBundleContainer.Type;
+import randori.compiler.bundle.io.BundleLibraryPath;
+import randori.compiler.bundle.io.BundleWriter;
+import randori.compiler.bundle.io.ZipFilePool;
+import randori.compiler.clients.CompilerArguments;
+import randori.compiler.clients.Randori;
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.constants.TestConstants;
+import randori.compiler.internal.driver.RandoriBackend;
+
+/**
+ * Tests the <code>bundle-path</code> bundles, standing in for the unpacked SDK
+ * built by {@link SDKBundleTest}.
+ */
+public class BundleLibraryPathTest
+{
+    private static final String BUILTIN = FilenameNormalization
+            .normalize(TestConstants.RandoriASFramework
+                    + "\\randori-sdk\\randori-framework\\bin\\swc"
+                    + "\\builtin.swc");
+
+    private static final String SCRIPT = "var Foo = function() {};";
+
+    private File directory;
+
+    private File bundleFile;
+
+    private File cacheDirectory;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        directory = new File(
+                FilenameNormalization.normalize("temp/bundlelibrarypath"));
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+
+        File script = new File(directory, "Foo.js");
+        FileUtils.writeStringToFile(script, SCRIPT, "UTF-8");
+
+        BundleLibrary library = new BundleLibrary("foo");
+        library.addSWC(new SWC(new File(BUILTIN)));
+        library.addContainer(Type.JS).addCategory(IBundleCategory.Type.MONO)
+                .addFile(script, "Foo.js");
+
+        bundleFile = new File(directory, "foo.rbl");
+        Bundle bundle = new Bundle(bundleFile);
+        bundle.addLibrary(library);
+        new BundleWriter(bundleFile.getAbsolutePath()).write(bundle);
+
+        cacheDirectory = new File(directory, "cache");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        ZipFilePool.getInstance().clear();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void test_swcs_on_library_path()
+    {
+        BundleLibraryPath path = createPath();
+        List<String> swcs = path.getSWCPaths();
+        assertEquals(1, swcs.size());
+        assertTrue(new File(swcs.get(0)).isFile());
+        assertTrue(path.getProblems().isEmpty());
+
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        configuration.setBundleLibraryPath(swcs);
+        assertTrue(configuration.getCompilerLibraryPath().containsAll(swcs));
+    }
+
+    @Test
+    public void test_extraction_problem() throws IOException
+    {
+        // a file where the cache directory should be
+        FileUtils.writeStringToFile(cacheDirectory, "", "UTF-8");
+
+        BundleLibraryPath path = createPath();
+        assertTrue(path.getSWCPaths().isEmpty());
+        assertTrue(contains(path.getProblems(), FileInLibraryIOProblem.class));
+    }
+
+    @Test
+    public void test_compile_extraction_problem() throws IOException
+    {
+        FileUtils.writeStringToFile(cacheDirectory, "", "UTF-8");
+
+        Set<ICompilerProblem> problems = compile();
+        assertTrue(contains(problems, FileInLibraryIOProblem.class));
+    }
+
+    @Test
+    public void test_compile_with_bundle() throws IOException
+    {
+        // builtin.swc only comes from the bundle
+        Set<ICompilerProblem> problems = compile();
+        assertFalse(contains(problems, FileInLibraryIOProblem.class));
+
+        File script = new File(directory, "bin/Foo.js");
+        assertEquals(SCRIPT, FileUtils.readFileToString(script, "UTF-8"));
+    }
+
+    @Test
+    public void test_write_javascript_when_changed() throws IOException
+    {
+        File output = new File(directory, "js");
+        File script = new File(output, "Foo.js");
+
+        BundleLibraryPath path = createPath();
+        path.writeJavaScript(IBundleCategory.Type.MONO, output);
+        assertEquals(SCRIPT, FileUtils.readFileToString(script, "UTF-8"));
+        long written = script.lastModified();
+
+        // unchanged bundle, the file is left alone
+        FileUtils.writeStringToFile(script, "edited", "UTF-8");
+        script.setLastModified(written);
+        path.writeJavaScript(IBundleCategory.Type.MONO, output);
+        assertEquals("edited", FileUtils.readFileToString(script, "UTF-8"));
+
+        // the bundle changed, the file is rewritten
+        bundleFile.setLastModified(written + 10000);
+        path = createPath();
+        path.writeJavaScript(IBundleCategory.Type.MONO, output);
+        assertEquals(SCRIPT, FileUtils.readFileToString(script, "UTF-8"));
+    }
+
+    private BundleLibraryPath createPath()
+    {
+        return new BundleLibraryPath(
+                Collections.singletonList(bundleFile.getAbsolutePath()),
+                cacheDirectory);
+    }
+
+    private Set<ICompilerProblem> compile() throws IOException
+    {
+        File source = new File(directory, "src");
+        FileUtils.writeStringToFile(new File(source, "demo/bundle/Main.as"),
+                "package demo.bundle {\npublic class Main {\n"
+                        + "public function Main() {\n}\n}\n}", "UTF-8");
+
+        CompilerArguments arguments = new CompilerArguments();
+        arguments.addBundlePath(bundleFile.getAbsolutePath());
+        arguments.addSourcepath(source.getAbsolutePath());
+        arguments.setOutput(new File(directory, "bin").getAbsolutePath());
+
+        List<String> args = new ArrayList<String>(
+                Arrays.asList(arguments.toArguments()));
+        args.add("-bundle-cache-dir=" + cacheDirectory.getAbsolutePath());
+
+        Set<ICompilerProblem> problems = new HashSet<ICompilerProblem>();
+        new Randori(new RandoriBackend()).mainNoExit(
+                args.toArray(new String[args.size()]), problems);
+        return problems;
+    }
+
+    private static boolean contains(Collection<ICompilerProblem> problems,
+            Class<?> type)
+    {
+        for (ICompilerProblem problem : problems)
+        {
+            if (type.isInstance(problem))
+                return true;
+        }
+        return false;
+    }
+}
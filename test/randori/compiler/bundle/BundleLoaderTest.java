@@ -0,0 +1,95 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import randori.compiler.bundle.io.BundleLoader;
+import randori.compiler.bundle.io.ZipFilePool;
+
+public class BundleLoaderTest
+{
+    private static final String PATH = "lib/swc/Foo.swc";
+
+    private File file;
+
+    private File cacheDirectory;
+
+    private BundleLoader loader;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        file = File.createTempFile("loader", ".rbl");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try
+        {
+            out.putNextEntry(new ZipEntry(PATH));
+            out.write("original".getBytes("UTF-8"));
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+
+        cacheDirectory = new File(file.getPath() + ".cache");
+        loader = new BundleLoader(new Bundle(file), null, cacheDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        ZipFilePool.getInstance().clear();
+        FileUtils.deleteDirectory(cacheDirectory);
+        file.delete();
+    }
+
+    @Test
+    public void test_extract() throws IOException
+    {
+        File extracted = loader.extract(PATH);
+        assertEquals("original", FileUtils.readFileToString(extracted, "UTF-8"));
+        assertEquals(extracted, loader.extract(PATH));
+    }
+
+    @Test
+    public void test_extract_replaces_tampered() throws IOException
+    {
+        File extracted = loader.extract(PATH);
+
+        // same name and size, only the CRC tells it apart
+        FileUtils.writeStringToFile(extracted, "tampered", "UTF-8");
+
+        extracted = loader.extract(PATH);
+        assertEquals("original", FileUtils.readFileToString(extracted, "UTF-8"));
+    }
+}
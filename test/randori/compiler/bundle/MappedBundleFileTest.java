@@ -0,0 +1,224 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import randori.compiler.bundle.io.BundleWriter;
+import randori.compiler.bundle.io.MappedBundleFile;
+
+public class MappedBundleFileTest
+{
+    private static final byte[] BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+    private File file;
+
+    private MappedBundleFile mapped;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        file = File.createTempFile("mapped", ".rbl");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try
+        {
+            putStored(out, "lib/js/classes/Foo.js", concat(BOM,
+                    "var Foo = function() {};".getBytes("UTF-8")));
+            putStored(out, "lib/js/classes/Bar.js",
+                    "var Bar = \u00e9;".getBytes("UTF-8"));
+            out.putNextEntry(new ZipEntry("lib/js/classes/Baz.js"));
+            out.write("var Baz;".getBytes("UTF-8"));
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+
+        mapped = MappedBundleFile.getInstance(file);
+    }
+
+    @After
+    public void tearDown()
+    {
+        MappedBundleFile.release(file);
+        mapped = null;
+        file.delete();
+    }
+
+    @Test
+    public void test_entries()
+    {
+        assertNotNull(mapped);
+        assertTrue(mapped.hasEntry("lib/js/classes/Foo.js"));
+        assertTrue(mapped.hasEntry("lib/js/classes/Baz.js"));
+    }
+
+    @Test
+    public void test_getReader_skipsBOM() throws IOException
+    {
+        Reader reader = mapped.getReader("lib/js/classes/Foo.js");
+        assertEquals("var Foo = function() {};", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void test_getReader_utf8() throws IOException
+    {
+        Reader reader = mapped.getReader("lib/js/classes/Bar.js");
+        assertEquals("var Bar = \u00e9;", IOUtils.toString(reader));
+    }
+
+    @Test
+    public void test_getInputStream() throws IOException
+    {
+        byte[] content = IOUtils.toByteArray(mapped
+                .getInputStream("lib/js/classes/Bar.js"));
+        assertEquals("var Bar = \u00e9;", new String(content, "UTF-8"));
+    }
+
+    @Test
+    public void test_deflated_fallback()
+    {
+        assertNull(mapped.getReader("lib/js/classes/Baz.js"));
+        assertNull(mapped.getContent("lib/js/classes/Baz.js"));
+    }
+
+    @Test
+    public void test_missing()
+    {
+        assertNull(mapped.getReader("missing.js"));
+    }
+
+    @Test
+    public void test_rewrite_keeps_mapping() throws IOException
+    {
+        File script = File.createTempFile("Qux", ".js");
+        try
+        {
+            FileUtils.writeStringToFile(script, "var Qux;", "UTF-8");
+            Bundle bundle = new Bundle(file);
+            bundle.addCategory("qux", IBundleContainer.Type.JS,
+                    IBundleCategory.Type.MONO).addFile(script, "Qux.js");
+            new BundleWriter(file.getAbsolutePath()).write(bundle);
+        }
+        finally
+        {
+            script.delete();
+        }
+
+        // the replaced bundle's mapping is still readable
+        Reader reader = mapped.getReader("lib/js/classes/Bar.js");
+        assertEquals("var Bar = \u00e9;", IOUtils.toString(reader));
+
+        MappedBundleFile rewritten = MappedBundleFile.getInstance(file);
+        assertNotNull(rewritten);
+        assertFalse(rewritten.hasEntry("lib/js/classes/Bar.js"));
+    }
+
+    @Test
+    public void test_corrupt_name_length() throws IOException
+    {
+        File corrupt = File.createTempFile("corrupt", ".rbl");
+        try
+        {
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(
+                    corrupt));
+            try
+            {
+                putStored(out, "Foo.js", "var Foo;".getBytes("UTF-8"));
+            }
+            finally
+            {
+                out.close();
+            }
+
+            // the central header's name length points past the archive
+            RandomAccessFile raf = new RandomAccessFile(corrupt, "rw");
+            try
+            {
+                byte[] bytes = new byte[(int) raf.length()];
+                raf.readFully(bytes);
+                for (int i = bytes.length - 4; i >= 0; i--)
+                {
+                    if (bytes[i] == 0x50 && bytes[i + 1] == 0x4b
+                            && bytes[i + 2] == 0x01 && bytes[i + 3] == 0x02)
+                    {
+                        raf.seek(i + 28);
+                        raf.write(new byte[] { (byte) 0xFF, (byte) 0xFF });
+                        break;
+                    }
+                }
+            }
+            finally
+            {
+                raf.close();
+            }
+
+            assertNull(MappedBundleFile.getInstance(corrupt));
+        }
+        finally
+        {
+            MappedBundleFile.release(corrupt);
+            corrupt.delete();
+        }
+    }
+
+    private static void putStored(ZipOutputStream out, String name,
+            byte[] content) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b)
+    {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,207 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import randori.compiler.bundle.io.MappedBundleFile;
+import randori.compiler.bundle.io.ZipAssembler;
+
+public class ZipAssemblerTest
+{
+    private File file;
+
+    private byte[] script;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        file = File.createTempFile("assembled", ".rbl");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++)
+            sb.append("Foo.prototype.method" + i + " = function() {};\n");
+        script = sb.toString().getBytes("UTF-8");
+    }
+
+    @After
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Test
+    public void test_compress_deflates()
+    {
+        ZipAssembler.Entry entry = ZipAssembler.compress("Foo.js", script,
+                Deflater.DEFAULT_COMPRESSION, 0);
+        assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+        assertEquals(script.length, entry.getSize());
+        assertEquals(crc(script), entry.getCrc());
+    }
+
+    @Test
+    public void test_compress_no_compression_stores()
+    {
+        ZipAssembler.Entry entry = ZipAssembler.compress("Foo.js", script,
+                Deflater.NO_COMPRESSION, 0);
+        assertEquals(ZipEntry.STORED, entry.getMethod());
+        assertEquals(script.length, entry.getCompressedSize());
+    }
+
+    @Test
+    public void test_compress_stream_in_memory() throws IOException
+    {
+        ZipAssembler.Entry entry = ZipAssembler.compress("Foo.js",
+                new ByteArrayInputStream(script), Deflater.DEFAULT_COMPRESSION,
+                0, script.length);
+        assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+        assertEquals(script.length, entry.getSize());
+        assertEquals(crc(script), entry.getCrc());
+    }
+
+    @Test
+    public void test_compress_stream_spills() throws IOException
+    {
+        // content over the threshold is compressed through a temporary file
+        ZipAssembler.Entry deflated = ZipAssembler.compress("lib/js/Foo.js",
+                new ByteArrayInputStream(script), Deflater.BEST_COMPRESSION,
+                System.currentTimeMillis(), 1024);
+        ZipAssembler.Entry stored = ZipAssembler.compress("lib/js/Bar.js",
+                new ByteArrayInputStream(script), Deflater.NO_COMPRESSION,
+                System.currentTimeMillis(), 1024);
+        assertEquals(ZipEntry.DEFLATED, deflated.getMethod());
+        assertTrue(deflated.getCompressedSize() < script.length);
+        assertEquals(crc(script), deflated.getCrc());
+        assertEquals(ZipEntry.STORED, stored.getMethod());
+        assertEquals(script.length, stored.getCompressedSize());
+        assertEquals(crc(script), stored.getCrc());
+
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            ZipAssembler assembler = new ZipAssembler(out);
+            assembler.add(deflated);
+            assembler.add(stored);
+            assembler.finish();
+        }
+        finally
+        {
+            out.close();
+        }
+
+        ZipFile zipFile = new ZipFile(file);
+        try
+        {
+            assertArrayEquals(script, read(zipFile, "lib/js/Foo.js"));
+            assertArrayEquals(script, read(zipFile, "lib/js/Bar.js"));
+        }
+        finally
+        {
+            zipFile.close();
+        }
+    }
+
+    @Test
+    public void test_read_back() throws IOException
+    {
+        byte[] small = "a".getBytes("UTF-8");
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            ZipAssembler assembler = new ZipAssembler(out);
+            assembler.add(ZipAssembler.compress("lib/js/Foo.js", script,
+                    Deflater.BEST_COMPRESSION, System.currentTimeMillis()));
+            assembler.add(ZipAssembler.store("lib/js/Bar.js", script,
+                    System.currentTimeMillis()));
+            assembler.add(ZipAssembler.compress("manifest.xml", small,
+                    Deflater.DEFAULT_COMPRESSION, System.currentTimeMillis()));
+            assembler.finish();
+        }
+        finally
+        {
+            out.close();
+        }
+
+        ZipFile zipFile = new ZipFile(file);
+        try
+        {
+            assertEquals(3, zipFile.size());
+            assertArrayEquals(script, read(zipFile, "lib/js/Foo.js"));
+            assertArrayEquals(script, read(zipFile, "lib/js/Bar.js"));
+            assertArrayEquals(small, read(zipFile, "manifest.xml"));
+            assertEquals(ZipEntry.DEFLATED,
+                    zipFile.getEntry("lib/js/Foo.js").getMethod());
+            assertEquals(ZipEntry.STORED,
+                    zipFile.getEntry("lib/js/Bar.js").getMethod());
+        }
+        finally
+        {
+            zipFile.close();
+        }
+
+        MappedBundleFile mapped = MappedBundleFile.getInstance(file);
+        assertNotNull(mapped);
+        assertNull(mapped.getContent("lib/js/Foo.js"));
+        assertNotNull(mapped.getContent("lib/js/Bar.js"));
+        assertArrayEquals(script,
+                IOUtils.toByteArray(mapped.getInputStream("lib/js/Bar.js")));
+    }
+
+    private static byte[] read(ZipFile zipFile, String name)
+            throws IOException
+    {
+        InputStream in = zipFile.getInputStream(zipFile.getEntry(name));
+        try
+        {
+            return IOUtils.toByteArray(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private static long crc(byte[] content)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,182 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.bundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import randori.compiler.bundle.io.ZipFilePool;
+import randori.compiler.bundle.io.ZipFilePool.Handle;
+
+public class ZipFilePoolTest
+{
+    private File zipA;
+
+    private File zipB;
+
+    private ZipFilePool pool;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        zipA = createZip("a.txt", "A");
+        zipB = createZip("b.txt", "B");
+        pool = new ZipFilePool(1);
+    }
+
+    @After
+    public void tearDown()
+    {
+        pool.clear();
+        zipA.delete();
+        zipB.delete();
+    }
+
+    @Test
+    public void test_acquire_shared() throws IOException
+    {
+        Handle h1 = pool.acquire(zipA);
+        Handle h2 = pool.acquire(zipA);
+        assertSame(h1, h2);
+        h1.release();
+        h2.release();
+    }
+
+    @Test
+    public void test_getInputStream() throws IOException
+    {
+        InputStream in = pool.getInputStream(zipA, "a.txt");
+        try
+        {
+            assertEquals("A", IOUtils.toString(in, "UTF-8"));
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void test_getInputStream_missing() throws IOException
+    {
+        pool.getInputStream(zipA, "missing.txt");
+    }
+
+    @Test
+    public void test_evict_released() throws IOException
+    {
+        Handle a = pool.acquire(zipA);
+        a.release();
+
+        Handle b = pool.acquire(zipB);
+        b.release();
+
+        // a was evicted and closed, acquiring it again reopens it
+        assertClosed(a);
+        Handle reopened = pool.acquire(zipA);
+        assertNotSame(a, reopened);
+        reopened.release();
+    }
+
+    @Test
+    public void test_evict_keeps_acquired() throws IOException
+    {
+        InputStream in = pool.getInputStream(zipA, "a.txt");
+        Handle b = pool.acquire(zipB);
+        b.release();
+
+        // the open stream keeps a's file open
+        assertEquals("A", IOUtils.toString(in, "UTF-8"));
+        in.close();
+    }
+
+    @Test
+    public void test_acquire_stale() throws IOException
+    {
+        InputStream in = pool.getInputStream(zipA, "a.txt");
+
+        long lastModified = zipA.lastModified();
+        writeZip(zipA, "a.txt", "AA");
+        zipA.setLastModified(lastModified - 2000);
+
+        // the rewritten file is reopened, the open stream keeps the old one
+        InputStream reopened = pool.getInputStream(zipA, "a.txt");
+        try
+        {
+            assertEquals("AA", IOUtils.toString(reopened, "UTF-8"));
+        }
+        finally
+        {
+            reopened.close();
+        }
+        in.close();
+    }
+
+    private static void assertClosed(Handle handle)
+    {
+        try
+        {
+            handle.getZipFile().size();
+            fail("zip file is open");
+        }
+        catch (IllegalStateException e)
+        {
+        }
+    }
+
+    private static File createZip(String name, String content)
+            throws IOException
+    {
+        File file = File.createTempFile("pool", ".zip");
+        writeZip(file, name, content);
+        return file;
+    }
+
+    private static void writeZip(File file, String name, String content)
+            throws IOException
+    {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try
+        {
+            out.putNextEntry(new ZipEntry(name));
+            out.write(content.getBytes("UTF-8"));
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
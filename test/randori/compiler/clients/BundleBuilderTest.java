@@ -0,0 +1,361 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.flex.compiler.internal.workspaces.Workspace;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.Before;
+import org.junit.Test;
+
+import randori.compiler.bundle.Bundle;
+import randori.compiler.bundle.IBundleCategory;
+import randori.compiler.bundle.IBundleContainer;
+import randori.compiler.clients.LibraryDescriptor.Kind;
+import randori.compiler.internal.constants.TestConstants;
+import randori.compiler.internal.driver.RandoriBackend;
+
+/**
+ * @author Michael Schmalle
+ */
+public class BundleBuilderTest
+{
+    private static final String BUILTIN = FilenameNormalization
+            .normalize(TestConstants.RandoriASFramework
+                    + "\\randori-sdk\\randori-framework\\bin\\swc"
+                    + "\\builtin.swc");
+
+    private final List<String> compiled = Collections
+            .synchronizedList(new ArrayList<String>());
+
+    private final List<String> failing = new ArrayList<String>();
+
+    private BundleBuilder builder;
+
+    @Before
+    public void setUp()
+    {
+        compiled.clear();
+        failing.clear();
+        builder = new BundleBuilder(new Bundle(new File("test.rbl"))) {
+            @Override
+            protected boolean compile(LibraryDescriptor descriptor)
+            {
+                compiled.add(descriptor.getName());
+                return !failing.contains(descriptor.getName());
+            }
+        };
+    }
+
+    @Test
+    public void test_sort()
+    {
+        add("c", "b");
+        add("b", "a");
+        add("a");
+        add("d", "a", "c");
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), names(builder.sort()));
+    }
+
+    @Test
+    public void test_sort_cycle()
+    {
+        add("a", "c");
+        add("b", "a");
+        add("c", "b");
+        try
+        {
+            builder.sort();
+            fail("cycle not detected");
+        }
+        catch (IllegalStateException e)
+        {
+            assertTrue(e.getMessage().startsWith("Library dependency cycle"));
+        }
+    }
+
+    @Test
+    public void test_sort_unknown_dependency()
+    {
+        add("a", "missing");
+        try
+        {
+            builder.sort();
+            fail("unknown dependency not detected");
+        }
+        catch (IllegalStateException e)
+        {
+            assertEquals("Unknown library dependency missing of a",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_build_order() throws InterruptedException
+    {
+        add("d", "b", "c");
+        add("c", "a");
+        add("b", "a");
+        add("a");
+
+        assertTrue(builder.build(4));
+        assertEquals(4, compiled.size());
+        assertEquals("a", compiled.get(0));
+        assertEquals("d", compiled.get(3));
+    }
+
+    @Test
+    public void test_build_skips_dependents_of_failed()
+            throws InterruptedException
+    {
+        add("a");
+        add("b", "a");
+        add("c");
+        failing.add("a");
+
+        assertFalse(builder.build(2));
+        assertFalse(compiled.contains("b"));
+        assertTrue(compiled.contains("c"));
+        assertTrue(builder.getFailed().contains("a"));
+        assertTrue(builder.getFailed().contains("b"));
+    }
+
+    @Test
+    public void test_build_randori_concurrently() throws Exception
+    {
+        File directory = createDirectory();
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        Bundle bundle = new Bundle(new File(directory, "test.rbl"));
+        builder = new BundleBuilder(bundle) {
+            @Override
+            protected Randori createRandori(Workspace workspace)
+            {
+                return new Randori(new RandoriBackend(), workspace) {
+                    @Override
+                    protected boolean compile()
+                    {
+                        // both compiles must be inside compile() together
+                        try
+                        {
+                            barrier.await(60, TimeUnit.SECONDS);
+                        }
+                        catch (Exception e)
+                        {
+                            throw new IllegalStateException(
+                                    "compiles did not overlap", e);
+                        }
+                        return super.compile();
+                    }
+                };
+            }
+        };
+
+        try
+        {
+            File foo = addRandori(directory, "foo", "Foo");
+            File bar = addRandori(directory, "bar", "Bar");
+
+            assertTrue(builder.build(2));
+            assertTrue(builder.getFailed().isEmpty());
+            assertTrue(readScripts(foo).contains("foo.Foo"));
+            assertTrue(readScripts(bar).contains("bar.Bar"));
+            assertFalse(readScripts(foo).contains("bar.Bar"));
+        }
+        finally
+        {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void test_write_compressed() throws IOException
+    {
+        File directory = createDirectory();
+        File script = new File(directory, "Foo.js");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+            sb.append("Foo.prototype.method" + i + " = function() {};\n");
+        FileUtils.writeStringToFile(script, sb.toString(), "UTF-8");
+
+        Bundle bundle = new Bundle(new File(directory, "test.rbl"));
+        bundle.addCategory("foo", IBundleContainer.Type.JS,
+                IBundleCategory.Type.MONO).addFile(script, "Foo.js");
+        new BundleBuilder(bundle).write(true);
+
+        ZipFile zipFile = new ZipFile(bundle.getBundleFile());
+        try
+        {
+            assertEquals(ZipEntry.DEFLATED, findEntry(zipFile, "Foo.js")
+                    .getMethod());
+            assertEquals(ZipEntry.DEFLATED, findEntry(zipFile, "manifest.xml")
+                    .getMethod());
+        }
+        finally
+        {
+            zipFile.close();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void test_write_failure_removes_bundle() throws IOException
+    {
+        File directory = createDirectory();
+        Bundle bundle = new Bundle(new File(directory, "test.rbl"));
+        bundle.addCategory("foo", IBundleContainer.Type.JS,
+                IBundleCategory.Type.MONO).addFile(
+                new File(directory, "Missing.js"), "Missing.js");
+        try
+        {
+            new BundleBuilder(bundle).write(true);
+            fail("missing file not reported");
+        }
+        catch (IOException e)
+        {
+            assertFalse(bundle.getBundleFile().exists());
+        }
+        finally
+        {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    private File addRandori(File directory, String name, String className)
+            throws IOException
+    {
+        File source = new File(directory, name + "-src");
+        FileUtils.writeStringToFile(new File(source, name + "/" + className
+                + ".as"), "package " + name + " {\npublic class " + className
+                + " {\npublic function " + className + "() {}\n}\n}\n",
+                "UTF-8");
+
+        File output = new File(directory, name + "-js");
+        LibraryDescriptor descriptor = new LibraryDescriptor(name, Kind.JS,
+                output, name);
+        descriptor.addLibraryPath(BUILTIN);
+        descriptor.addSourcePath(source.getAbsolutePath());
+        builder.add(descriptor);
+        return output;
+    }
+
+    private static String readScripts(File output) throws IOException
+    {
+        Collection<File> files = FileUtils.listFiles(output,
+                new String[] { "js" }, true);
+        assertFalse(files.isEmpty());
+        StringBuilder sb = new StringBuilder();
+        for (File file : files)
+            sb.append(FileUtils.readFileToString(file, "UTF-8"));
+        return sb.toString();
+    }
+
+    @Test
+    public void test_write_failure_keeps_previous_bundle() throws IOException
+    {
+        File directory = createDirectory();
+        File script = new File(directory, "Foo.js");
+        FileUtils.writeStringToFile(script, "var Foo;", "UTF-8");
+
+        Bundle bundle = new Bundle(new File(directory, "test.rbl"));
+        IBundleCategory category = bundle.addCategory("foo",
+                IBundleContainer.Type.JS, IBundleCategory.Type.MONO);
+        category.addFile(script, "Foo.js");
+        new BundleBuilder(bundle).write(false);
+        long length = bundle.getBundleFile().length();
+
+        category.addFile(new File(directory, "Missing.js"), "Missing.js");
+        try
+        {
+            new BundleBuilder(bundle).write(false);
+            fail("missing file not reported");
+        }
+        catch (IOException e)
+        {
+            assertEquals(length, bundle.getBundleFile().length());
+            // only the script and the previous bundle are left
+            assertEquals(2, directory.list().length);
+        }
+        finally
+        {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    private static File createDirectory() throws IOException
+    {
+        File directory = File.createTempFile("bundlebuilder", "");
+        directory.delete();
+        directory.mkdirs();
+        return directory;
+    }
+
+    private static ZipEntry findEntry(ZipFile zipFile, String name)
+    {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements())
+        {
+            ZipEntry entry = entries.nextElement();
+            if (entry.getName().endsWith(name))
+                return entry;
+        }
+        fail(name + " not written");
+        return null;
+    }
+
+    private void add(String name, String... dependencies)
+    {
+        LibraryDescriptor descriptor = new LibraryDescriptor(name, Kind.JS,
+                new File(name), name);
+        for (String dependency : dependencies)
+        {
+            descriptor.addDependency(dependency);
+        }
+        builder.add(descriptor);
+    }
+
+    private static List<String> names(List<LibraryDescriptor> descriptors)
+    {
+        List<String> result = new ArrayList<String>();
+        for (LibraryDescriptor descriptor : descriptors)
+        {
+            result.add(descriptor.getName());
+        }
+        return result;
+    }
+}
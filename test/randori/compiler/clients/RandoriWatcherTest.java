@@ -0,0 +1,200 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.clients;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.Test;
+
+import randori.compiler.internal.js.codegen.RandoriTestProjectBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class RandoriWatcherTest extends RandoriTestProjectBase
+{
+    private static final String BASE_PATH = "temp/watcher/src";
+
+    private File sourceDirectory;
+
+    private SourceChanges changes;
+
+    private RandoriWatcher watcher;
+
+    @Override
+    public void setUp()
+    {
+        sourceDirectory = new File(FilenameNormalization.normalize(BASE_PATH));
+        try
+        {
+            FileUtils.deleteDirectory(sourceDirectory.getParentFile());
+            writeClass("demo/watcher", "Main");
+            writeClass("demo/watcher/sub", "Sub");
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        super.setUp();
+
+        changes = new SourceChanges();
+        watcher = new RandoriWatcher(new String[0], changes);
+        try
+        {
+            watcher.watch();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void tearDown()
+    {
+        watcher.close();
+        super.tearDown();
+    }
+
+    @Test
+    public void test_overflow_scans() throws Exception
+    {
+        resolveAll();
+        changes.snapshot(project);
+
+        new File(path("demo/watcher", "Main")).delete();
+        writeClass("demo/watcher", "Added");
+        watcher.handle(directory("demo/watcher"), OVERFLOW, null);
+        changes.invalidate(project, workspace);
+
+        assertEquals(new HashSet<String>(Arrays.asList("demo.watcher.Main")),
+                changes.getRemovedTypes());
+        assertTrue(changes.getDirtyFiles().contains(
+                path("demo/watcher", "Added")));
+    }
+
+    @Test
+    public void test_new_directory_scans() throws Exception
+    {
+        resolveAll();
+        changes.snapshot(project);
+
+        writeClass("demo/watcher/created", "First");
+        writeClass("demo/watcher/created/nested", "Second");
+        watcher.handle(directory("demo/watcher"), ENTRY_CREATE,
+                new File("created").toPath());
+        changes.invalidate(project, workspace);
+
+        assertTrue(changes.getDirtyFiles().contains(
+                path("demo/watcher/created", "First")));
+        assertTrue(changes.getDirtyFiles().contains(
+                path("demo/watcher/created/nested", "Second")));
+    }
+
+    @Test
+    public void test_deleted_directory_scans() throws Exception
+    {
+        resolveAll();
+        changes.snapshot(project);
+
+        // registers the directory with the watcher
+        watcher.handle(directory("demo/watcher"), ENTRY_CREATE,
+                new File("sub").toPath());
+        assertTrue(changes.isEmpty());
+
+        FileUtils.deleteDirectory(new File(sourceDirectory,
+                "demo/watcher/sub"));
+        watcher.handle(directory("demo/watcher"), ENTRY_DELETE,
+                new File("sub").toPath());
+        changes.invalidate(project, workspace);
+
+        assertEquals(new HashSet<String>(
+                Arrays.asList("demo.watcher.sub.Sub")),
+                changes.getRemovedTypes());
+    }
+
+    private void resolveAll() throws InterruptedException
+    {
+        for (String path : new String[] { path("demo/watcher", "Main"),
+                path("demo/watcher/sub", "Sub") })
+        {
+            for (ICompilationUnit unit : workspace.getCompilationUnits(path,
+                    project))
+            {
+                unit.getOutgoingDependenciesRequest().get();
+            }
+        }
+    }
+
+    private Path directory(String packagePath)
+    {
+        return new File(sourceDirectory, packagePath).getAbsoluteFile()
+                .toPath();
+    }
+
+    private String path(String packagePath, String name)
+    {
+        return FilenameNormalization.normalize(new File(sourceDirectory,
+                packagePath + "/" + name + ".as").getAbsolutePath());
+    }
+
+    private void writeClass(String packagePath, String name)
+            throws IOException
+    {
+        String packageName = packagePath.replace('/', '.');
+        FileUtils.writeStringToFile(new File(path(packagePath, name)),
+                "package " + packageName + "\n{\npublic class " + name
+                        + "\n{\n}\n}\n");
+    }
+
+    @Override
+    protected void addSourcePaths(List<File> sourcePaths)
+    {
+        super.addSourcePaths(sourcePaths);
+        sourcePaths.add(sourceDirectory);
+    }
+
+    @Override
+    protected String getBasePath()
+    {
+        return BASE_PATH;
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.watcher.Main";
+    }
+}
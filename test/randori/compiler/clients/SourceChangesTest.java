@@ -0,0 +1,177 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.clients;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.Test;
+
+import randori.compiler.internal.js.codegen.RandoriTestProjectBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class SourceChangesTest extends RandoriTestProjectBase
+{
+    private static final String BASE_PATH = "temp/sourcechanges/src";
+
+    private File sourceDirectory;
+
+    @Override
+    public void setUp()
+    {
+        sourceDirectory = new File(FilenameNormalization.normalize(BASE_PATH));
+        try
+        {
+            FileUtils.deleteDirectory(sourceDirectory.getParentFile());
+            writeClass("GrandParent", null);
+            writeClass("Parent", "GrandParent");
+            writeClass("GrandChild", "Parent");
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        super.setUp();
+    }
+
+    @Test
+    public void test_events()
+    {
+        SourceChanges changes = new SourceChanges();
+        changes.fileAdded("A.as");
+        changes.fileChanged("A.as");
+        changes.fileRemoved("A.as");
+        assertTrue(changes.isEmpty());
+
+        changes.fileChanged("B.as");
+        changes.fileRemoved("B.as");
+        changes.fileAdded("B.as");
+        assertFalse(changes.isEmpty());
+    }
+
+    @Test
+    public void test_change_dirties_transitive_dependents() throws Exception
+    {
+        resolveAll();
+
+        SourceChanges changes = new SourceChanges();
+        changes.fileChanged(path("GrandParent"));
+        changes.invalidate(project, workspace);
+
+        assertEquals(new HashSet<String>(Arrays.asList(path("GrandParent"),
+                path("Parent"), path("GrandChild"))), changes.getDirtyFiles());
+        assertTrue(changes.isEmpty());
+
+        changes.generated();
+        assertTrue(changes.getDirtyFiles().isEmpty());
+    }
+
+    @Test
+    public void test_remove_collects_types() throws Exception
+    {
+        resolveAll();
+
+        SourceChanges changes = new SourceChanges();
+        changes.fileRemoved(path("Parent"));
+        changes.invalidate(project, workspace);
+
+        assertEquals(new HashSet<String>(Arrays.asList("demo.changes.Parent")),
+                changes.getRemovedTypes());
+        assertEquals(new HashSet<String>(Arrays.asList(path("GrandChild"))),
+                changes.getDirtyFiles());
+    }
+
+    @Test
+    public void test_scan() throws Exception
+    {
+        resolveAll();
+
+        SourceChanges changes = new SourceChanges();
+        changes.snapshot(project);
+        changes.scan();
+        assertTrue(changes.isEmpty());
+
+        File grandParent = new File(path("GrandParent"));
+        grandParent.setLastModified(grandParent.lastModified() - 2000);
+        writeClass("Added", null);
+        changes.scan();
+        changes.invalidate(project, workspace);
+
+        assertTrue(changes.getDirtyFiles().contains(path("GrandChild")));
+        assertTrue(changes.getDirtyFiles().contains(path("Added")));
+    }
+
+    private void resolveAll() throws InterruptedException
+    {
+        for (String name : new String[] { "GrandParent", "Parent",
+                "GrandChild" })
+        {
+            Collection<ICompilationUnit> units = workspace.getCompilationUnits(
+                    path(name), project);
+            units.iterator().next().getOutgoingDependenciesRequest().get();
+        }
+    }
+
+    private String path(String name)
+    {
+        return FilenameNormalization.normalize(new File(sourceDirectory,
+                "demo/changes/" + name + ".as").getAbsolutePath());
+    }
+
+    private void writeClass(String name, String base) throws IOException
+    {
+        String extendsClause = base != null ? " extends " + base : "";
+        FileUtils.writeStringToFile(new File(path(name)),
+                "package demo.changes\n{\npublic class " + name
+                        + extendsClause + "\n{\n}\n}\n");
+    }
+
+    @Override
+    protected void addSourcePaths(List<File> sourcePaths)
+    {
+        super.addSourcePaths(sourcePaths);
+        sourcePaths.add(sourceDirectory);
+    }
+
+    @Override
+    protected String getBasePath()
+    {
+        return BASE_PATH;
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.changes.GrandChild";
+    }
+}
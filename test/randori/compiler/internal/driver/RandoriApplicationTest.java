@@ -0,0 +1,117 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.internal.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.apache.flex.compiler.tree.as.IClassNode;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.Test;
+
+import randori.compiler.config.IRandoriTargetSettings;
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.driver.model.ApplicationModel;
+import randori.compiler.internal.driver.model.RandoriModel;
+import randori.compiler.internal.js.codegen.ResourceTestBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class RandoriApplicationTest extends ResourceTestBase
+{
+    private static final String[] TYPES = { "demo.foo.ClassA",
+            "demo.foo.ClassB", "demo.foo.NoConstructorClass",
+            "demo.foo.support.MenuItem2", "demo.foo.support.PolyFill" };
+
+    @Test
+    public void test_find_class_nodes() throws Exception
+    {
+        List<ICompilationUnit> units = getUnits();
+        List<IClassNode> serial = findClassNodes(units, 1);
+        List<IClassNode> concurrent = findClassNodes(units, 4);
+
+        assertEquals(TYPES.length, serial.size());
+        assertEquals(TYPES.length, concurrent.size());
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            // in unit order however the trees were fetched
+            assertEquals(TYPES[i], serial.get(i).getQualifiedName());
+            assertEquals(TYPES[i], concurrent.get(i).getQualifiedName());
+        }
+    }
+
+    @Test
+    public void test_offer_by_prefix() throws Exception
+    {
+        IRandoriTargetSettings settings = createSettings(1);
+        ICompilationUnit unit = getUnits().get(0);
+        IClassNode node = findClassNodes(getUnits(), 1).get(0);
+
+        assertFalse(new RandoriModel(project, settings).offer(unit, node));
+        assertFalse(new ApplicationModel(project, settings).offer(unit, null));
+        assertTrue(new ApplicationModel(project, settings).offer(unit, node));
+    }
+
+    private List<IClassNode> findClassNodes(List<ICompilationUnit> units,
+            int threads) throws ConfigurationException
+    {
+        RandoriApplication application = new RandoriApplication(project,
+                units, createSettings(threads));
+        return application.findClassNodes(units);
+    }
+
+    private List<ICompilationUnit> getUnits() throws InterruptedException
+    {
+        List<ICompilationUnit> units = new ArrayList<ICompilationUnit>();
+        for (String qualifiedName : TYPES)
+        {
+            String path = FilenameNormalization.normalize(getBasePath() + "/"
+                    + qualifiedName.replace('.', '/') + ".as");
+            ICompilationUnit unit = workspace
+                    .getCompilationUnits(path, project).iterator().next();
+            unit.getOutgoingDependenciesRequest().get();
+            units.add(unit);
+        }
+        return units;
+    }
+
+    private static IRandoriTargetSettings createSettings(int threads)
+            throws ConfigurationException
+    {
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        configuration.setJsGenerationThreads(null, threads);
+        return new RandoriTargetSettings(configuration);
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.foo.ClassA";
+    }
+}
@@ -0,0 +1,205 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.internal.driver.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.apache.flex.compiler.problems.ICompilerProblem;
+import org.apache.flex.compiler.problems.InternalCompilerProblem;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.Test;
+
+import randori.compiler.config.IRandoriTargetSettings;
+import randori.compiler.driver.IRandoriBackend;
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.js.codegen.ResourceTestBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class ApplicationModelTest extends ResourceTestBase
+{
+    private File outputDirectory;
+
+    private List<ICompilerProblem> problems;
+
+    @Override
+    public void setUp()
+    {
+        super.setUp();
+        outputDirectory = new File(FilenameNormalization
+                .normalize("temp/applicationmodel"));
+        problems = new ArrayList<ICompilerProblem>();
+        try
+        {
+            FileUtils.deleteDirectory(outputDirectory);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void test_failing_unit_does_not_stop_others() throws Exception
+    {
+        IRandoriTargetSettings settings = createSettings(true, 2);
+        final ICompilationUnit failing = getUnit("demo.foo.ClassA");
+        ApplicationModel model = new ApplicationModel(project, settings) {
+            @Override
+            protected String emitUnit(ICompilationUnit unit)
+            {
+                if (unit == failing)
+                    throw new IllegalStateException("emit failed");
+                return super.emitUnit(unit);
+            }
+        };
+        generate(model, failing, getUnit("demo.foo.ClassB"));
+
+        assertFalse(getOutputFile("demo.foo.ClassA").exists());
+        assertTrue(getOutputFile("demo.foo.ClassB").exists());
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0) instanceof InternalCompilerProblem);
+    }
+
+    @Test
+    public void test_monolithic_threads_identical() throws Exception
+    {
+        String serial = writeMonolithic(1);
+        String concurrent = writeMonolithic(4);
+
+        assertTrue(serial.contains("demo.foo.ClassB"));
+        assertEquals(serial, concurrent);
+    }
+
+    @Test
+    public void test_unchanged_file_keeps_time() throws Exception
+    {
+        RandoriConfiguration configuration = createConfiguration(true, 1);
+        configuration.setJsSkipUnchangedOutput(null, true);
+        IRandoriTargetSettings settings = createSettings(configuration);
+        ICompilationUnit unit = getUnit("demo.foo.ClassA");
+        generate(new ApplicationModel(project, settings), unit);
+
+        File file = getOutputFile("demo.foo.ClassA");
+        long written = file.lastModified() - 10000;
+        file.setLastModified(written);
+
+        // only the banner's time differs
+        generate(new ApplicationModel(project, settings), unit);
+        assertEquals(written, file.lastModified());
+
+        FileUtils.writeStringToFile(file, "edited", "UTF-8");
+        file.setLastModified(written);
+        generate(new ApplicationModel(project, settings), unit);
+        assertFalse(FileUtils.readFileToString(file, "UTF-8").equals("edited"));
+    }
+
+    /**
+     * Writes the <code>demo.foo</code> classes to one file and returns it
+     * without the banner, which holds the time it was written.
+     */
+    private String writeMonolithic(int threads) throws Exception
+    {
+        IRandoriTargetSettings settings = createSettings(false, threads);
+        ApplicationModel model = new ApplicationModel(project, settings);
+        generate(model, getUnit("demo.foo.ClassA"),
+                getUnit("demo.foo.ClassB"),
+                getUnit("demo.foo.NoConstructorClass"),
+                getUnit("demo.foo.support.MenuItem2"),
+                getUnit("demo.foo.support.PolyFill"));
+
+        File file = new File(outputDirectory, "Foo.js");
+        String content = FileUtils.readFileToString(file, "UTF-8");
+        file.delete();
+        return content.substring(content.indexOf(" */\n") + 4);
+    }
+
+    private void generate(ApplicationModel model, ICompilationUnit... units)
+    {
+        List<ICompilationUnit> filtered = new ArrayList<ICompilationUnit>();
+        for (ICompilationUnit unit : units)
+        {
+            filtered.add(unit);
+        }
+        model.filter(filtered);
+        model.generate((IRandoriBackend) backend, problems, outputDirectory);
+    }
+
+    private IRandoriTargetSettings createSettings(boolean classesAsFiles,
+            int threads) throws ConfigurationException
+    {
+        return createSettings(createConfiguration(classesAsFiles, threads));
+    }
+
+    private RandoriConfiguration createConfiguration(boolean classesAsFiles,
+            int threads) throws ConfigurationException
+    {
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        configuration.setAppName(null, "Foo");
+        configuration.setJsClassesAsFiles(null, classesAsFiles);
+        configuration.setJsGenerationThreads(null, threads);
+        return configuration;
+    }
+
+    private IRandoriTargetSettings createSettings(
+            RandoriConfiguration configuration)
+    {
+        RandoriTargetSettings settings = new RandoriTargetSettings(
+                configuration);
+        setSettings(settings);
+        return settings;
+    }
+
+    private ICompilationUnit getUnit(String qualifiedName)
+            throws InterruptedException
+    {
+        String path = FilenameNormalization.normalize(getBasePath() + "/"
+                + qualifiedName.replace('.', '/') + ".as");
+        ICompilationUnit unit = workspace.getCompilationUnits(path, project)
+                .iterator().next();
+        unit.getOutgoingDependenciesRequest().get();
+        return unit;
+    }
+
+    private File getOutputFile(String qualifiedName)
+    {
+        return new File(outputDirectory, qualifiedName.replace('.', '/')
+                + ".js");
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.foo.ClassA";
+    }
+}
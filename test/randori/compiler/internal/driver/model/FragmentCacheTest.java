@@ -0,0 +1,124 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.driver.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.Test;
+
+import randori.compiler.internal.js.codegen.RandoriTestProjectBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class FragmentCacheTest extends RandoriTestProjectBase
+{
+    private static final String BASE_PATH = "temp/fragmentcache/src";
+
+    private File sourceDirectory;
+
+    private File cacheDirectory;
+
+    @Override
+    public void setUp()
+    {
+        sourceDirectory = new File(FilenameNormalization.normalize(BASE_PATH));
+        cacheDirectory = new File(FilenameNormalization
+                .normalize("temp/fragmentcache/cache"));
+        try
+        {
+            FileUtils.deleteDirectory(sourceDirectory.getParentFile());
+            writeClass("GrandParent", null, "");
+            writeClass("Parent", "GrandParent", "");
+            writeClass("GrandChild", "Parent", "");
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        super.setUp();
+    }
+
+    @Test
+    public void test_grand_parent_invalidates_grand_child() throws Exception
+    {
+        ICompilationUnit grandChild = resolve("GrandChild");
+        resolve("Parent");
+        resolve("GrandParent");
+
+        FragmentCache cache = new FragmentCache(project, cacheDirectory, "");
+        cache.put(grandChild, "source");
+        assertEquals("source", cache.get(grandChild));
+
+        // only the grand child's dependency on Parent is direct
+        writeClass("GrandParent", null, "public var added:String;");
+
+        cache = new FragmentCache(project, cacheDirectory, "");
+        assertNull(cache.get(grandChild));
+    }
+
+    private ICompilationUnit resolve(String name) throws InterruptedException
+    {
+        String path = new File(sourceDirectory, "demo/cache/" + name + ".as")
+                .getAbsolutePath();
+        Collection<ICompilationUnit> units = workspace.getCompilationUnits(
+                FilenameNormalization.normalize(path), project);
+        ICompilationUnit unit = units.iterator().next();
+        unit.getOutgoingDependenciesRequest().get();
+        return unit;
+    }
+
+    private void writeClass(String name, String base, String body)
+            throws IOException
+    {
+        String extendsClause = base != null ? " extends " + base : "";
+        FileUtils.writeStringToFile(new File(sourceDirectory, "demo/cache/"
+                + name + ".as"), "package demo.cache\n{\npublic class " + name
+                + extendsClause + "\n{\n" + body + "\n}\n}\n");
+    }
+
+    @Override
+    protected void addSourcePaths(List<File> sourcePaths)
+    {
+        super.addSourcePaths(sourcePaths);
+        sourcePaths.add(sourceDirectory);
+    }
+
+    @Override
+    protected String getBasePath()
+    {
+        return BASE_PATH;
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.cache.GrandChild";
+    }
+}
@@ -0,0 +1,89 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.driver.model;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.apache.flex.compiler.definitions.IClassDefinition;
+import org.junit.Test;
+
+import randori.compiler.internal.js.codegen.ResourceTestBase;
+
+/**
+ * @author Michael Schmalle
+ */
+public class TreeShakerTest extends ResourceTestBase
+{
+    @Test
+    public void test_reachable()
+    {
+        TreeShaker treeShaker = new TreeShaker(project,
+                Collections.<String> emptyList());
+        treeShaker.addRoot(classNode.getDefinition());
+        treeShaker.shake();
+
+        assertTrue(treeShaker.isReachable(classNode.getDefinition()));
+        // [Inject] field and new expression
+        assertTrue(treeShaker.isReachable(find("demo.foo.ClassA")));
+        // [Inject] method parameter
+        assertTrue(treeShaker.isReachable(find("demo.foo.ClassB")));
+        assertFalse(treeShaker.isReachable(find("demo.foo.NoConstructorClass")));
+    }
+
+    @Test
+    public void test_keep()
+    {
+        TreeShaker treeShaker = new TreeShaker(project,
+                Collections.singletonList("demo.foo.No"));
+        assertTrue(treeShaker.addKept(find("demo.foo.NoConstructorClass")));
+        assertFalse(treeShaker.addKept(find("demo.foo.ClassA")));
+        treeShaker.shake();
+
+        assertTrue(treeShaker.isReachable(find("demo.foo.NoConstructorClass")));
+        assertFalse(treeShaker.isReachable(find("demo.foo.ClassB")));
+    }
+
+    @Test
+    public void test_body_problems()
+    {
+        TreeShaker treeShaker = new TreeShaker(project,
+                Collections.<String> emptyList());
+        treeShaker.addRoot(find("demo.shake.BrokenBody"));
+        treeShaker.shake();
+
+        // the body is parsed here, not again by the emitter
+        assertFalse(treeShaker.getProblems().isEmpty());
+    }
+
+    private IClassDefinition find(String qualifiedName)
+    {
+        return (IClassDefinition) project.getScope().findDefinitionByName(
+                qualifiedName);
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.inject.InjectTest";
+    }
+}
@@ -0,0 +1,168 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.js.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.flex.compiler.clients.problems.CompilerProblemCategorizer;
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.apache.flex.compiler.problems.CompilerProblemSeverity;
+import org.apache.flex.compiler.problems.ICompilerProblem;
+import org.apache.flex.compiler.tree.as.IFileNode;
+import org.apache.flex.compiler.units.ICompilationUnit;
+import org.apache.flex.utils.FilenameNormalization;
+import org.junit.Test;
+
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.utils.RandoriUtils;
+import randori.compiler.problems.InjectionCycleProblem;
+
+/**
+ * @author Michael Schmalle
+ */
+public class FactoryEmitterTest extends ResourceTestBase
+{
+    @Override
+    public void setUp()
+    {
+        super.setUp();
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        try
+        {
+            configuration.setJsInjectionFactories(null, true);
+        }
+        catch (ConfigurationException e)
+        {
+            throw new RuntimeException(e);
+        }
+        setSettings(new RandoriTargetSettings(configuration));
+    }
+
+    @Test
+    public void test_base_members_first()
+    {
+        visitor.visitFile(fileNode);
+        assertContains("demo.factory.FactorySubclass.$factory = function(i) {"
+                + "\n\tvar o = new demo.factory.FactorySubclass("
+                + "i.getInstance(demo.foo.ClassA));"
+                + "\n\to.alpha = i.getInstance(demo.foo.ClassB);"
+                + "\n\to.zeta = i.getInstance(demo.foo.ClassA);"
+                + "\n\to.setup(i.getInstance(demo.foo.ClassA));"
+                + "\n\to.own = i.getInstance(demo.foo.ClassB);"
+                + "\n\treturn o;\n};\n");
+    }
+
+    @Test
+    public void test_optional_member_ineligible()
+    {
+        visitType("demo.factory.FactoryOptional");
+        assertNotContains("$factory");
+    }
+
+    @Test
+    public void test_initialized_member_ineligible()
+    {
+        visitType("demo.factory.FactoryInitialized");
+        assertNotContains("$factory");
+    }
+
+    @Test
+    public void test_native_parameter_ineligible()
+    {
+        visitType("demo.factory.FactoryNative");
+        assertNotContains("$factory");
+    }
+
+    @Test
+    public void test_optional_parameter_ineligible()
+    {
+        visitType("demo.factory.FactoryOptionalParameter");
+        assertNotContains("$factory");
+    }
+
+    @Test
+    public void test_rest_parameter_ineligible()
+    {
+        visitType("demo.factory.FactoryOptionalMethod");
+        assertNotContains("$factory");
+    }
+
+    @Test
+    public void test_cycle()
+    {
+        visitType("demo.factory.CycleA");
+        assertNotContains("$factory");
+        assertContains("demo.factory.CycleA.injectionPoints = function(t) {");
+
+        boolean found = false;
+        for (ICompilerProblem problem : emitter.getProblems())
+        {
+            if (problem instanceof InjectionCycleProblem)
+            {
+                found = true;
+                assertEquals(CompilerProblemSeverity.WARNING,
+                        new CompilerProblemCategorizer()
+                                .getProblemSeverity(problem));
+            }
+        }
+        assertTrue(found);
+        assertFalse(RandoriUtils.hasErrors(emitter.getProblems()));
+    }
+
+    private void visitType(String qualifiedName)
+    {
+        String path = FilenameNormalization.normalize(getBasePath() + "/"
+                + qualifiedName.replace('.', '/') + ".as");
+        try
+        {
+            for (ICompilationUnit unit : workspace.getCompilationUnits(path,
+                    project))
+            {
+                visitor.visitFile((IFileNode) unit.getSyntaxTreeRequest()
+                        .get().getAST());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void assertContains(String code)
+    {
+        mCode = writer.toString();
+        assertTrue(mCode, mCode.contains(code));
+    }
+
+    private void assertNotContains(String code)
+    {
+        mCode = writer.toString();
+        assertFalse(mCode, mCode.contains(code));
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.factory.FactorySubclass";
+    }
+}
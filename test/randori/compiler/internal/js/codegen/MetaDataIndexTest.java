@@ -0,0 +1,110 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.js.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.flex.compiler.exceptions.ConfigurationException;
+import org.junit.Test;
+
+import randori.compiler.codegen.js.IRandoriEmitter;
+import randori.compiler.driver.IRandoriBackend;
+import randori.compiler.internal.codegen.as.ASFilterWriter;
+import randori.compiler.internal.config.RandoriConfiguration;
+import randori.compiler.internal.config.RandoriTargetSettings;
+import randori.compiler.internal.driver.RandoriBackend;
+import randori.compiler.internal.utils.MetaDataIndex;
+
+/**
+ * @author Michael Schmalle
+ */
+public class MetaDataIndexTest extends ResourceTestBase
+{
+    private RandoriTargetSettings settings;
+
+    @Override
+    public void setUp()
+    {
+        super.setUp();
+        RandoriConfiguration configuration = new RandoriConfiguration();
+        try
+        {
+            configuration.setJsInjectionFactories(null, true);
+        }
+        catch (ConfigurationException e)
+        {
+            throw new RuntimeException(e);
+        }
+        settings = new RandoriTargetSettings(configuration);
+        setSettings(settings);
+    }
+
+    @Test
+    public void test_indexed_output()
+    {
+        visitor.visitFile(fileNode);
+        String scanned = writer.toString();
+
+        ((IRandoriBackend) backend).setMetaDataIndex(new MetaDataIndex());
+        setSettings(settings);
+        visitor.visitFile(fileNode);
+
+        assertEquals(scanned, writer.toString());
+    }
+
+    @Test
+    public void test_index_per_build()
+    {
+        MetaDataIndex index = new MetaDataIndex();
+        ((IRandoriBackend) backend).setMetaDataIndex(index);
+
+        IRandoriBackend other = new RandoriBackend();
+        other.setSettings(settings);
+        other.setMetaDataIndex(new MetaDataIndex());
+
+        IRandoriEmitter first = createEmitter((IRandoriBackend) backend);
+        IRandoriEmitter second = createEmitter((IRandoriBackend) backend);
+        IRandoriEmitter third = createEmitter(other);
+
+        assertSame(index, first.getModel().getMetaDataIndex());
+        assertSame(index, second.getModel().getMetaDataIndex());
+        assertNotSame(index, third.getModel().getMetaDataIndex());
+
+        // finishing the other build leaves this build's emitters alone
+        other.setMetaDataIndex(null);
+        assertNull(createEmitter(other).getModel().getMetaDataIndex());
+        assertSame(index, first.getModel().getMetaDataIndex());
+    }
+
+    private IRandoriEmitter createEmitter(IRandoriBackend backend)
+    {
+        ASFilterWriter out = backend.createWriterBuffer(project);
+        return (IRandoriEmitter) backend.createEmitter(out);
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.factory.FactorySubclass";
+    }
+}
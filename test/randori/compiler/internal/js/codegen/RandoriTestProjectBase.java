@@ -40,7 +40,9 @@ import org.apache.flex.compiler.units.ICompilationUnit;
 import org.apache.flex.utils.FilenameNormalization;
 import org.junit.Assert;
 
+import randori.compiler.config.IRandoriTargetSettings;
 import randori.compiler.driver.IBackend;
+import randori.compiler.driver.IRandoriBackend;
 import randori.compiler.internal.TestBase;
 import randori.compiler.internal.constants.TestConstants;
 import randori.compiler.internal.driver.RandoriBackend;
@@ -164,6 +166,18 @@ public abstract class RandoriTestProjectBase extends TestBase
         return new RandoriBackend();
     }
 
+    /**
+     * Recreates the emitter and walker using the target settings, tests that
+     * need a <code>-js-*</code> option call this before visiting.
+     */
+    protected void setSettings(IRandoriTargetSettings settings)
+    {
+        ((IRandoriBackend) backend).setSettings(settings);
+        writer = backend.createWriterBuffer(project);
+        emitter = backend.createEmitter(writer);
+        visitor = backend.createWalker(project, errors, emitter);
+    }
+
     protected IVariableNode findField(String name, IClassNode node)
     {
         IDefinitionNode[] nodes = node.getAllMemberNodes();
@@ -0,0 +1,97 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.internal.js.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.flex.compiler.definitions.IDefinition;
+import org.apache.flex.compiler.tree.as.IASNode;
+import org.apache.flex.compiler.tree.as.IFunctionCallNode;
+import org.apache.flex.compiler.tree.as.IIdentifierNode;
+import org.junit.Test;
+
+import randori.compiler.internal.codegen.js.SessionModel;
+import randori.compiler.internal.metrics.CompilerMetrics;
+
+/**
+ * @author Michael Schmalle
+ */
+public class SessionModelTest extends ResourceTestBase
+{
+    private CompilerMetrics metrics;
+
+    @Override
+    public void setUp()
+    {
+        super.setUp();
+        metrics = new CompilerMetrics();
+        // parses the function bodies
+        visitor.visitFile(fileNode);
+    }
+
+    @Test
+    public void test_resolve_once()
+    {
+        IIdentifierNode node = (IIdentifierNode) findInFunction(
+                "getter_in_return", IIdentifierNode.class);
+        SessionModel model = new SessionModel(metrics, null);
+
+        IDefinition definition = model.resolve(node, project);
+        assertNotNull(definition);
+        assertSame(definition, model.resolve(node, project));
+        assertEquals(1, metrics.getResolves());
+
+        // a new session resolves again
+        assertSame(definition,
+                new SessionModel(metrics, null).resolve(node, project));
+        assertEquals(2, metrics.getResolves());
+    }
+
+    @Test
+    public void test_resolve_called_expression_once()
+    {
+        IFunctionCallNode node = (IFunctionCallNode) findInFunction(
+                "window_static_method", IFunctionCallNode.class);
+        SessionModel model = new SessionModel(metrics, null);
+
+        IDefinition definition = model.resolveCalledExpression(node, project);
+        assertNotNull(definition);
+        assertSame(definition, model.resolveCalledExpression(node, project));
+        assertEquals(1, metrics.getResolves());
+    }
+
+    private IASNode findInFunction(String name,
+            Class<? extends IASNode> nodeType)
+    {
+        IASNode node = findFirstDescendantOfType(
+                findFunction(name, classNode).getScopedNode(), nodeType);
+        assertNotNull(node);
+        return node;
+    }
+
+    @Override
+    protected String getTypeUnderTest()
+    {
+        return "demo.foo.ClassB";
+    }
+}
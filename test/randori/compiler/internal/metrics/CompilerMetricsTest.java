@@ -0,0 +1,88 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+package randori.compiler.internal.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompilerMetricsTest
+{
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        file = File.createTempFile("metrics", ".js");
+        FileUtils.writeStringToFile(file, "var foo = 42;\n", "UTF-8");
+    }
+
+    @After
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Test
+    public void test_file_written()
+    {
+        CompilerMetrics metrics = new CompilerMetrics();
+        metrics.fileWritten(file);
+        metrics.incrementFilesUnchanged();
+
+        assertEquals(file.length(), metrics.getBytesWritten());
+        String json = metrics.toJSON();
+        assertTrue(json.contains("\"filesWritten\": 1,"));
+        assertTrue(json.contains("\"filesUnchanged\": 1,"));
+    }
+
+    @Test
+    public void test_separate_compiles()
+    {
+        CompilerMetrics first = new CompilerMetrics();
+        CompilerMetrics second = new CompilerMetrics();
+        first.incrementResolves();
+        first.fileWritten(file);
+
+        assertEquals(1, first.getResolves());
+        assertEquals(0, second.getResolves());
+        assertEquals(0, second.getBytesWritten());
+    }
+
+    @Test
+    public void test_disabled()
+    {
+        CompilerMetrics.DISABLED.incrementResolves();
+        CompilerMetrics.DISABLED.fileWritten(file);
+        CompilerMetrics.DISABLED.startPhase("phase").stop();
+
+        assertEquals(0, CompilerMetrics.DISABLED.getResolves());
+        assertEquals(0, CompilerMetrics.DISABLED.getBytesWritten());
+        assertTrue(CompilerMetrics.DISABLED.toJSON().contains(
+                "\"phases\": [],"));
+    }
+}
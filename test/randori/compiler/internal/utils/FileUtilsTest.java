@@ -0,0 +1,88 @@
+/***
+ * Copyright 2013 Teoti Graphix, LLC.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * 
+ * @author Michael Schmalle <mschmalle@teotigraphix.com>
+ */
+
+
+package randori.compiler.internal.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileUtilsTest
+{
+    private static final String CONTENT = "var s = \"\u00e9\u4e2d\";\n";
+
+    private File directory;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory("fileutils").toFile();
+        file = new File(directory, "Foo.js");
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File child : directory.listFiles())
+        {
+            child.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void test_createWriter_utf8() throws IOException
+    {
+        Writer writer = FileUtils.createWriter(file);
+        try
+        {
+            writer.write(CONTENT);
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        assertArrayEquals(CONTENT.getBytes("UTF-8"),
+                Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void test_writeFileAtomically_parts() throws IOException
+    {
+        FileUtils.writeFileAtomically(file, "old");
+        FileUtils.writeFileAtomically(file, "/* banner */\n", CONTENT);
+
+        assertArrayEquals(("/* banner */\n" + CONTENT).getBytes("UTF-8"),
+                Files.readAllBytes(file.toPath()));
+        // the temporary file was moved into place
+        assertEquals(1, directory.listFiles().length);
+    }
+}
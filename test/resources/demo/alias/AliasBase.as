@@ -0,0 +1,17 @@
+package demo.alias
+{
+
+public class AliasBase
+{
+    public static var label:String = "base";
+
+    public function AliasBase()
+    {
+    }
+
+    public function run(value:int):int
+    {
+        return value + AliasBase.label.length;
+    }
+}
+}
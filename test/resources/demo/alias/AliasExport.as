@@ -0,0 +1,15 @@
+package demo.alias
+{
+
+public class AliasExport
+{
+    [JavaScript]
+    public function AliasExport()
+    {
+    }
+
+    public function run():void
+    {
+    }
+}
+}
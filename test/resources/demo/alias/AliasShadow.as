@@ -0,0 +1,18 @@
+package demo.alias
+{
+
+public class AliasShadow
+{
+    public static var label:String = "shadow";
+
+    public function AliasShadow()
+    {
+    }
+
+    public function run($c:String):int
+    {
+        var $s:int = $c.length;
+        return $s + AliasShadow.label.length;
+    }
+}
+}
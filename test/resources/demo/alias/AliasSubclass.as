@@ -0,0 +1,24 @@
+package demo.alias
+{
+
+public class AliasSubclass extends AliasBase
+{
+    public static var count:int = 0;
+
+    public function AliasSubclass()
+    {
+        super();
+    }
+
+    override public function run(value:int):int
+    {
+        count++;
+        return super.run(value) + AliasSubclass.count;
+    }
+
+    public static function create():AliasSubclass
+    {
+        return new AliasSubclass();
+    }
+}
+}
@@ -0,0 +1,20 @@
+package demo.alias
+{
+
+public class AliasWith
+{
+    public static var label:String = "with";
+
+    public function AliasWith()
+    {
+    }
+
+    public function run($c:Object):int
+    {
+        with ($c)
+        {
+        }
+        return AliasWith.label.length;
+    }
+}
+}
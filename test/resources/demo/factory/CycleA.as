@@ -0,0 +1,10 @@
+package demo.factory
+{
+
+public class CycleA
+{
+    public function CycleA(b:CycleB)
+    {
+    }
+}
+}
@@ -0,0 +1,10 @@
+package demo.factory
+{
+
+public class CycleB
+{
+    public function CycleB(a:CycleA)
+    {
+    }
+}
+}
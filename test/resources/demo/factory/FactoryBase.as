@@ -0,0 +1,23 @@
+package demo.factory
+{
+import demo.foo.ClassA;
+import demo.foo.ClassB;
+
+public class FactoryBase
+{
+    [Inject]
+    public var zeta:ClassA;
+
+    [Inject]
+    public var alpha:ClassB;
+
+    public function FactoryBase()
+    {
+    }
+
+    [Inject]
+    public function setup(a:ClassA):void
+    {
+    }
+}
+}
@@ -0,0 +1,14 @@
+package demo.factory
+{
+import demo.foo.ClassA;
+
+public class FactoryInitialized
+{
+    [Inject]
+    public var created:ClassA = new ClassA();
+
+    public function FactoryInitialized()
+    {
+    }
+}
+}
@@ -0,0 +1,10 @@
+package demo.factory
+{
+
+public class FactoryNative
+{
+    public function FactoryNative(name:String)
+    {
+    }
+}
+}
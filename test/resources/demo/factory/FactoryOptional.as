@@ -0,0 +1,14 @@
+package demo.factory
+{
+import demo.foo.ClassA;
+
+public class FactoryOptional
+{
+    [Inject(required="false")]
+    public var maybe:ClassA;
+
+    public function FactoryOptional()
+    {
+    }
+}
+}
@@ -0,0 +1,16 @@
+package demo.factory
+{
+import demo.foo.ClassA;
+
+public class FactoryOptionalMethod
+{
+    public function FactoryOptionalMethod()
+    {
+    }
+
+    [Inject]
+    public function setup(a:ClassA, ...rest):void
+    {
+    }
+}
+}
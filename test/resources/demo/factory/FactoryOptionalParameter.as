@@ -0,0 +1,12 @@
+package demo.factory
+{
+import demo.foo.ClassA;
+import demo.foo.ClassB;
+
+public class FactoryOptionalParameter
+{
+    public function FactoryOptionalParameter(a:ClassA, b:ClassB = null)
+    {
+    }
+}
+}
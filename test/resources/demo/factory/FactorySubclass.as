@@ -0,0 +1,16 @@
+package demo.factory
+{
+import demo.foo.ClassA;
+import demo.foo.ClassB;
+
+public class FactorySubclass extends FactoryBase
+{
+    [Inject]
+    public var own:ClassB;
+
+    public function FactorySubclass(a:ClassA)
+    {
+        super();
+    }
+}
+}
@@ -0,0 +1,14 @@
+package demo.inject
+{
+import demo.foo.ClassA;
+
+public class TableBase
+{
+    [Inject]
+    public var baseField:ClassA;
+
+    public function TableBase()
+    {
+    }
+}
+}
@@ -0,0 +1,15 @@
+package demo.inject
+{
+import demo.foo.ClassA;
+
+public class TableSubclass extends TableBase
+{
+    [Inject]
+    public var created:ClassA = new ClassA();
+
+    public function TableSubclass()
+    {
+        super();
+    }
+}
+}
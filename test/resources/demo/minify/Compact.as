@@ -0,0 +1,58 @@
+package demo.minify
+{
+
+public class Compact
+{
+    public function Compact()
+    {
+    }
+
+    public function regex_instanceof():Boolean
+    {
+        return /a/ is RegExp;
+    }
+
+    public function regex_in(target:Object):Boolean
+    {
+        return /a/ in target;
+    }
+
+    public function shadow(value:int):Function
+    {
+        var count:int = value;
+        return function(value:int):int {
+            var count:int = value + 1;
+            return count;
+        };
+    }
+
+    public function uses_with(target:Object):void
+    {
+        var local:int = 1;
+        with (target)
+        {
+            local = 2;
+        }
+    }
+
+    public function uses_eval(code:String):void
+    {
+        var local:int = 1;
+        eval(code);
+    }
+
+    [JavaScriptCode(file="code.js")]
+    public function uses_code(param:String):void
+    {
+    }
+
+    public function default_param(first:String, second:int = 42):void
+    {
+    }
+
+    public function rest_param(first:String, ...rest):void
+    {
+        var count:int = rest.length;
+    }
+}
+}
@@ -0,0 +1 @@
+param.length;
\ No newline at end of file
@@ -0,0 +1,16 @@
+package demo.shake
+{
+
+public class BrokenBody
+{
+    public function BrokenBody()
+    {
+    }
+
+    public function broken():int
+    {
+        var value:int = ;
+        return value;
+    }
+}
+}